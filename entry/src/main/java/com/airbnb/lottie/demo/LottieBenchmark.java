@@ -0,0 +1,294 @@
+/*
+ * Copyright (C) 2021 Huawei Device Co., Ltd.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.airbnb.lottie.demo;
+
+import ohos.agp.render.BlendMode;
+import ohos.agp.render.Canvas;
+import ohos.agp.render.Texture;
+import ohos.app.Context;
+import ohos.hiviewdfx.HiLog;
+import ohos.hiviewdfx.HiLogLabel;
+import ohos.media.image.PixelMap;
+import ohos.media.image.common.PixelFormat;
+import ohos.media.image.common.Rect;
+import ohos.media.image.common.Size;
+
+import com.airbnb.lottie.LottieComposition;
+import com.airbnb.lottie.LottieCompositionFactory;
+import com.airbnb.lottie.LottieDrawable;
+import com.airbnb.lottie.LottieResult;
+import com.airbnb.lottie.render.CountingRenderTarget;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Benchmarks the bundled animations in resources/rawfile on the device.
+ * <p>
+ * Each animation is run through six phases: parsing, building the layer tree, evaluating every frame of the timeline
+ * with setProgress, drawing every frame into an offscreen canvas with saveLayer and with pooled offscreen buffers for
+ * masks and mattes, and drawing every frame into a {@link CountingRenderTarget}, which measures the engine without
+ * rasterization. Each phase is warmed up, then timed over a fixed number of iterations. Results are logged and returned
+ * as one json object per line so that CI can collect and compare them between runs.
+ * <p>
+ * The saveLayer and pooled buffer outputs are also compared pixel by pixel for every frame, since the pooled path is
+ * only worth enabling if it draws the same frames.
+ */
+public class LottieBenchmark {
+    private static final String TAG_LOG = "[Lottie Benchmark] ";
+
+    private static final int DOMAIN_ID = 0xD000F00;
+
+    private static final HiLogLabel LABEL_LOG = new HiLogLabel(3, DOMAIN_ID, TAG_LOG);
+
+    /**
+     * Animations in resources/rawfile.
+     */
+    public static final List<String> BUNDLED_ANIMATIONS = Arrays.asList(
+        "brahma_logo.json", "circlegood.json", "confusion.json", "good_idea.json", "moving_eye.json",
+        "camptravel.zip", "light.zip", "ribbon_one.zip", "ribbon_two.zip", "security_token_roundtable.zip",
+        "star_none.zip", "star_one.zip", "star_two.zip", "star_three.zip", "switcher_left.zip",
+        "switcher_right.zip");
+
+    /**
+     * Drawing is capped to this size so that large animations measure the pipeline rather than the fill rate.
+     */
+    private static final int MAX_CANVAS_SIZE = 512;
+
+    /**
+     * Largest difference of one color channel that is still considered the same pixel, for rounding in blending.
+     */
+    private static final int PIXEL_TOLERANCE = 2;
+
+    private final Context context;
+
+    private final int warmupIterations;
+
+    private final int iterations;
+
+    /**
+     * One iteration of a phase.
+     */
+    private interface Operation {
+        void run() throws Exception;
+    }
+
+    /**
+     * LottieBenchmark Constructor
+     *
+     * @param context context to read the raw files with
+     * @param warmupIterations untimed iterations of each phase
+     * @param iterations timed iterations of each phase
+     */
+    public LottieBenchmark(Context context, int warmupIterations, int iterations) {
+        this.context = context;
+        this.warmupIterations = warmupIterations;
+        this.iterations = iterations;
+    }
+
+    /**
+     * Benchmarks every bundled animation.
+     *
+     * @return one json line per animation and phase
+     */
+    public String runAll() {
+        StringBuilder sb = new StringBuilder();
+        for (String fileName : BUNDLED_ANIMATIONS) {
+            sb.append(run(fileName));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Benchmarks one animation.
+     *
+     * @param fileName animation in resources/rawfile
+     * @return one json line per phase
+     */
+    public String run(final String fileName) {
+        StringBuilder sb = new StringBuilder();
+        final LottieComposition composition = parse(fileName);
+        if (composition == null) {
+            HiLog.error(LABEL_LOG, "Unable to parse %{public}s", fileName);
+            return sb.toString();
+        }
+        final float frames = Math.max(1, composition.getDurationFrames());
+
+        sb.append(measure(fileName, "parse", 1, () -> parse(fileName)));
+        sb.append(measure(fileName, "buildLayers", 1, () -> newDrawable(composition)));
+
+        final LottieDrawable drawable = newDrawable(composition);
+        sb.append(measure(fileName, "evaluate", (int) frames, () -> {
+            for (int frame = 0; frame < frames; frame++) {
+                drawable.setProgress(frame / frames);
+            }
+        }));
+
+        final PixelMap pixelMap = newPixelMap(composition);
+        final Canvas canvas = new Canvas(new Texture(pixelMap));
+        sb.append(measure(fileName, "draw", (int) frames, () -> {
+            for (int frame = 0; frame < frames; frame++) {
+                drawable.setProgress(frame / frames);
+                drawable.drawToCanvas(canvas);
+            }
+        }));
+
+        final LottieDrawable pooledDrawable = newDrawable(composition);
+        pooledDrawable.setOffscreenBufferPoolEnabled(true);
+        final PixelMap pooledPixelMap = newPixelMap(composition);
+        final Canvas pooledCanvas = new Canvas(new Texture(pooledPixelMap));
+        sb.append(measure(fileName, "drawPooled", (int) frames, () -> {
+            for (int frame = 0; frame < frames; frame++) {
+                pooledDrawable.setProgress(frame / frames);
+                pooledDrawable.drawToCanvas(pooledCanvas);
+            }
+        }));
+        sb.append(compare(fileName, (int) frames, drawable, canvas, pixelMap, pooledDrawable, pooledCanvas,
+            pooledPixelMap));
+
+        final CountingRenderTarget counter = new CountingRenderTarget(canvasWidth(composition),
+            canvasHeight(composition));
+        sb.append(measure(fileName, "drawHeadless", (int) frames, () -> {
+            for (int frame = 0; frame < frames; frame++) {
+                drawable.setProgress(frame / frames);
+                drawable.draw(counter);
+            }
+        }));
+        counter.reset();
+        drawable.setProgress(0f);
+        drawable.draw(counter);
+        HiLog.info(LABEL_LOG, "%{public}s first frame: %{public}s", fileName, counter.toString());
+        return sb.toString();
+    }
+
+    private LottieComposition parse(String fileName) {
+        // No cache key so that every iteration really parses.
+        LottieResult<LottieComposition> result = LottieCompositionFactory.fromAssetSync(context, fileName, null);
+        return result.getValue();
+    }
+
+    private static LottieDrawable newDrawable(LottieComposition composition) {
+        LottieDrawable drawable = new LottieDrawable();
+        drawable.setScale(1f);
+        drawable.setComposition(composition);
+        return drawable;
+    }
+
+    private static PixelMap newPixelMap(LottieComposition composition) {
+        PixelMap.InitializationOptions options = new PixelMap.InitializationOptions();
+        options.size = new Size(canvasWidth(composition), canvasHeight(composition));
+        options.pixelFormat = PixelFormat.ARGB_8888;
+        options.editable = true;
+        return PixelMap.create(options);
+    }
+
+    /**
+     * Draws every frame with saveLayer and with pooled buffers and counts the pixels that differ by more than
+     * {@link #PIXEL_TOLERANCE} in any channel.
+     */
+    private static String compare(String fileName, int frames, LottieDrawable drawable, Canvas canvas,
+        PixelMap pixelMap, LottieDrawable pooledDrawable, Canvas pooledCanvas, PixelMap pooledPixelMap) {
+        int width = pixelMap.getImageInfo().size.width;
+        int height = pixelMap.getImageInfo().size.height;
+        Rect region = new Rect(0, 0, width, height);
+        int[] pixels = new int[width * height];
+        int[] pooledPixels = new int[width * height];
+        long differingPixels = 0;
+        int differingFrames = 0;
+        int maxChannelDiff = 0;
+        for (int frame = 0; frame < frames; frame++) {
+            float progress = frame / (float) frames;
+            canvas.drawColor(0, BlendMode.CLEAR);
+            drawable.setProgress(progress);
+            drawable.drawToCanvas(canvas);
+            pooledCanvas.drawColor(0, BlendMode.CLEAR);
+            pooledDrawable.setProgress(progress);
+            pooledDrawable.drawToCanvas(pooledCanvas);
+            pixelMap.readPixels(pixels, 0, width, region);
+            pooledPixelMap.readPixels(pooledPixels, 0, width, region);
+
+            boolean frameDiffers = false;
+            for (int i = 0; i < pixels.length; i++) {
+                int diff = maxChannelDiff(pixels[i], pooledPixels[i]);
+                maxChannelDiff = Math.max(maxChannelDiff, diff);
+                if (diff > PIXEL_TOLERANCE) {
+                    differingPixels++;
+                    frameDiffers = true;
+                }
+            }
+            if (frameDiffers) {
+                differingFrames++;
+            }
+        }
+        String line = String.format(Locale.US,
+            "{\"animation\":\"%s\",\"phase\":\"pooledVsSaveLayer\",\"frames\":%d,\"differingFrames\":%d,"
+                + "\"differingPixels\":%d,\"maxChannelDiff\":%d}",
+            fileName, frames, differingFrames, differingPixels, maxChannelDiff);
+        HiLog.info(LABEL_LOG, "%{public}s", line);
+        return line + "\n";
+    }
+
+    private static int maxChannelDiff(int color, int otherColor) {
+        int max = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            max = Math.max(max, Math.abs(((color >>> shift) & 0xFF) - ((otherColor >>> shift) & 0xFF)));
+        }
+        return max;
+    }
+
+    private static int canvasWidth(LottieComposition composition) {
+        return Math.max(1, Math.min(MAX_CANVAS_SIZE, composition.getBounds().getWidth()));
+    }
+
+    private static int canvasHeight(LottieComposition composition) {
+        return Math.max(1, Math.min(MAX_CANVAS_SIZE, composition.getBounds().getHeight()));
+    }
+
+    /**
+     * Times a phase and estimates its allocations from the heap growth. The allocation estimate is -1 when a GC ran
+     * during the measurement and made it meaningless.
+     */
+    private String measure(String fileName, String phase, int opsPerIteration, Operation operation) {
+        try {
+            for (int i = 0; i < warmupIterations; i++) {
+                operation.run();
+            }
+            Runtime runtime = Runtime.getRuntime();
+            System.gc();
+            long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+            long startNs = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                operation.run();
+            }
+            long elapsedNs = System.nanoTime() - startNs;
+            long heapGrowth = runtime.totalMemory() - runtime.freeMemory() - heapBefore;
+
+            long ops = (long) iterations * opsPerIteration;
+            double opsPerSecond = ops * 1e9 / Math.max(1, elapsedNs);
+            double nsPerOp = elapsedNs / (double) Math.max(1, ops);
+            long bytesPerOp = heapGrowth < 0 ? -1 : heapGrowth / Math.max(1, ops);
+            String line = String.format(Locale.US,
+                "{\"animation\":\"%s\",\"phase\":\"%s\",\"ops\":%d,\"opsPerSecond\":%.2f,\"nsPerOp\":%.0f,"
+                    + "\"bytesPerOp\":%d}",
+                fileName, phase, ops, opsPerSecond, nsPerOp, bytesPerOp);
+            HiLog.info(LABEL_LOG, "%{public}s", line);
+            return line + "\n";
+        } catch (Exception e) {
+            HiLog.error(LABEL_LOG, "%{public}s %{public}s failed: %{public}s", fileName, phase, e.getMessage());
+            return "";
+        }
+    }
+}
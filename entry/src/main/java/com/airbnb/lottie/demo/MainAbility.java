@@ -20,9 +20,24 @@ import ohos.aafwk.content.Intent;
 import com.airbnb.lottie.demo.slice.MainAbilitySlice;
 
 public class MainAbility extends Ability {
+    /**
+     * Boolean intent parameter that runs {@link LottieBenchmark} over the bundled animations in the background and
+     * logs the results.
+     */
+    public static final String KEY_BENCHMARK = "benchmark";
+
+    private static final int BENCHMARK_WARMUP_ITERATIONS = 3;
+
+    private static final int BENCHMARK_ITERATIONS = 10;
+
     @Override
     public void onStart(Intent intent) {
         super.onStart(intent);
         super.setMainRoute(MainAbilitySlice.class.getName());
+        if (intent != null && intent.getBooleanParam(KEY_BENCHMARK, false)) {
+            final LottieBenchmark benchmark =
+                new LottieBenchmark(getApplicationContext(), BENCHMARK_WARMUP_ITERATIONS, BENCHMARK_ITERATIONS);
+            new Thread(benchmark::runAll, "LottieBenchmark").start();
+        }
     }
 }
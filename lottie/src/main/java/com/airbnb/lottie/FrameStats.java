@@ -0,0 +1,205 @@
+package com.airbnb.lottie;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Breakdown of where the time and work of one frame of one {@link LottieDrawable} went, collected while performance
+ * tracking is enabled.
+ * <p>
+ * Evaluation covers every progress update since the previous frame was drawn, draw covers the frame itself. Each
+ * drawable collects its own, even when it shares its composition, and with it its {@link PerformanceTracker}, with
+ * other drawables. Layers and contents record their work with the record methods into
+ * {@link LottieDrawable#getCurrentFrameStats()}.
+ */
+public final class FrameStats {
+
+    private long evaluationNanos;
+
+    private int evaluationCount;
+
+    private long drawNanos;
+
+    private int offscreenLayerCount;
+
+    private long offscreenPixelArea;
+
+    private int pathBuildCount;
+
+    private int trimPathCount;
+
+    private int dashPatternCount;
+
+    /**
+     * Hits and misses per cache name.
+     */
+    private final Map<String, long[]> cacheCounts = new HashMap<>();
+
+    FrameStats() {
+    }
+
+    FrameStats(FrameStats other) {
+        evaluationNanos = other.evaluationNanos;
+        evaluationCount = other.evaluationCount;
+        drawNanos = other.drawNanos;
+        offscreenLayerCount = other.offscreenLayerCount;
+        offscreenPixelArea = other.offscreenPixelArea;
+        pathBuildCount = other.pathBuildCount;
+        trimPathCount = other.trimPathCount;
+        dashPatternCount = other.dashPatternCount;
+        for (Map.Entry<String, long[]> e : other.cacheCounts.entrySet()) {
+            cacheCounts.put(e.getKey(), e.getValue().clone());
+        }
+    }
+
+    /**
+     * Records the time of a progress update, which evaluates the keyframes of every layer.
+     * @param nanos duration in ns
+     */
+    public void recordEvaluation(long nanos) {
+        evaluationNanos += nanos;
+        evaluationCount++;
+    }
+
+    void setDrawNanos(long nanos) {
+        drawNanos = nanos;
+    }
+
+    /**
+     * Records a saveLayer or offscreen buffer.
+     * @param width width of the offscreen layer in px
+     * @param height height of the offscreen layer in px
+     */
+    public void recordOffscreenLayer(float width, float height) {
+        offscreenLayerCount++;
+        offscreenPixelArea += (long) Math.ceil(Math.max(0, width)) * (long) Math.ceil(Math.max(0, height));
+    }
+
+    public void recordPathBuild() {
+        pathBuildCount++;
+    }
+
+    public void recordTrimPaths(int count) {
+        trimPathCount += count;
+    }
+
+    public void recordDashPattern() {
+        dashPatternCount++;
+    }
+
+    public void recordCacheAccess(String cacheName, boolean hit) {
+        long[] counts = cacheCounts.get(cacheName);
+        if (counts == null) {
+            counts = new long[2];
+            cacheCounts.put(cacheName, counts);
+        }
+        counts[hit ? 0 : 1]++;
+    }
+
+    void reset() {
+        evaluationNanos = 0;
+        evaluationCount = 0;
+        drawNanos = 0;
+        offscreenLayerCount = 0;
+        offscreenPixelArea = 0;
+        pathBuildCount = 0;
+        trimPathCount = 0;
+        dashPatternCount = 0;
+        // Keep the arrays so that steady state frames don't allocate.
+        for (long[] counts : cacheCounts.values()) {
+            counts[0] = 0;
+            counts[1] = 0;
+        }
+    }
+
+    /**
+     * @return time spent applying progress updates, i.e. evaluating keyframes, since the previous frame in ms
+     */
+    public float getEvaluationTimeMs() {
+        return evaluationNanos / 1000000f;
+    }
+
+    /**
+     * @return number of progress updates since the previous frame
+     */
+    public int getEvaluationCount() {
+        return evaluationCount;
+    }
+
+    public float getDrawTimeMs() {
+        return drawNanos / 1000000f;
+    }
+
+    /**
+     * @return number of saveLayers and pooled offscreen buffers used to draw masks, mattes and layer opacity
+     */
+    public int getOffscreenLayerCount() {
+        return offscreenLayerCount;
+    }
+
+    /**
+     * @return total number of pixels of all offscreen layers, a measure of the fill rate they cost
+     */
+    public long getOffscreenPixelArea() {
+        return offscreenPixelArea;
+    }
+
+    /**
+     * @return number of shape paths that had to be rebuilt because their keyframes changed
+     */
+    public int getPathBuildCount() {
+        return pathBuildCount;
+    }
+
+    /**
+     * @return number of trim paths applied to rebuilt paths and strokes
+     */
+    public int getTrimPathCount() {
+        return trimPathCount;
+    }
+
+    /**
+     * @return number of strokes whose dash pattern changed and had to be recomputed
+     */
+    public int getDashPatternCount() {
+        return dashPatternCount;
+    }
+
+    public long getCacheHits(String cacheName) {
+        long[] counts = cacheCounts.get(cacheName);
+        return counts == null ? 0 : counts[0];
+    }
+
+    public long getCacheMisses(String cacheName) {
+        long[] counts = cacheCounts.get(cacheName);
+        return counts == null ? 0 : counts[1];
+    }
+
+    /**
+     * @return copy of the hit and miss counts of every cache used so far, as {hits, misses} per cache name
+     */
+    public Map<String, long[]> getCacheCounts() {
+        Map<String, long[]> copy = new HashMap<>();
+        for (Map.Entry<String, long[]> e : cacheCounts.entrySet()) {
+            copy.put(e.getKey(), e.getValue().clone());
+        }
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("FrameStats{");
+        sb.append("evaluationMs=").append(getEvaluationTimeMs())
+            .append(", evaluations=").append(evaluationCount)
+            .append(", drawMs=").append(getDrawTimeMs())
+            .append(", offscreenLayers=").append(offscreenLayerCount)
+            .append(", offscreenPixels=").append(offscreenPixelArea)
+            .append(", pathBuilds=").append(pathBuildCount)
+            .append(", trimPaths=").append(trimPathCount)
+            .append(", dashPatterns=").append(dashPatternCount);
+        for (Map.Entry<String, long[]> e : cacheCounts.entrySet()) {
+            sb.append(", ").append(e.getKey()).append('=').append(e.getValue()[0]).append('/').append(e.getValue()[1]);
+        }
+        return sb.append('}').toString();
+    }
+}
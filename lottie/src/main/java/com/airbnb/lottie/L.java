@@ -26,8 +26,13 @@ public class L {
 
     private static int depthPastMaxDepth = 0;
 
+    private static volatile TraceSink traceSink;
+
     private static LottieNetworkFetcher fetcher;
     private static LottieNetworkCacheProvider cacheProvider;
+    private static long networkCacheMaxBytes;
+    private static boolean networkCacheRevalidation;
+    private static boolean networkCacheCompression;
 
     private static volatile NetworkFetcher networkFetcher;
     private static volatile NetworkCache networkCache;
@@ -47,9 +52,26 @@ public class L {
         }
     }
 
+    /**
+     * Also send every section to the given sink, for example a {@link RingBufferTraceSink} to export a Chrome trace.
+     * This works independently of {@link #setTraceEnabled(boolean)}, which controls HiTrace.
+     * @param sink sink or null to stop
+     */
+    public static void setTraceSink(TraceSink sink) {
+        traceSink = sink;
+    }
+
     public static HiTraceId beginSection(String section) {
+        TraceSink sink = traceSink;
+        if (sink != null) {
+            sink.beginSection(section, System.nanoTime());
+        }
         HiTraceId traceID = null;
         if(traceEnabled) {
+            if (traceDepth == MAX_DEPTH) {
+                depthPastMaxDepth++;
+                return null;
+            }
             sections[traceDepth] = section;
             startTimeNs[traceDepth] = System.nanoTime();
             traceID = HiTrace.begin(section, HiTrace.HITRACE_FLAG_TP_INFO);
@@ -59,6 +81,10 @@ public class L {
     }
 
     public static float endSection(HiTraceId traceId) {
+        TraceSink sink = traceSink;
+        if (sink != null) {
+            sink.endSection(System.nanoTime());
+        }
         if (depthPastMaxDepth > 0) {
             depthPastMaxDepth--;
             return 0;
@@ -77,6 +103,30 @@ public class L {
         fetcher = customFetcher;
     }
 
+    public static void setNetworkCacheMaxBytes(long maxBytes) {
+        networkCacheMaxBytes = maxBytes;
+        NetworkCache local = networkCache;
+        if (local != null && maxBytes > 0) {
+            local.setMaxBytes(maxBytes);
+        }
+    }
+
+    public static void setNetworkCacheRevalidation(boolean enabled) {
+        networkCacheRevalidation = enabled;
+        NetworkFetcher local = networkFetcher;
+        if (local != null) {
+            local.setRevalidationEnabled(enabled);
+        }
+    }
+
+    public static void setNetworkCacheCompression(boolean enabled) {
+        networkCacheCompression = enabled;
+        NetworkCache local = networkCache;
+        if (local != null) {
+            local.setCompressJson(enabled);
+        }
+    }
+
     public static void setCacheProvider(LottieNetworkCacheProvider customProvider) {
         cacheProvider = customProvider;
     }
@@ -88,7 +138,9 @@ public class L {
             synchronized (NetworkFetcher.class) {
                 local = networkFetcher;
                 if (local == null) {
-                    networkFetcher = local = new NetworkFetcher(networkCache(context), fetcher != null ? fetcher : new DefaultLottieNetworkFetcher());
+                    local = new NetworkFetcher(networkCache(context), fetcher != null ? fetcher : new DefaultLottieNetworkFetcher());
+                    local.setRevalidationEnabled(networkCacheRevalidation);
+                    networkFetcher = local;
                 }
             }
         }
@@ -102,12 +154,17 @@ public class L {
             synchronized (NetworkCache.class) {
                 local = networkCache;
                 if (local == null) {
-                    networkCache = local = new NetworkCache(cacheProvider != null ? cacheProvider : new LottieNetworkCacheProvider() {
+                    local = new NetworkCache(cacheProvider != null ? cacheProvider : new LottieNetworkCacheProvider() {
                         @Override @NotNull
                         public File getCacheDir() {
                             return new File(context.getCacheDir(), "lottie_network_cache");
                         }
                     });
+                    if (networkCacheMaxBytes > 0) {
+                        local.setMaxBytes(networkCacheMaxBytes);
+                    }
+                    local.setCompressJson(networkCacheCompression);
+                    networkCache = local;
                 }
             }
         }
@@ -0,0 +1,22 @@
+package com.airbnb.lottie;
+
+/**
+ * Order in which queued composition loads are run by the loader executor. Loads of the same priority run in the order
+ * they were started.
+ *
+ * @see LottieConfig.Builder#setLoaderThreadCount(int)
+ */
+public enum LoadPriority {
+    /**
+     * An animation that is about to be shown. Used by {@link LottieAnimationView} and the factory methods.
+     */
+    VISIBLE,
+    /**
+     * An animation that will probably be shown soon.
+     */
+    PREFETCH,
+    /**
+     * Work nobody is waiting for.
+     */
+    BACKGROUND
+}
@@ -20,6 +20,13 @@ public class Lottie {
   public static void initialize(@NotNull final LottieConfig lottieConfig) {
     L.setFetcher(lottieConfig.networkFetcher);
     L.setCacheProvider(lottieConfig.cacheProvider);
+    L.setNetworkCacheMaxBytes(lottieConfig.networkCacheMaxBytes);
+    L.setNetworkCacheRevalidation(lottieConfig.networkCacheRevalidation);
+    L.setNetworkCacheCompression(lottieConfig.networkCacheCompression);
     L.setTraceEnabled(lottieConfig.enableSystraceMarkers);
+    L.setTraceSink(lottieConfig.traceSink);
+    if (lottieConfig.loaderThreadCount > 0 && LottieTask.EXECUTOR instanceof LottieLoaderExecutor) {
+      ((LottieLoaderExecutor) LottieTask.EXECUTOR).setThreadCount(lottieConfig.loaderThreadCount);
+    }
   }
 }
\ No newline at end of file
@@ -9,6 +9,7 @@ import com.airbnb.lottie.utils.Utils;
 import com.airbnb.lottie.value.LottieAnimationViewData;
 import com.airbnb.lottie.value.LottieFrameInfo;
 import com.airbnb.lottie.value.LottieValueCallback;
+import com.airbnb.lottie.value.LottieValueCallbackBatch;
 
 import ohos.agp.animation.Animator;
 import ohos.agp.animation.AnimatorValue;
@@ -32,7 +33,6 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
-import java.util.concurrent.Callable;
 
 /**
  * This view will load, deserialize, and display an After Effects animation exported with bodymovin.
@@ -268,14 +268,12 @@ public class LottieAnimationView extends Image implements Component.BindStateCha
         setCompositionTask(fromRawRes(rawRes));
     }
 
-    private LottieTask<LottieComposition> fromRawRes( final int rawRes) {
-            return new LottieTask<>(new Callable<LottieResult<LottieComposition>>() {
-                @Override public LottieResult<LottieComposition> call() throws Exception {
-                    return cacheComposition
-                            ? LottieCompositionFactory.fromRawResSync(getContext(), rawRes) : LottieCompositionFactory.fromRawResSync(getContext(), rawRes, null);
-                }
-            }, true);
-        }
+    private LottieTask<LottieComposition> fromRawRes(final int rawRes) {
+        // Goes through the factory so that views and direct callers share one in-flight load per cache key.
+        return cacheComposition
+                ? LottieCompositionFactory.fromRawRes(getContext(), rawRes)
+                : LottieCompositionFactory.fromRawRes(getContext(), rawRes, null);
+    }
 
     public void setAnimation(final String assetName) {
         animationName = assetName;
@@ -284,12 +282,9 @@ public class LottieAnimationView extends Image implements Component.BindStateCha
     }
 
     private LottieTask<LottieComposition> fromAssets(final String assetName) {
-            return new LottieTask<>(new Callable<LottieResult<LottieComposition>>() {
-                @Override public LottieResult<LottieComposition> call() throws Exception {
-                    return cacheComposition ?
-                            LottieCompositionFactory.fromAssetSync(getContext(), assetName) : LottieCompositionFactory.fromAssetSync(getContext(), assetName, null);
-                }
-            }, true);
+        return cacheComposition
+                ? LottieCompositionFactory.fromAsset(getContext(), assetName)
+                : LottieCompositionFactory.fromAsset(getContext(), assetName, null);
     }
 
     /**
@@ -406,6 +401,10 @@ public class LottieAnimationView extends Image implements Component.BindStateCha
         if (compositionTask != null) {
             compositionTask.removeListener(loadedListener);
             compositionTask.removeFailureListener(wrappedFailureListener);
+            // Loads are shared between everyone asking for the same animation so this only stops it if nobody else
+            // holds it.
+            LottieCompositionFactory.releaseTask(compositionTask);
+            compositionTask = null;
         }
     }
 
@@ -846,6 +845,15 @@ public class LottieAnimationView extends Image implements Component.BindStateCha
         lottieDrawable.addValueCallback(keyPath, property, callback);
     }
 
+    /**
+     * Adds every callback of the batch, resolving all of their keypaths in a single pass over the animation.
+     * @see LottieDrawable#addValueCallbacks(LottieValueCallbackBatch)
+     * @param batch callbacks to add
+     */
+    public void addValueCallbacks(LottieValueCallbackBatch batch) {
+        lottieDrawable.addValueCallbacks(batch);
+    }
+
     /**
      * Overload of {@link #addValueCallback(KeyPath, Object, LottieValueCallback)} that takes an interface. This allows you to use a single abstract
      * method code block in Kotlin such as:
@@ -953,6 +961,22 @@ public class LottieAnimationView extends Image implements Component.BindStateCha
         return lottieDrawable.getPerformanceTracker();
     }
 
+    /**
+     * @see LottieDrawable#getLastFrameStats()
+     * @return cost breakdown of the last frame this view drew while tracking was enabled, or null
+     */
+    public FrameStats getLastFrameStats() {
+        return lottieDrawable.getLastFrameStats();
+    }
+
+    public void addFrameStatsListener(LottieDrawable.FrameStatsListener listener) {
+        lottieDrawable.addFrameStatsListener(listener);
+    }
+
+    public void removeFrameStatsListener(LottieDrawable.FrameStatsListener listener) {
+        lottieDrawable.removeFrameStatsListener(listener);
+    }
+
     private void clearComposition() {
         composition = null;
         lottieDrawable.clearComposition();
@@ -1032,6 +1056,55 @@ public class LottieAnimationView extends Image implements Component.BindStateCha
     public void setApplyingOpacityToLayersEnabled(boolean isApplyingOpacityToLayersEnabled) {
         lottieDrawable.setApplyingOpacityToLayersEnabled(isApplyingOpacityToLayersEnabled);
     }
+
+    /**
+     * Sets whether layers with masks or mattes render into pooled offscreen buffers instead of saveLayers.
+     *
+     * @see LottieDrawable#setOffscreenBufferPoolEnabled(boolean)
+     * @param isOffscreenBufferPoolEnabled Sets whether to use pooled offscreen buffers for masks and mattes.
+     */
+    public void setOffscreenBufferPoolEnabled(boolean isOffscreenBufferPoolEnabled) {
+        lottieDrawable.setOffscreenBufferPoolEnabled(isOffscreenBufferPoolEnabled);
+    }
+
+    /**
+     * Sets whether drawn frames are recorded and replayed when the same frame is drawn again at the same size.
+     *
+     * @see LottieDrawable#setDisplayListCacheEnabled(boolean)
+     * @param enabled Sets whether to replay recorded frames.
+     */
+    public void setDisplayListCacheEnabled(boolean enabled) {
+        lottieDrawable.setDisplayListCacheEnabled(enabled);
+    }
+
+    /**
+     * Sets the memory budget of the recorded frames.
+     *
+     * @see LottieDrawable#setDisplayListCacheMaxBytes(long)
+     * @param maxBytes approximate maximum size of all recorded frames
+     */
+    public void setDisplayListCacheMaxBytes(long maxBytes) {
+        lottieDrawable.setDisplayListCacheMaxBytes(maxBytes);
+    }
+
+    /**
+     * Sets how finely frames are quantized while the display list cache is enabled.
+     *
+     * @see LottieDrawable#setDisplayListCacheStepsPerFrame(int)
+     * @param stepsPerFrame number of distinct recordings per composition frame
+     */
+    public void setDisplayListCacheStepsPerFrame(int stepsPerFrame) {
+        lottieDrawable.setDisplayListCacheStepsPerFrame(stepsPerFrame);
+    }
+
+    /**
+     * Drops every recorded frame.
+     *
+     * @see LottieDrawable#clearDisplayListCache()
+     */
+    public void clearDisplayListCache() {
+        lottieDrawable.clearDisplayListCache();
+    }
     //TODO : scaleType FitXY mode is not supported in HMOS
 
     /**
@@ -1043,7 +1116,7 @@ public class LottieAnimationView extends Image implements Component.BindStateCha
      * <b>Attention:</b> Disable the extra scale mode can downgrade the performance and may lead to larger memory footprint. Please only disable this
      * mode when using animation with a reasonable dimension (smaller than screen size).
      *
-     * @see LottieDrawable#drawWithNewAspectRatio(Canvas)
+     * @see LottieDrawable#drawWithNewAspectRatio(com.airbnb.lottie.render.RenderTarget)
      */
     /*public void disableExtraScaleModeInFitXY() {
         lottieHMOSDrawable.disableExtraScaleModeInFitXY();
@@ -1169,6 +1242,7 @@ public class LottieAnimationView extends Image implements Component.BindStateCha
             float maxScaleY = (float) LottieAnimationViewHeight / composition.getBounds().getHeight();
             float scale = Math.min(maxScaleX, maxScaleY);
             canvas.scale(scale, scale);
+            lottieDrawable.setFitScale(scale);
 
             // Move animation to center
             if (getLayoutConfig().width == ComponentContainer.LayoutConfig.MATCH_PARENT) {
@@ -4,12 +4,15 @@ package com.airbnb.lottie;
 import com.airbnb.lottie.model.Font;
 import com.airbnb.lottie.model.FontCharacter;
 import com.airbnb.lottie.model.Marker;
+import com.airbnb.lottie.model.content.ShapeData;
 import com.airbnb.lottie.model.layer.Layer;
 import com.airbnb.lottie.parser.moshi.JsonReader;
 import com.airbnb.lottie.utils.HMOSLogUtil;
+import com.airbnb.lottie.value.Keyframe;
 
 import ohos.agp.utils.Rect;
 import ohos.app.Context;
+import ohos.media.image.PixelMap;
 import ohos.utils.LongPlainArray;
 import ohos.utils.PlainArray;
 import ohos.utils.zson.ZSONObject;
@@ -30,6 +33,12 @@ import java.util.*;
  */
 public class LottieComposition {
 
+    private static final int KEYFRAME_BYTES = 128;
+
+    private static final int CURVE_BYTES = 96;
+
+    private static final int LAYER_BYTES = 1024;
+
     private final PerformanceTracker perfTracker = new PerformanceTracker();
 
     private final HashSet<String> warnings = new HashSet<>();
@@ -71,6 +80,12 @@ public class LottieComposition {
      */
     private int maskAndMatteCount = 0;
 
+    /**
+     * Rough number of bytes retained by the parsed keyframes. Used to weigh the composition in the
+     * {@link com.airbnb.lottie.model.LottieCompositionCache}.
+     */
+    private long keyframeBytes;
+
     public void init(Rect bounds, float startFrame, float endFrame, float frameRate,
         List<Layer> layers, LongPlainArray<Layer> layerMap, Map<String, List<Layer>> precomps,
         Map<String, LottieImageAsset> images, PlainArray<FontCharacter> characters, Map<String, Font> fonts,
@@ -100,6 +115,49 @@ public class LottieComposition {
         maskAndMatteCount += amount;
     }
 
+    public void recordParsedKeyframe(Keyframe<?> keyframe) {
+        keyframeBytes += KEYFRAME_BYTES + estimateValueBytes(keyframe.startValue);
+        if (keyframe.endValue != keyframe.startValue) {
+            keyframeBytes += estimateValueBytes(keyframe.endValue);
+        }
+    }
+
+    private static long estimateValueBytes(Object value) {
+        if (value instanceof ShapeData) {
+            return ((ShapeData) value).getCurves().size() * (long) CURVE_BYTES;
+        }
+        return 0;
+    }
+
+    /**
+     * Estimates how many bytes this composition keeps alive: its keyframes and shape data, its layers and any images
+     * that were decoded or embedded with it. It is only meant to compare compositions with each other.
+     * @return estimated retained size in bytes
+     */
+    public long getEstimatedByteSize() {
+        long bytes = keyframeBytes;
+        if (layers != null) {
+            bytes += layers.size() * (long) LAYER_BYTES;
+        }
+        if (precomps != null) {
+            for (List<Layer> precompLayers : precomps.values()) {
+                bytes += precompLayers.size() * (long) LAYER_BYTES;
+            }
+        }
+        if (images != null) {
+            for (LottieImageAsset asset : images.values()) {
+                PixelMap pixelmap = asset.getPixelmap();
+                if (pixelmap != null) {
+                    bytes += pixelmap.getImageInfo().size.width * (long) pixelmap.getImageInfo().size.height * 4;
+                }
+                if (asset.getEncodedImage() != null) {
+                    bytes += asset.getEncodedImage().length;
+                }
+            }
+        }
+        return bytes;
+    }
+
     /**
      * Used to determine if an animation can be drawn with hardware acceleration.
      * @return hasDashPattern
@@ -3,6 +3,7 @@ package com.airbnb.lottie;
 import static okio.Okio.buffer;
 import static okio.Okio.source;
 
+import com.airbnb.lottie.manager.ImageAssetManager;
 import com.airbnb.lottie.model.LottieCompositionCache;
 import com.airbnb.lottie.network.NetworkCache;
 import com.airbnb.lottie.network.NetworkFetcher;
@@ -12,6 +13,8 @@ import com.airbnb.lottie.utils.HMOSLogUtil;
 import com.airbnb.lottie.utils.Utils;
 
 import ohos.app.Context;
+import ohos.eventhandler.EventHandler;
+import ohos.eventhandler.EventRunner;
 import ohos.global.resource.NotExistException;
 import ohos.media.image.ImageSource;
 import ohos.media.image.PixelMap;
@@ -21,13 +24,27 @@ import okio.Okio;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 /**
@@ -42,6 +59,8 @@ public class LottieCompositionFactory {
      * Keep a map of cache keys to in-progress tasks and return them for new requests.
      * Without this, simultaneous requests to parse a composition will trigger multiple parallel
      * parse tasks prior to the cache getting populated.
+     * <p>
+     * Guarded by its own lock.
      */
     private static final Map<String, LottieTask<LottieComposition>> taskCache = new HashMap<>();
 
@@ -51,6 +70,27 @@ public class LottieCompositionFactory {
      */
     private static final byte[] MAGIC = new byte[]{0x50, 0x4b, 0x03, 0x04};
 
+    /**
+     * Decodes the images of zip archives in parallel. The pool is separate from {@link LottieTask#EXECUTOR} because
+     * the loading task waits for these decodes to finish.
+     */
+    private static final ExecutorService ARCHIVE_DECODE_EXECUTOR =
+        Executors.newFixedThreadPool(Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors())),
+            new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "LottieArchiveDecode-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    private static final AtomicInteger ARCHIVE_ID = new AtomicInteger();
+
+    private static volatile boolean lazyZipImageDecoding = false;
+
     private LottieCompositionFactory() {
     }
 
@@ -64,8 +104,42 @@ public class LottieCompositionFactory {
         LottieCompositionCache.getInstance().resize(size);
     }
 
+    /**
+     * Set the estimated number of bytes that compositions kept cached in memory may retain. Compositions are weighed
+     * by their keyframes, layers and images, so a few large animations take up as much of the budget as many small
+     * ones.
+     *
+     * @param maxBytes byte budget
+     */
+    public static void setMaxCacheBytes(long maxBytes) {
+        LottieCompositionCache.getInstance().setMaxBytes(maxBytes);
+    }
+
+    /**
+     * Keep compositions that are evicted from the memory cache reachable through soft references so they can be
+     * reused until the GC needs the memory.
+     *
+     * @param enabled whether to keep a soft reference tier
+     */
+    public static void setSoftCacheEnabled(boolean enabled) {
+        LottieCompositionCache.getInstance().setSoftTierEnabled(enabled);
+    }
+
+    /**
+     * By default every image of a zip or .lottie archive is decoded before the composition is returned. When this is
+     * enabled the encoded images are kept with the composition instead and decoded in the background when it is set
+     * on a drawable, so the first frame is shown sooner and unused images never take up memory as bitmaps.
+     *
+     * @param lazy whether to defer decoding archive images
+     */
+    public static void setLazyZipImageDecoding(boolean lazy) {
+        lazyZipImageDecoding = lazy;
+    }
+
     public static void clearCache(Context context) {
-        taskCache.clear();
+        synchronized (taskCache) {
+            taskCache.clear();
+        }
         LottieCompositionCache.getInstance().clear();
         L.networkCache(context).clear();
     }
@@ -329,7 +403,7 @@ public class LottieCompositionFactory {
     }
 
     // TODO - UI mode (day/night) is not supported in HMOS
-    private static String rawResCacheKey(Context context, int resId) {
+    static String rawResCacheKey(Context context, int resId) {
         return "rawRes" + /*(isNightMode(context) ? "_night_" : "_day_")*/ +resId;
     }
 
@@ -519,37 +593,72 @@ public class LottieCompositionFactory {
         }
     }
 
-    private static void findImageAsset(Map<String, PixelMap> images, LottieComposition composition){
-        for (Map.Entry<String, PixelMap> e : images.entrySet()) {
-            LottieImageAsset imageAsset = findImageAssetForFileName(composition, e.getKey());
-            if (imageAsset != null) {
-                imageAsset.setPixelMap(e.getValue());
-                // HMOSUtils.resizeBitmapIfNeeded(e.getValue(), imageAsset.getWidth(), imageAsset.getHeight()));
+    /**
+     * Parses a zip file into a Lottie composition. Unlike {@link #fromZipStreamSync(ZipInputStream, String)}, the
+     * archive is indexed through its central directory so the json is parsed first and only the images that the
+     * composition references are read.
+     *
+     * @param cacheKey key to cache
+     * @param file zip or .lottie file
+     * @return Lottie Composition
+     */
+    public static LottieResult<LottieComposition> fromZipFileSync(File file, @Nullable String cacheKey) {
+        try (ZipFile zipFile = new ZipFile(file)) {
+            LottieComposition composition = null;
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements() && composition == null) {
+                ZipEntry entry = entries.nextElement();
+                if (isCompositionEntry(entry.getName())) {
+                    JsonReader reader = JsonReader.of(buffer(source(zipFile.getInputStream(entry))));
+                    LottieResult<LottieComposition> result = fromJsonReaderSyncInternal(reader, null, true);
+                    if (result.getException() != null) {
+                        return result;
+                    }
+                    composition = result.getValue();
+                }
+            }
+            if (composition == null) {
+                return new LottieResult<>(new IllegalArgumentException("Unable to parse composition"));
+            }
+
+            Map<String, byte[]> images = new HashMap<>();
+            entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                String name = imageName(entry.getName());
+                if (name != null && findImageAssetForFileName(composition, name) != null) {
+                    try (InputStream is = zipFile.getInputStream(entry)) {
+                        images.put(name, readFully(is));
+                    }
+                }
             }
+            return attachImages(composition, images, cacheKey);
+        } catch (IOException e) {
+            return new LottieResult<>(e);
         }
     }
 
     private static LottieResult<LottieComposition> fromZipStreamSyncInternal(
             ZipInputStream inputStream, String cacheKey) {
         LottieComposition composition = null;
-        Map<String, PixelMap> images = new HashMap<>();
+        // Encoded images are kept until the json has been parsed so that only the referenced ones get decoded.
+        Map<String, byte[]> images = new HashMap<>();
 
         try {
             ZipEntry entry = inputStream.getNextEntry();
             while (entry != null) {
                 final String entryName = entry.getName();
-                if (entryName.contains("__MACOSX")) {
-                    inputStream.closeEntry();
-                } else if (entry.getName().equalsIgnoreCase("manifest.json")) { //ignore .lottie manifest
-                    inputStream.closeEntry();
-                } else if (entry.getName().contains(".json")) {
-                    com.airbnb.lottie.parser.moshi.JsonReader reader = JsonReader.of(buffer(source(inputStream)));
-                    composition = LottieCompositionFactory.fromJsonReaderSyncInternal(reader, null, false).getValue();
-                } else if (entryName.contains(".png") || entryName.contains(".webp")) {
-                    String[] splitName = entryName.split("/");
-                    String name = splitName[splitName.length - 1];
-                    ImageSource im = ImageSource.create(inputStream, new ImageSource.SourceOptions());
-                    images.put(name, im.createPixelmap(new ImageSource.DecodingOptions()));
+                String imageName = imageName(entryName);
+                if (composition == null && isCompositionEntry(entryName)) {
+                    JsonReader reader = JsonReader.of(buffer(source(inputStream)));
+                    LottieResult<LottieComposition> result = fromJsonReaderSyncInternal(reader, null, false);
+                    if (result.getException() != null) {
+                        return result;
+                    }
+                    composition = result.getValue();
+                } else if (imageName != null
+                    && (composition == null || findImageAssetForFileName(composition, imageName) != null)) {
+                    images.put(imageName, readFully(inputStream));
                 } else {
                     inputStream.closeEntry();
                 }
@@ -563,14 +672,89 @@ public class LottieCompositionFactory {
         if (composition == null) {
             return new LottieResult<>(new IllegalArgumentException("Unable to parse composition"));
         }
+        return attachImages(composition, images, cacheKey);
+    }
 
-        findImageAsset(images,composition);
+    private static boolean isCompositionEntry(String entryName) {
+        //ignore .lottie manifest
+        return !entryName.contains("__MACOSX") && !entryName.equalsIgnoreCase("manifest.json")
+            && entryName.contains(".json");
+    }
+
+    @Nullable
+    private static String imageName(String entryName) {
+        if (entryName.contains("__MACOSX") || !(entryName.contains(".png") || entryName.contains(".webp"))) {
+            return null;
+        }
+        String[] splitName = entryName.split("/");
+        return splitName[splitName.length - 1];
+    }
+
+    private static byte[] readFully(InputStream is) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = is.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Hands the encoded images of an archive to the image assets of its composition. Images are either decoded in
+     * parallel before the composition is returned or, with {@link #setLazyZipImageDecoding(boolean)}, decoded in the
+     * background the first time they are needed.
+     */
+    private static LottieResult<LottieComposition> attachImages(
+            LottieComposition composition, Map<String, byte[]> images, @Nullable String cacheKey) {
+        String archiveKey = "archive_" + ARCHIVE_ID.incrementAndGet() + "/";
+        boolean lazy = lazyZipImageDecoding;
+        List<Callable<Void>> decodes = new ArrayList<>();
+        for (final LottieImageAsset asset : composition.getImages().values()) {
+            final byte[] data = images.get(asset.getFileName());
+            if (data == null) {
+                return new LottieResult<>(new IllegalStateException("There is no image for " + asset.getFileName()));
+            }
+            if (lazy) {
+                asset.setEncodedImage(archiveKey + asset.getFileName(), data);
+                continue;
+            }
+            decodes.add(() -> {
+                ImageSource imageSource = ImageSource.create(data, new ImageSource.SourceOptions());
+                if (imageSource == null) {
+                    throw new IllegalStateException("Unable to decode image " + asset.getFileName());
+                }
+                try {
+                    PixelMap pixelMap = imageSource.createPixelmap(new ImageSource.DecodingOptions());
+                    if (pixelMap == null) {
+                        throw new IllegalStateException("Unable to decode image " + asset.getFileName());
+                    }
+                    asset.setPixelMap(pixelMap);
+                } finally {
+                    imageSource.release();
+                }
+                return null;
+            });
+        }
+
+        try {
+            for (Future<Void> future : ARCHIVE_DECODE_EXECUTOR.invokeAll(decodes)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new LottieResult<>(e);
+        } catch (ExecutionException e) {
+            return new LottieResult<>(e.getCause());
+        }
 
         // Ensure that all bitmaps have been set.
-        for (Map.Entry<String, LottieImageAsset> entry : composition.getImages().entrySet()) {
-            if (entry.getValue().getPixelmap() == null) {
-                return new LottieResult<>(
-                        new IllegalStateException("There is no image for " + entry.getValue().getFileName()));
+        if (!lazy) {
+            for (LottieImageAsset asset : composition.getImages().values()) {
+                if (asset.getPixelmap() == null) {
+                    return new LottieResult<>(
+                        new IllegalStateException("There is no image for " + asset.getFileName()));
+                }
             }
         }
 
@@ -580,6 +764,78 @@ public class LottieCompositionFactory {
         return new LottieResult<>(composition);
     }
 
+    /**
+     * Loads compositions that will be needed soon into the memory cache, at {@link LoadPriority#PREFETCH} so they don't
+     * hold up animations that are being shown. Requests for animations that are already cached or loading are shared
+     * with the existing load. Prefetched compositions aren't evicted from the memory cache until they are first used.
+     * <p>
+     * If decodeImages is true, the images of each composition are decoded into the image cache once it has loaded.
+     * Images from an images folder are decoded at full size because the size they will be drawn at isn't known yet.
+     *
+     * @param context            context
+     * @param requests           animations to load
+     * @param decodeImages       whether to decode the images of the loaded compositions as well
+     * @param completionListener called on the main thread with the number of compositions that loaded once every
+     *                           request has finished, may be null
+     * @return the load task of each request in the same order
+     */
+    public static List<LottieTask<LottieComposition>> prefetch(Context context, List<PrefetchRequest> requests,
+            final boolean decodeImages, @Nullable final LottieListener<Integer> completionListener) {
+        final Context appContext = context.getApplicationContext();
+        final List<LottieTask<LottieComposition>> tasks = new ArrayList<>(requests.size());
+        final AtomicInteger remaining = new AtomicInteger(requests.size());
+        final AtomicInteger loaded = new AtomicInteger();
+        if (requests.isEmpty() && completionListener != null) {
+            // Called on the main thread after returning, like for any other request.
+            new EventHandler(EventRunner.getMainEventRunner()).postTask(new Runnable() {
+                @Override
+                public void run() {
+                    completionListener.onResult(0);
+                }
+            });
+        }
+        for (final PrefetchRequest request : requests) {
+            final String cacheKey = request.getCacheKey(appContext);
+            LottieTask<LottieComposition> task = cache(cacheKey, new Callable<LottieResult<LottieComposition>>() {
+                @Override
+                public LottieResult<LottieComposition> call() throws IOException {
+                    return request.loadSync(appContext, cacheKey);
+                }
+            }, LoadPriority.PREFETCH);
+            LottieCompositionCache.getInstance().pin(cacheKey);
+            task.addListener(new LottieListener<LottieComposition>() {
+                @Override
+                public void onResult(LottieComposition composition) {
+                    if (decodeImages) {
+                        ImageAssetManager imageAssetManager = new ImageAssetManager(appContext,
+                            request.getImagesFolder(), null, composition.getImages());
+                        imageAssetManager.setTargetScale(0);
+                        imageAssetManager.prefetchImages();
+                    }
+                    loaded.incrementAndGet();
+                    onPrefetchFinished(remaining, loaded, completionListener);
+                }
+            });
+            task.addFailureListener(new LottieListener<Throwable>() {
+                @Override
+                public void onResult(Throwable result) {
+                    HMOSLogUtil.warn(L.TAG, "Unable to prefetch " + cacheKey + " - " + result.getLocalizedMessage());
+                    LottieCompositionCache.getInstance().unpin(cacheKey);
+                    onPrefetchFinished(remaining, loaded, completionListener);
+                }
+            });
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private static void onPrefetchFinished(AtomicInteger remaining, AtomicInteger loaded,
+            @Nullable LottieListener<Integer> completionListener) {
+        if (remaining.decrementAndGet() == 0 && completionListener != null) {
+            completionListener.onResult(loaded.get());
+        }
+    }
+
     /**
      * Check if a given InputStream points to a .zip compressed file
      * @param inputSource given InputStream
@@ -614,16 +870,34 @@ public class LottieCompositionFactory {
     /**
      * First, check to see if there are any in-progress tasks associated with the cache key and return it if there is.
      * If not, create a new task for the callable.
-     * Then, add the new task to the task cache and set up listeners so it gets cleared when done.
+     * Then, add the new task to the task cache. The task removes itself from the task cache on its loading thread as
+     * soon as it has a result, after the composition has been put in the composition cache, so every caller either
+     * shares the in-flight task or finds the cached composition and a key is never parsed twice at the same time.
      *
      * @param cacheKey task cache
      * @param callable of LottieResult<LottieComposition>
      * @return task
      */
     private static LottieTask<LottieComposition> cache(
-            final String cacheKey, Callable<LottieResult<LottieComposition>> callable) {
-        final LottieComposition cachedComposition =
-                cacheKey == null ? null : LottieCompositionCache.getInstance().get(cacheKey);
+            @Nullable final String cacheKey, final Callable<LottieResult<LottieComposition>> callable) {
+        return cache(cacheKey, callable, LoadPriority.VISIBLE);
+    }
+
+    private static LottieTask<LottieComposition> cache(@Nullable final String cacheKey,
+            final Callable<LottieResult<LottieComposition>> callable, LoadPriority priority) {
+        synchronized (taskCache) {
+            LottieTask<LottieComposition> task = cacheLocked(cacheKey, callable, priority);
+            task.holdCount++;
+            return task;
+        }
+    }
+
+    private static LottieTask<LottieComposition> cacheLocked(@Nullable final String cacheKey,
+            final Callable<LottieResult<LottieComposition>> callable, LoadPriority priority) {
+        if (cacheKey == null) {
+            return new LottieTask<>(callable, priority);
+        }
+        final LottieComposition cachedComposition = LottieCompositionCache.getInstance().get(cacheKey);
         if (cachedComposition != null) {
             return new LottieTask<>(
                     new Callable<LottieResult<LottieComposition>>() {
@@ -633,28 +907,60 @@ public class LottieCompositionFactory {
                         }
                     });
         }
-        if (cacheKey != null && taskCache.containsKey(cacheKey)) {
-            return taskCache.get(cacheKey);
+        LottieTask<LottieComposition> inFlight = taskCache.get(cacheKey);
+        if (inFlight != null && !inFlight.isCancelled()) {
+            // Somebody may now be waiting for what started out as a prefetch.
+            inFlight.raisePriority(priority);
+            return inFlight;
         }
 
-        LottieTask<LottieComposition> task = new LottieTask<>(callable);
-        if (cacheKey != null) {
-            task.addListener(
-                    new LottieListener<LottieComposition>() {
-                        @Override
-                        public void onResult(LottieComposition result) {
-                            taskCache.remove(cacheKey);
-                        }
-                    });
-            task.addFailureListener(
-                    new LottieListener<Throwable>() {
-                        @Override
-                        public void onResult(Throwable result) {
-                            taskCache.remove(cacheKey);
+        final AtomicReference<LottieTask<LottieComposition>> taskRef = new AtomicReference<>();
+        LottieTask<LottieComposition> task = new LottieTask<LottieComposition>(
+                new Callable<LottieResult<LottieComposition>>() {
+                    @Override
+                    public LottieResult<LottieComposition> call() throws Exception {
+                        try {
+                            return callable.call();
+                        } finally {
+                            synchronized (taskCache) {
+                                if (taskCache.get(cacheKey) == taskRef.get()) {
+                                    taskCache.remove(cacheKey);
+                                }
+                            }
                         }
-                    });
-            taskCache.put(cacheKey, task);
-        }
+                    }
+                }, priority, false);
+        // Registered before it is submitted, an executor that runs tasks synchronously would otherwise finish it
+        // before it is in the task cache and it would never be removed again.
+        taskRef.set(task);
+        taskCache.put(cacheKey, task);
+        task.submit();
         return task;
     }
+
+    /**
+     * Gives back a task returned by one of the from methods that the caller no longer needs. Tasks are shared between
+     * everyone loading the same cache key, so the task is only cancelled once every caller it was handed to released
+     * it. Callers that never release a task, like {@link #prefetch}, keep it running.
+     * <p>
+     * This runs under the same lock that hands out in-flight tasks, so a task is never cancelled after it was handed
+     * to a new caller.
+     *
+     * @param task task to release
+     */
+    static void releaseTask(LottieTask<LottieComposition> task) {
+        synchronized (taskCache) {
+            if (task.holdCount > 0 && --task.holdCount > 0) {
+                return;
+            }
+            for (Iterator<Map.Entry<String, LottieTask<LottieComposition>>> it = taskCache.entrySet().iterator();
+                    it.hasNext(); ) {
+                if (it.next().getValue() == task) {
+                    it.remove();
+                    break;
+                }
+            }
+            task.cancel();
+        }
+    }
 }
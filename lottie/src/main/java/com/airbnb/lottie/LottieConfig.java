@@ -18,12 +18,23 @@ public class LottieConfig {
   final LottieNetworkFetcher networkFetcher;
   @Nullable final LottieNetworkCacheProvider cacheProvider;
   final boolean enableSystraceMarkers;
+  final int loaderThreadCount;
+  final long networkCacheMaxBytes;
+  final boolean networkCacheRevalidation;
+  final boolean networkCacheCompression;
+  @Nullable final TraceSink traceSink;
 
   private LottieConfig(@Nullable LottieNetworkFetcher networkFetcher, @Nullable LottieNetworkCacheProvider cacheProvider,
-      boolean enableSystraceMarkers) {
+      boolean enableSystraceMarkers, int loaderThreadCount, long networkCacheMaxBytes,
+      boolean networkCacheRevalidation, boolean networkCacheCompression, @Nullable TraceSink traceSink) {
     this.networkFetcher = networkFetcher;
     this.cacheProvider = cacheProvider;
     this.enableSystraceMarkers = enableSystraceMarkers;
+    this.loaderThreadCount = loaderThreadCount;
+    this.networkCacheMaxBytes = networkCacheMaxBytes;
+    this.networkCacheRevalidation = networkCacheRevalidation;
+    this.networkCacheCompression = networkCacheCompression;
+    this.traceSink = traceSink;
   }
 
   public static final class Builder {
@@ -33,6 +44,12 @@ public class LottieConfig {
     @Nullable
     private LottieNetworkCacheProvider cacheProvider;
     private boolean enableSystraceMarkers = false;
+    private int loaderThreadCount = 0;
+    private long networkCacheMaxBytes = 0;
+    private boolean networkCacheRevalidation = false;
+    private boolean networkCacheCompression = false;
+    @Nullable
+    private TraceSink traceSink;
 
     /**
      * Lottie has a default network fetching stack built on {@link java.net.HttpURLConnection}. However, if you would like to hook into your own
@@ -91,6 +108,54 @@ public class LottieConfig {
       return this;
     }
 
+    /**
+     * Set the number of bytes animations downloaded from the network may take up in the disk cache. The least
+     * recently used ones are deleted beyond that. Defaults to 20MB.
+     *
+     * @param maxBytes byte limit, must be > 0
+     * @return this
+     */
+    @NotNull
+    public Builder setNetworkCacheMaxBytes(long maxBytes) {
+      if (maxBytes <= 0) {
+        throw new IllegalArgumentException("maxBytes must be > 0");
+      }
+      networkCacheMaxBytes = maxBytes;
+      return this;
+    }
+
+    /**
+     * By default an animation in the network disk cache is used until it is evicted. Enable this to honor the
+     * Cache-Control max-age of the response instead. Once it has passed the cached animation is revalidated with
+     * If-None-Match / If-Modified-Since and only downloaded again if it changed. The stale copy is used when the
+     * server can't be reached.
+     * <p>
+     * Custom fetchers need to implement {@link LottieNetworkFetcher#fetchSync(String, com.airbnb.lottie.network.CacheValidators)}
+     * to send conditional requests, otherwise stale animations are downloaded again.
+     *
+     * @param enable boolean
+     * @return this
+     */
+    @NotNull
+    public Builder setNetworkCacheRevalidation(boolean enable) {
+      networkCacheRevalidation = enable;
+      return this;
+    }
+
+    /**
+     * Store json animations gzipped in the network disk cache. They are decompressed while they are parsed, which
+     * costs a little time on every cache hit but fits several times more animations into the same number of bytes.
+     * Zip animations are already compressed and are stored as is.
+     *
+     * @param enable boolean
+     * @return this
+     */
+    @NotNull
+    public Builder setNetworkCacheCompression(boolean enable) {
+      networkCacheCompression = enable;
+      return this;
+    }
+
     /**
      * Enable this if you want to run systrace to debug the performance of animations.
      * <p/>
@@ -105,9 +170,42 @@ public class LottieConfig {
       return this;
     }
 
+    /**
+     * Record trace sections into a sink, for example a {@link RingBufferTraceSink} whose Chrome trace export can be
+     * opened in chrome://tracing or Perfetto to profile per layer drawing without a device profiler attached.
+     * <p/>
+     * DO NOT leave this enabled in production.
+     *
+     * @param sink trace sink
+     * @return this
+     */
+    @NotNull
+    public Builder setTraceSink(@NotNull TraceSink sink) {
+      traceSink = sink;
+      return this;
+    }
+
+    /**
+     * Set the number of threads that load and parse compositions. Loads beyond that are queued and run by
+     * {@link LoadPriority}, so opening a screen with many animations doesn't start a parser thread for each of them.
+     * Defaults to between 2 and 4 threads depending on the number of cores.
+     *
+     * @param threadCount number of loader threads, must be > 0
+     * @return this
+     */
+    @NotNull
+    public Builder setLoaderThreadCount(int threadCount) {
+      if (threadCount <= 0) {
+        throw new IllegalArgumentException("threadCount must be > 0");
+      }
+      loaderThreadCount = threadCount;
+      return this;
+    }
+
     @NotNull
     public LottieConfig build() {
-      return new LottieConfig(networkFetcher, cacheProvider, enableSystraceMarkers);
+      return new LottieConfig(networkFetcher, cacheProvider, enableSystraceMarkers, loaderThreadCount,
+          networkCacheMaxBytes, networkCacheRevalidation, networkCacheCompression, traceSink);
     }
   }
 }
\ No newline at end of file
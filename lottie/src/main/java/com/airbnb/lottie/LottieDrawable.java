@@ -3,14 +3,22 @@ package com.airbnb.lottie;
 import com.airbnb.lottie.manager.FontAssetManager;
 import com.airbnb.lottie.manager.ImageAssetManager;
 import com.airbnb.lottie.model.KeyPath;
+import com.airbnb.lottie.model.KeyPathIndex;
 import com.airbnb.lottie.model.Marker;
 import com.airbnb.lottie.model.layer.CompositionLayer;
 import com.airbnb.lottie.parser.LayerParser;
+import com.airbnb.lottie.render.CanvasRenderTarget;
+import com.airbnb.lottie.render.DisplayListCache;
+import com.airbnb.lottie.render.RecordingRenderTarget;
+import com.airbnb.lottie.render.RenderTarget;
 import com.airbnb.lottie.utils.HMOSLogUtil;
 import com.airbnb.lottie.utils.LottieValueAnimator;
 import com.airbnb.lottie.utils.MiscUtils;
+import com.airbnb.lottie.utils.OffscreenBuffer;
+import com.airbnb.lottie.utils.OffscreenBufferPool;
 import com.airbnb.lottie.value.LottieFrameInfo;
 import com.airbnb.lottie.value.LottieValueCallback;
+import com.airbnb.lottie.value.LottieValueCallbackBatch;
 import com.airbnb.lottie.value.SimpleLottieValueCallback;
 
 import ohos.agp.animation.Animator;
@@ -23,6 +31,7 @@ import ohos.agp.render.ColorFilter;
 import ohos.agp.text.Font;
 import ohos.agp.utils.Matrix;
 import ohos.agp.utils.Rect;
+import ohos.hiviewdfx.HiTraceId;
 import ohos.media.image.PixelMap;
 import ohos.media.image.common.PixelFormat;
 import org.jetbrains.annotations.NotNull;
@@ -38,6 +47,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 /**
  * This can be used to show an lottie animation in any place that would normally take a drawable.
@@ -46,12 +56,21 @@ import java.util.concurrent.CopyOnWriteArrayList;
  */
 public class LottieDrawable extends ElementContainer {
     private static final String TAG = LottieDrawable.class.getSimpleName();
+
+    private static final String DISPLAY_LIST_CACHE_NAME = "Drawable#displayList";
     private static final String MARKERWITHNAME = "Cannot find marker with name ";
 
     private interface LazyCompositionTask {
         void run(LottieComposition composition);
     }
 
+    /**
+     * Called on the render thread after each frame with the breakdown of its cost.
+     */
+    public interface FrameStatsListener {
+        void onFrameStats(FrameStats frameStats);
+    }
+
     private final Matrix matrix = new Matrix();
 
     private LottieComposition composition;
@@ -59,6 +78,10 @@ public class LottieDrawable extends ElementContainer {
     private final LottieValueAnimator animator = new LottieValueAnimator();
 
     private float scale = 3f;
+    /**
+     * Scale the view applies to the canvas to fit the composition, see {@link #setFitScale(float)}.
+     */
+    private float fitScale = 1f;
 
     private boolean systemAnimationsEnabled = true;
     private boolean ignoreSystemAnimationsDisabled = false;
@@ -72,9 +95,17 @@ public class LottieDrawable extends ElementContainer {
     private final AnimatorValue.ValueUpdateListener progressUpdateListener = new AnimatorValue.ValueUpdateListener() {
         @Override
         public void onUpdate(AnimatorValue var1, float var2) {
-            if (compositionLayer != null) {
-                compositionLayer.setProgress(animator.getAnimatedValueAbsolute());
+            if (compositionLayer == null) {
+                return;
+            }
+            PerformanceTracker performanceTracker = composition.getPerfTracker();
+            if (!performanceTracker.isEnabled()) {
+                applyProgress();
+                return;
             }
+            long startNs = System.nanoTime();
+            applyProgress();
+            currentFrameStats.recordEvaluation(System.nanoTime() - startNs);
         }
     };
     @Nullable
@@ -95,6 +126,25 @@ public class LottieDrawable extends ElementContainer {
     private boolean enableMergePaths;
     @Nullable
     private CompositionLayer compositionLayer;
+    @Nullable
+    private CanvasRenderTarget canvasRenderTarget;
+    @Nullable
+    private DisplayListCache displayListCache;
+    /**
+     * Added to the value callbacks of this drawable. Value callbacks only hold on to it weakly, so it has to be kept
+     * here.
+     */
+    private final Runnable clearDisplayListCacheListener = this::clearDisplayListCache;
+    /**
+     * Quantized frame the layer tree was last evaluated at while the display list cache is enabled.
+     */
+    private int evaluatedFrameIndex;
+    /**
+     * Pooled buffers drawn from in the frame being drawn, given back to the pool once the frame is done.
+     */
+    private final List<OffscreenBuffer> frameBuffers = new ArrayList<>();
+    @Nullable
+    private KeyPathIndex keyPathIndex;
 
     private int alpha = 255;
 
@@ -103,6 +153,8 @@ public class LottieDrawable extends ElementContainer {
 
     private boolean isApplyingOpacityToLayersEnabled;
 
+    private boolean isOffscreenBufferPoolEnabled;
+
     private boolean isExtraScaleEnabled = true;
 
     /**
@@ -156,6 +208,17 @@ public class LottieDrawable extends ElementContainer {
 
     private final CopyOnWriteArrayList<CallbackWeakReference> mCallbacks = new CopyOnWriteArrayList<>();
 
+    /**
+     * Stats of the frame being evaluated and drawn. Kept per drawable since drawables sharing a composition also share
+     * its {@link PerformanceTracker}. Only touched on the render thread.
+     */
+    private final FrameStats currentFrameStats = new FrameStats();
+
+    @Nullable
+    private volatile FrameStats lastFrameStats;
+
+    private final Set<FrameStatsListener> frameStatsListeners = new CopyOnWriteArraySet<>();
+
 
     /**
      * If you use image assets, you must explicitly specify the folder in assets/ in which they are
@@ -217,6 +280,12 @@ public class LottieDrawable extends ElementContainer {
 
         composition.setPerfTrackingEnabled(performanceTrackingEnabled);
 
+        // Start decoding images now so that they are ready by the time the first frame that needs them is drawn.
+        ImageAssetManager bm = getImageAssetManager();
+        if (bm != null) {
+            bm.prefetchImages();
+        }
+
         // Ensure that ImageView updates the drawable width/height so it can
         // properly calculate its drawable matrix.
         LottieAnimationView callback = getLottieCallback();
@@ -254,6 +323,7 @@ public class LottieDrawable extends ElementContainer {
         if (compositionLayer != null) {
             compositionLayer.setOutlineMasksAndMattes(outline);
         }
+        clearDisplayListCache();
     }
 
     public final void setCallback(LottieAnimationView cb)
@@ -273,6 +343,64 @@ public class LottieDrawable extends ElementContainer {
         return null;
     }
 
+    /**
+     * Layers and contents record the work they do for a frame in these stats.
+     * @return stats of the frame being evaluated and drawn, null while performance tracking is disabled
+     */
+    @Nullable
+    public FrameStats getCurrentFrameStats() {
+        if (composition == null || !composition.getPerfTracker().isEnabled()) {
+            return null;
+        }
+        return currentFrameStats;
+    }
+
+    /**
+     * Counts a cache lookup in the hit rates of the composition and in the stats of the frame of this drawable.
+     * @param cacheName name the hit rate is reported under
+     * @param hit whether the lookup was a hit
+     */
+    public void recordCacheAccess(String cacheName, boolean hit) {
+        if (composition == null || !composition.getPerfTracker().isEnabled()) {
+            return;
+        }
+        if (hit) {
+            composition.getPerfTracker().recordCacheHit(cacheName);
+        } else {
+            composition.getPerfTracker().recordCacheMiss(cacheName);
+        }
+        currentFrameStats.recordCacheAccess(cacheName, hit);
+    }
+
+    /**
+     * @return cost breakdown of the last frame this drawable drew while tracking was enabled, or null
+     */
+    @Nullable
+    public FrameStats getLastFrameStats() {
+        return lastFrameStats;
+    }
+
+    public void addFrameStatsListener(FrameStatsListener listener) {
+        frameStatsListeners.add(listener);
+    }
+
+    public void removeFrameStatsListener(FrameStatsListener listener) {
+        frameStatsListeners.remove(listener);
+    }
+
+    /**
+     * Completes the stats of the frame that was just drawn, passes them to the listeners and starts a new frame.
+     */
+    private void finishFrameStats(long drawNanos) {
+        currentFrameStats.setDrawNanos(drawNanos);
+        FrameStats frameStats = new FrameStats(currentFrameStats);
+        currentFrameStats.reset();
+        lastFrameStats = frameStats;
+        for (FrameStatsListener listener : frameStatsListeners) {
+            listener.onFrameStats(frameStats);
+        }
+    }
+
     /**
      * Sets whether to apply opacity to the each layer instead of shape.
      * <p>
@@ -288,6 +416,7 @@ public class LottieDrawable extends ElementContainer {
      */
     public void setApplyingOpacityToLayersEnabled(boolean isApplyingOpacityToLayersEnabled) {
         this.isApplyingOpacityToLayersEnabled = isApplyingOpacityToLayersEnabled;
+        clearDisplayListCache();
     }
 
     //TODO : scaleType FitXY mode is not supported in HMOS
@@ -300,7 +429,7 @@ public class LottieDrawable extends ElementContainer {
      * <b>Attention:</b> Disable the extra scale mode can downgrade the performance and may lead to larger memory footprint. Please only disable this
      * mode when using animation with a reasonable dimension (smaller than screen size).
      *
-     * @see #drawWithNewAspectRatio(Canvas)
+     * @see #drawWithNewAspectRatio(RenderTarget)
      */
     /*public void disableExtraScaleModeInFitXY() {
         isExtraScaleEnabled = false;
@@ -310,9 +439,119 @@ public class LottieDrawable extends ElementContainer {
         return isApplyingOpacityToLayersEnabled;
     }
 
+    /**
+     * Sets whether layers with masks or mattes render into pooled offscreen buffers instead of saveLayers.
+     * <p>
+     * The buffers come from {@link com.airbnb.lottie.utils.OffscreenBufferPool} which is shared by every drawable
+     * and capped in size. When the pool can't provide a buffer, the layer falls back to saveLayer for that frame.
+     * <p>
+     * The default value is false.
+     * @param isOffscreenBufferPoolEnabled boolean value
+     */
+    public void setOffscreenBufferPoolEnabled(boolean isOffscreenBufferPoolEnabled) {
+        this.isOffscreenBufferPoolEnabled = isOffscreenBufferPoolEnabled;
+        invalidateSelf();
+    }
+
+    public boolean isOffscreenBufferPoolEnabled() {
+        return isOffscreenBufferPoolEnabled;
+    }
+
+    /**
+     * Sets whether drawn frames are recorded into a display list and replayed when the same frame is drawn again at
+     * the same size, instead of walking the layer tree again. This helps when the same frames are drawn repeatedly,
+     * for example when scrubbing or looping over a short min/max frame range.
+     * <p>
+     * While the cache is enabled the layer tree is evaluated at frames quantized to
+     * {@link #setDisplayListCacheStepsPerFrame(int)} steps per composition frame, one by default, so that frames
+     * between two steps can be replayed from the same recording.
+     * <p>
+     * The recordings are cleared whenever the content changes through this drawable, e.g. with
+     * {@link #addValueCallback(KeyPath, Object, LottieValueCallback)} or a {@link TextDelegate}. A recording freezes
+     * the values value callbacks returned when it was made, so if a callback returns values that change for other
+     * reasons than the frame, e.g. app state or the wall clock, call {@link #clearDisplayListCache()} whenever they
+     * change or don't enable this.
+     * <p>
+     * The default value is false.
+     * @param enabled boolean value
+     */
+    public void setDisplayListCacheEnabled(boolean enabled) {
+        if (enabled == (displayListCache != null)) {
+            return;
+        }
+        displayListCache = enabled ? new DisplayListCache() : null;
+        reapplyProgress();
+    }
+
+    /**
+     * Sets how finely frames are quantized while the display list cache is enabled.
+     * @param stepsPerFrame number of distinct recordings per composition frame, at least 1
+     * @see DisplayListCache#setStepsPerFrame(int)
+     */
+    public void setDisplayListCacheStepsPerFrame(int stepsPerFrame) {
+        if (displayListCache != null) {
+            displayListCache.setStepsPerFrame(stepsPerFrame);
+            reapplyProgress();
+        }
+    }
+
+    public boolean isDisplayListCacheEnabled() {
+        return displayListCache != null;
+    }
+
+    /**
+     * Sets the memory budget of the display list cache. The least recently drawn frames are evicted first.
+     * @param maxBytes approximate maximum size of all recorded frames
+     * @see #setDisplayListCacheEnabled(boolean)
+     */
+    public void setDisplayListCacheMaxBytes(long maxBytes) {
+        if (displayListCache != null) {
+            displayListCache.setMaxBytes(maxBytes);
+        }
+    }
+
+    /**
+     * Drops every recorded frame so that the next frames are drawn from the layer tree again.
+     */
+    public void clearDisplayListCache() {
+        if (displayListCache != null) {
+            displayListCache.clear();
+        }
+    }
+
+    /**
+     * @return the display list cache, null if it is disabled
+     */
+    @Nullable
+    public DisplayListCache getDisplayListCache() {
+        return displayListCache;
+    }
+
+    /**
+     * Evaluates the layer tree at the current frame of the animator, quantized while the display list cache is enabled.
+     */
+    private void applyProgress() {
+        float progress = animator.getAnimatedValueAbsolute();
+        DisplayListCache cache = displayListCache;
+        float durationFrames = composition.getEndFrame() - composition.getStartFrame();
+        if (cache != null && durationFrames > 0) {
+            evaluatedFrameIndex = cache.frameIndexOf(animator.getFrame());
+            progress = (cache.frameAt(evaluatedFrameIndex) - composition.getStartFrame()) / durationFrames;
+        }
+        compositionLayer.setProgress(progress);
+    }
+
+    private void reapplyProgress() {
+        if (compositionLayer != null) {
+            applyProgress();
+        }
+        invalidateSelf();
+    }
+
     private void buildCompositionLayer() {
         compositionLayer = new CompositionLayer(this, LayerParser.parse(composition), composition.getLayers(),
             composition);
+        keyPathIndex = null;
         if (outlineMasksAndMattes) {
             compositionLayer.setOutlineMasksAndMattes(true);
         }
@@ -325,7 +564,9 @@ public class LottieDrawable extends ElementContainer {
         }
         composition = null;
         compositionLayer = null;
+        keyPathIndex = null;
         imageAssetManager = null;
+        clearDisplayListCache();
         animator.clearComposition();
         invalidateSelf();
     }
@@ -376,23 +617,101 @@ public class LottieDrawable extends ElementContainer {
 
     @Override
     public void drawToCanvas(@NotNull Canvas canvas) {
-        isDirty = false;
-//        HiTraceId id = L.beginSection("Drawable#draw");
+        if (canvasRenderTarget == null) {
+            canvasRenderTarget = new CanvasRenderTarget(canvas);
+        } else {
+            canvasRenderTarget.setCanvas(canvas);
+        }
+        draw(canvasRenderTarget);
+    }
 
-        if (safeMode) {
-            try {
-                drawInternal(canvas);
-            } catch (Throwable e) {
-                HMOSLogUtil.error(L.TAG, "Lottie crashed in draw!", e);
+    /**
+     * Draws the current frame into any {@link RenderTarget}, for example a
+     * {@link com.airbnb.lottie.render.CountingRenderTarget} to measure a frame without rasterizing it.
+     *
+     * @param canvas target to draw into
+     */
+    public void draw(@NotNull RenderTarget canvas) {
+        isDirty = false;
+        HiTraceId id = L.beginSection("Drawable#draw");
+        PerformanceTracker performanceTracker = composition == null ? null : composition.getPerfTracker();
+        boolean trackFrame = performanceTracker != null && performanceTracker.isEnabled();
+        long startNs = trackFrame ? System.nanoTime() : 0;
+
+        try {
+            if (safeMode) {
+                try {
+                    drawFrame(canvas);
+                } catch (Throwable e) {
+                    HMOSLogUtil.error(L.TAG, "Lottie crashed in draw!", e);
+                }
+            } else {
+                drawFrame(canvas);
             }
-        } else {
+        } finally {
+            releaseFrameBuffers();
+        }
+
+        if (trackFrame) {
+            finishFrameStats(System.nanoTime() - startNs);
+        }
+        L.endSection(id);
+    }
+
+    /**
+     * Replays the current frame from the display list cache or draws it, recording it first when the cache is enabled.
+     */
+    private void drawFrame(@NotNull RenderTarget canvas) {
+        DisplayListCache cache = displayListCache;
+        if (cache == null || composition == null) {
             drawInternal(canvas);
+            return;
         }
+        Rect bounds = getBounds();
+        cache.setSurface(canvas.getClipWidth(), canvas.getClipHeight(), bounds.getWidth(), bounds.getHeight(), scale,
+            alpha);
+        int frame = evaluatedFrameIndex;
+        RecordingRenderTarget recording = cache.get(frame);
+        if (recording != null) {
+            recordCacheAccess(DISPLAY_LIST_CACHE_NAME, true);
+        } else {
+            recordCacheAccess(DISPLAY_LIST_CACHE_NAME, false);
+            recording = new RecordingRenderTarget(canvas.getClipWidth(), canvas.getClipHeight());
+            drawInternal(recording);
+            // The recording draws from the buffers for as long as it is cached, not just this frame.
+            recording.retainBuffers(frameBuffers);
+            frameBuffers.clear();
+            if (!cache.put(frame, recording)) {
+                recording.replay(canvas);
+                recording.releaseBuffers();
+                return;
+            }
+        }
+        recording.replay(canvas);
+    }
 
-//        L.endSection(id);
+    /**
+     * Keeps a pooled buffer that was drawn from out of the pool until the current frame is done, so that it isn't
+     * reused by another layer while the target may still read it. Frames recorded into the display list cache keep
+     * their buffers for as long as they are cached.
+     * @param buffer buffer acquired from {@link OffscreenBufferPool} while drawing the current frame
+     */
+    public void retainUntilFrameEnd(OffscreenBuffer buffer) {
+        frameBuffers.add(buffer);
+    }
+
+    private void releaseFrameBuffers() {
+        if (frameBuffers.isEmpty()) {
+            return;
+        }
+        OffscreenBufferPool pool = OffscreenBufferPool.getInstance();
+        for (int i = 0; i < frameBuffers.size(); i++) {
+            pool.release(frameBuffers.get(i));
+        }
+        frameBuffers.clear();
     }
 
-    private void drawInternal(@NotNull Canvas canvas) {
+    private void drawInternal(@NotNull RenderTarget canvas) {
         //TODO : FITXY support not provided in HMOS
         if (Image.ScaleMode.CLIP_CENTER == scaleType) {
             drawWithNewAspectRatio(canvas);
@@ -819,9 +1138,9 @@ public class LottieDrawable extends ElementContainer {
             });
             return;
         }
-        //HiTraceId id = L.beginSection("Drawable#setProgress");
+        HiTraceId id = L.beginSection("Drawable#setProgress");
         animator.setFrame(MiscUtils.lerp(composition.getStartFrame(), composition.getEndFrame(), progress));
-        //L.endSection(id);
+        L.endSection(id);
     }
 
     /**
@@ -924,6 +1243,24 @@ public class LottieDrawable extends ElementContainer {
      */
     public void setScale(float scale) {
         this.scale = scale;
+        if (imageAssetManager != null) {
+            imageAssetManager.setTargetScale(scale * fitScale);
+        }
+    }
+
+    /**
+     * Sets the scale the view draws the drawable at to fit it in its bounds, so that images are decoded at the size
+     * they are actually displayed at.
+     * @param fitScale scale applied to the canvas outside of the drawable
+     */
+    void setFitScale(float fitScale) {
+        if (this.fitScale == fitScale) {
+            return;
+        }
+        this.fitScale = fitScale;
+        if (imageAssetManager != null) {
+            imageAssetManager.setTargetScale(scale * fitScale);
+        }
     }
 
     /**
@@ -943,6 +1280,7 @@ public class LottieDrawable extends ElementContainer {
         if (imageAssetManager != null) {
             imageAssetManager.setDelegate(assetDelegate);
         }
+        clearDisplayListCache();
     }
 
     /**
@@ -954,10 +1292,12 @@ public class LottieDrawable extends ElementContainer {
         if (fontAssetManager != null) {
             fontAssetManager.setDelegate(assetDelegate);
         }
+        clearDisplayListCache();
     }
 
     public void setTextDelegate(TextDelegate textDelegate) {
         this.textDelegate = textDelegate;
+        clearDisplayListCache();
     }
 
     @Nullable
@@ -1016,9 +1356,19 @@ public class LottieDrawable extends ElementContainer {
             HMOSLogUtil.warn(L.TAG, "Cannot resolve KeyPath. Composition is not set yet.");
             return Collections.emptyList();
         }
-        List<KeyPath> keyPaths = new ArrayList<>();
-        compositionLayer.resolveKeyPath(keyPath, 0, keyPaths, new KeyPath());
-        return keyPaths;
+        return getKeyPathIndex().resolve(keyPath);
+    }
+
+    /**
+     * The index is built on first use and dropped when the layer tree is rebuilt.
+     */
+    private KeyPathIndex getKeyPathIndex() {
+        if (keyPathIndex == null) {
+            HiTraceId id = L.beginSection("Drawable#buildKeyPathIndex");
+            keyPathIndex = new KeyPathIndex(compositionLayer);
+            L.endSection(id);
+        }
+        return keyPathIndex;
     }
 
     /**
@@ -1058,6 +1408,11 @@ public class LottieDrawable extends ElementContainer {
             invalidate = !elements.isEmpty();
         }
         if (invalidate) {
+            // A null callback clears the property.
+            if (callback != null) {
+                callback.addValueSetListener(clearDisplayListCacheListener);
+            }
+            clearDisplayListCache();
             invalidateSelf();
             if (property == LottieProperty.TIME_REMAP) {
                 // Time remapping values are read in setProgress. In order for the new value
@@ -1068,6 +1423,69 @@ public class LottieDrawable extends ElementContainer {
         }
     }
 
+    /**
+     * Adds every callback of the batch like {@link #addValueCallback(KeyPath, Object, LottieValueCallback)} but
+     * resolves all of their {@link KeyPath KeyPaths} in a single pass over the animation. Use this to apply a theme or
+     * any other large set of callbacks.
+     * @param batch callbacks to add
+     */
+    public void addValueCallbacks(final LottieValueCallbackBatch batch) {
+        if (compositionLayer == null) {
+            lazyCompositionTasks.add(new LazyCompositionTask() {
+                @Override
+                public void run(LottieComposition composition) {
+                    addValueCallbacks(batch);
+                }
+            });
+            return;
+        }
+        List<KeyPath> unresolved = new ArrayList<>();
+        List<Integer> unresolvedIndices = new ArrayList<>();
+        boolean invalidate = false;
+        boolean timeRemap = false;
+        for (int i = 0; i < batch.size(); i++) {
+            KeyPath keyPath = batch.getKeyPath(i);
+            if (keyPath == KeyPath.COMPOSITION) {
+                batch.applyTo(i, compositionLayer);
+            } else if (keyPath.getResolvedElement() != null) {
+                batch.applyTo(i, keyPath.getResolvedElement());
+            } else {
+                unresolved.add(keyPath);
+                unresolvedIndices.add(i);
+                continue;
+            }
+            invalidate = true;
+            timeRemap |= batch.getProperty(i) == LottieProperty.TIME_REMAP;
+        }
+        if (!unresolved.isEmpty()) {
+            List<List<KeyPath>> resolved = getKeyPathIndex().resolveAll(unresolved);
+            for (int j = 0; j < resolved.size(); j++) {
+                int i = unresolvedIndices.get(j);
+                List<KeyPath> elements = resolved.get(j);
+                for (int k = 0; k < elements.size(); k++) {
+                    batch.applyTo(i, elements.get(k).getResolvedElement());
+                }
+                if (!elements.isEmpty()) {
+                    invalidate = true;
+                    timeRemap |= batch.getProperty(i) == LottieProperty.TIME_REMAP;
+                }
+            }
+        }
+        if (invalidate) {
+            for (int i = 0; i < batch.size(); i++) {
+                if (batch.getCallback(i) != null) {
+                    batch.getCallback(i).addValueSetListener(clearDisplayListCacheListener);
+                }
+            }
+            clearDisplayListCache();
+            invalidateSelf();
+            if (timeRemap) {
+                // See addValueCallback.
+                setProgress(getProgress());
+            }
+        }
+    }
+
     /**
      * Overload of {@link #addValueCallback(KeyPath, Object, LottieValueCallback)} that takes an interface. This allows you to use a single abstract
      * method code block in Kotlin such as:
@@ -1101,6 +1519,7 @@ public class LottieDrawable extends ElementContainer {
             return null;
         }
         PixelMap ret = bm.updateBitmap(id, pixelMap);
+        clearDisplayListCache();
         invalidateSelf();
         return ret;
     }
@@ -1114,7 +1533,11 @@ public class LottieDrawable extends ElementContainer {
         return null;
     }
 
+    @Nullable
     private ImageAssetManager getImageAssetManager() {
+        if (getLottieCallback() == null || composition == null) {
+            return null;
+        }
 
         if (imageAssetManager != null && !imageAssetManager.hasSameContext(getLottieCallback().getContext())) {
             imageAssetManager = null;
@@ -1123,6 +1546,12 @@ public class LottieDrawable extends ElementContainer {
         if (imageAssetManager == null) {
             imageAssetManager = new ImageAssetManager(getLottieCallback().getContext(), imageAssetsFolder, imageAssetDelegate,
                 composition.getImages());
+            imageAssetManager.setTargetScale(scale * fitScale);
+            imageAssetManager.setImageDecodedListener(key -> {
+                // Frames recorded before the image was decoded were drawn without it.
+                clearDisplayListCache();
+                invalidateSelf();
+            });
         }
 
         return imageAssetManager;
@@ -1178,6 +1607,7 @@ public class LottieDrawable extends ElementContainer {
     }*/
     void setScaleMode(Image.ScaleMode scaleType) {
         this.scaleType = scaleType;
+        clearDisplayListCache();
     }
 
     /**
@@ -1186,17 +1616,17 @@ public class LottieDrawable extends ElementContainer {
      * @param canvas to draw
      * @return minimum of (maxScaleX, maxScaleY)
      */
-    private float getMaxScale(Canvas canvas) {
+    private float getMaxScale(RenderTarget canvas) {
         float maxScaleX = 0;
         float maxScaleY = 0;
-        if (canvas.getLocalClipBounds() != null) {
-            maxScaleX = canvas.getLocalClipBounds().getWidth() / (float) composition.getBounds().getWidth();
-            maxScaleY = canvas.getLocalClipBounds().getHeight() / (float) composition.getBounds().getHeight();
+        if (canvas.getClipWidth() >= 0 && canvas.getClipHeight() >= 0) {
+            maxScaleX = canvas.getClipWidth() / (float) composition.getBounds().getWidth();
+            maxScaleY = canvas.getClipHeight() / (float) composition.getBounds().getHeight();
         }
         return Math.min(maxScaleX, maxScaleY);
     }
 
-    private void drawWithNewAspectRatio(Canvas canvas) {
+    private void drawWithNewAspectRatio(RenderTarget canvas) {
         if (compositionLayer == null) {
             return;
         }
@@ -1238,7 +1668,7 @@ public class LottieDrawable extends ElementContainer {
         }
     }
 
-    private void drawWithOriginalAspectRatio(Canvas canvas) {
+    private void drawWithOriginalAspectRatio(RenderTarget canvas) {
         if (compositionLayer == null) {
             return;
         }
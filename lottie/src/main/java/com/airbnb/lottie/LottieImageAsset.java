@@ -1,6 +1,7 @@
 package com.airbnb.lottie;
 
 import ohos.media.image.PixelMap;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Data class describing an image asset exported by bodymovin.
@@ -21,6 +22,13 @@ public class LottieImageAsset {
      */
     private PixelMap pixelmap;
 
+    /**
+     * Encoded image from an archive that is decoded on demand instead of up front.
+     */
+    @Nullable private byte[] encodedImage;
+
+    @Nullable private String encodedImageKey;
+
     public LottieImageAsset(int width, int height, String id, String fileName, String dirName) {
         this.width = width;
         this.height = height;
@@ -61,12 +69,32 @@ public class LottieImageAsset {
         this.pixelmap = pixelmap;
     }
 
+    /**
+     * Sets the encoded image for this asset so it can be decoded when it is first needed.
+     * @param key unique key the decoded image is cached under
+     * @param data encoded png or webp
+     */
+    public void setEncodedImage(String key, byte[] data) {
+        this.encodedImageKey = key;
+        this.encodedImage = data;
+    }
+
+    @Nullable
+    public byte[] getEncodedImage() {
+        return encodedImage;
+    }
+
+    @Nullable
+    public String getEncodedImageKey() {
+        return encodedImageKey;
+    }
+
     /**
      * Returns whether this asset has an embedded pixelmap or whether the fileName is a base64 encoded bitmap.
      * @return  pixelmap
      */
     public boolean hasBitmap() {
-        return pixelmap != null || (fileName.startsWith("data:") && fileName.indexOf("base64,") > -1);
+        return pixelmap != null || encodedImage != null || (fileName.startsWith("data:") && fileName.indexOf("base64,") > -1);
     }
 
 }
@@ -0,0 +1,86 @@
+package com.airbnb.lottie;
+
+import java.util.Comparator;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool that loads and parses compositions. Queued loads run in {@link LoadPriority} order so a screen that
+ * starts many animations at once doesn't spawn a parser thread per animation and the visible ones are parsed first.
+ */
+class LottieLoaderExecutor extends ThreadPoolExecutor {
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    static int defaultThreadCount() {
+        return Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    /**
+     * A runnable that knows its priority. Anything else that ends up on this executor is treated as
+     * {@link LoadPriority#BACKGROUND}.
+     */
+    interface PrioritizedTask extends Runnable {
+        LoadPriority getPriority();
+
+        /**
+         * @return value from {@link #nextSequence()} taken when the task was created, used to keep FIFO order within a
+         * priority
+         */
+        long getSequence();
+    }
+
+    static long nextSequence() {
+        return SEQUENCE.getAndIncrement();
+    }
+
+    private static final Comparator<Runnable> PRIORITY_ORDER = new Comparator<Runnable>() {
+        @Override
+        public int compare(Runnable a, Runnable b) {
+            int result = Integer.compare(priorityOf(a).ordinal(), priorityOf(b).ordinal());
+            if (result != 0) {
+                return result;
+            }
+            return Long.compare(sequenceOf(a), sequenceOf(b));
+        }
+
+        private LoadPriority priorityOf(Runnable runnable) {
+            return runnable instanceof PrioritizedTask ? ((PrioritizedTask) runnable).getPriority() : LoadPriority.BACKGROUND;
+        }
+
+        private long sequenceOf(Runnable runnable) {
+            return runnable instanceof PrioritizedTask ? ((PrioritizedTask) runnable).getSequence() : Long.MAX_VALUE;
+        }
+    };
+
+    LottieLoaderExecutor(int threadCount) {
+        super(threadCount, threadCount, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+            new PriorityBlockingQueue<Runnable>(11, PRIORITY_ORDER), new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "LottieLoader-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                }
+            });
+        allowCoreThreadTimeOut(true);
+    }
+
+    void setThreadCount(int threadCount) {
+        if (threadCount > getMaximumPoolSize()) {
+            setMaximumPoolSize(threadCount);
+            setCorePoolSize(threadCount);
+        } else {
+            setCorePoolSize(threadCount);
+            setMaximumPoolSize(threadCount);
+        }
+    }
+}
@@ -13,8 +13,8 @@ import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * Helper to run asynchronous tasks with a result.
@@ -30,8 +30,11 @@ public class LottieTask<T> {
      * fetching happens on.
      * <p>
      * You may change this to run deserialization synchronously for testing.
+     * <p>
+     * By default this is a bounded pool that runs queued loads in {@link LoadPriority} order. Its size can be set with
+     * {@link LottieConfig.Builder#setLoaderThreadCount(int)}.
      */
-    public static Executor EXECUTOR = Executors.newCachedThreadPool();
+    public static Executor EXECUTOR = new LottieLoaderExecutor(LottieLoaderExecutor.defaultThreadCount());
 
     /* Preserve add order. */
     private final Set<LottieListener<T>> successListeners = new LinkedHashSet<>(1);
@@ -42,22 +45,108 @@ public class LottieTask<T> {
 
     @Nullable private volatile LottieResult<T> result = null;
 
+    @Nullable private final LottieFutureTask future;
+
+    private final Executor executor;
+
+    private volatile LoadPriority priority;
+
+    /**
+     * Number of callers {@link LottieCompositionFactory} handed this task to that haven't released it yet. Only read
+     * and written while holding the factory's task cache lock.
+     */
+    int holdCount;
+
     public LottieTask(Callable<LottieResult<T>> runnable) {
-        this(runnable, false);
+        this(runnable, LoadPriority.VISIBLE);
+    }
+
+    public LottieTask(Callable<LottieResult<T>> runnable, LoadPriority priority) {
+        this(runnable, priority, true);
+    }
+
+    /**
+     * @param submit whether to hand the task to the executor right away. Otherwise {@link #submit()} has to be called,
+     *     which lets the caller register the task before an executor that runs tasks synchronously completes it.
+     */
+    LottieTask(Callable<LottieResult<T>> runnable, LoadPriority priority, boolean submit) {
+        this.priority = priority;
+        this.executor = EXECUTOR;
+        this.future = new LottieFutureTask(runnable);
+        if (submit) {
+            submit();
+        }
+    }
+
+    /**
+     * Runs the task on the given executor instead of {@link #EXECUTOR}, e.g. one that only runs it once its inputs are
+     * available so that no loader thread has to wait for them.
+     * @param runnable produces the result
+     * @param executor runs the task
+     */
+    public LottieTask(Callable<LottieResult<T>> runnable, Executor executor) {
+        this.priority = LoadPriority.VISIBLE;
+        this.executor = executor;
+        this.future = new LottieFutureTask(runnable);
+        submit();
+    }
+
+    void submit() {
+        executor.execute(future);
     }
 
     /**
      * runNow is only used for testing.
      */
     LottieTask(Callable<LottieResult<T>> runnable, boolean runNow) {
+        this.priority = LoadPriority.VISIBLE;
+        this.executor = EXECUTOR;
         if (runNow) {
+            this.future = null;
             try {
                 setResult(runnable.call());
             } catch (Throwable e) {
                 setResult(new LottieResult<T>(e));
             }
         } else {
-            EXECUTOR.execute(new LottieFutureTask(runnable));
+            this.future = new LottieFutureTask(runnable);
+            executor.execute(future);
+        }
+    }
+
+    /**
+     * Cancels the task if it hasn't finished yet. Queued work will never run and a parse that is already running
+     * stops at its next layer. No listeners are called for a cancelled task.
+     */
+    public void cancel() {
+        if (future == null || future.isDone()) {
+            return;
+        }
+        future.cancel(true);
+        if (executor instanceof ThreadPoolExecutor) {
+            ((ThreadPoolExecutor) executor).remove(future);
+        }
+    }
+
+    public boolean isCancelled() {
+        return future != null && future.isCancelled();
+    }
+
+    /**
+     * Moves a queued task ahead of lower priority work. Has no effect on a task that is already running or that
+     * already has the same or a higher priority.
+     * @param priority new priority
+     */
+    public synchronized void raisePriority(LoadPriority priority) {
+        if (priority.ordinal() >= this.priority.ordinal()) {
+            return;
+        }
+        // The priority is part of the queue order so the task has to be taken out of the queue while it changes.
+        if (executor instanceof ThreadPoolExecutor && ((ThreadPoolExecutor) executor).remove(future)) {
+            this.priority = priority;
+            executor.execute(future);
+        } else {
+            this.priority = priority;
         }
     }
 
@@ -163,11 +252,23 @@ public class LottieTask<T> {
         }
     }
 
-    private class LottieFutureTask extends FutureTask<LottieResult<T>> {
+    private class LottieFutureTask extends FutureTask<LottieResult<T>> implements LottieLoaderExecutor.PrioritizedTask {
+        private final long sequence = LottieLoaderExecutor.nextSequence();
+
         LottieFutureTask(Callable<LottieResult<T>> callable) {
             super(callable);
         }
 
+        @Override
+        public LoadPriority getPriority() {
+            return priority;
+        }
+
+        @Override
+        public long getSequence() {
+            return sequence;
+        }
+
         @Override
         protected void done() {
             if (isCancelled()) {
@@ -1,7 +1,8 @@
 package com.airbnb.lottie;
 
+import com.airbnb.lottie.utils.FrameTimeHistogram;
 import com.airbnb.lottie.utils.HMOSLogUtil;
-import com.airbnb.lottie.utils.MeanCalculator;
+import com.airbnb.lottie.utils.HitCounter;
 
 import ohos.utils.Pair;
 
@@ -9,22 +10,54 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Collects render times per layer and per frame while performance tracking is enabled.
+ * <p>
+ * Render times are kept in fixed size histograms so that percentiles, not just means, can be reported without
+ * keeping every sample. Recording happens on the render thread and is safe while snapshots and logs are taken on any
+ * other thread.
+ * <p>
+ * The tracker belongs to the composition and aggregates every drawable showing it. The cost breakdown of each frame is
+ * kept per drawable, see {@link LottieDrawable#getLastFrameStats()}.
+ */
 public class PerformanceTracker {
 
     public interface FrameListener {
         void onFrameRendered(float renderTimeMs);
     }
 
-    private boolean enabled = false;
+    /**
+     * Name of the root layer, whose render time is the time of the whole frame.
+     */
+    private static final String FRAME_LAYER_NAME = "__container";
 
-    private final Set<FrameListener> frameListeners = new HashSet<>();
+    private static final float DEFAULT_FRAME_BUDGET_MS = 1000f / 60f;
 
-    private final Map<String, MeanCalculator> layerRenderTimes = new HashMap<>();
+    private volatile boolean enabled = false;
+
+    private final Set<FrameListener> frameListeners = new CopyOnWriteArraySet<>();
+
+    private final ConcurrentHashMap<String, FrameTimeHistogram> layerRenderTimes = new ConcurrentHashMap<>();
+
+    private final FrameTimeHistogram frameRenderTimes = new FrameTimeHistogram();
+
+    private final ConcurrentHashMap<String, HitCounter> cacheHitCounters = new ConcurrentHashMap<>();
+
+    private volatile float frameBudgetMs = DEFAULT_FRAME_BUDGET_MS;
+
+    private final AtomicLong jankFrames = new AtomicLong();
+
+    private final AtomicLong missedFrameBudgets = new AtomicLong();
+
+    private final AtomicLong saveLayersAvoided = new AtomicLong();
 
     private final Comparator<Pair<String, Float>> floatComparator = new Comparator<Pair<String, Float>>() {
         @Override
@@ -44,22 +77,95 @@ public class PerformanceTracker {
         this.enabled = enabled;
     }
 
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Set the time a frame may take before it counts as jank. Defaults to 16.7ms, one frame at 60fps.
+     * @param budgetMs frame budget in ms, must be > 0
+     */
+    public void setFrameBudgetMs(float budgetMs) {
+        if (budgetMs <= 0) {
+            throw new IllegalArgumentException("budgetMs must be > 0");
+        }
+        frameBudgetMs = budgetMs;
+    }
+
+    public float getFrameBudgetMs() {
+        return frameBudgetMs;
+    }
+
     public void recordRenderTime(String layerName, float millis) {
         if (!enabled) {
             return;
         }
-        MeanCalculator meanCalculator = layerRenderTimes.get(layerName);
-        if (meanCalculator == null) {
-            meanCalculator = new MeanCalculator();
-            layerRenderTimes.put(layerName, meanCalculator);
+        FrameTimeHistogram histogram = layerRenderTimes.get(layerName);
+        if (histogram == null) {
+            histogram = new FrameTimeHistogram();
+            FrameTimeHistogram existing = layerRenderTimes.putIfAbsent(layerName, histogram);
+            if (existing != null) {
+                histogram = existing;
+            }
         }
-        meanCalculator.add(millis);
+        histogram.add(millis);
 
-        if (layerName.equals("__container")) {
-            for (FrameListener listener : frameListeners) {
-                listener.onFrameRendered(millis);
+        if (layerName.equals(FRAME_LAYER_NAME)) {
+            recordFrameTime(millis);
+        }
+    }
+
+    private void recordFrameTime(float millis) {
+        frameRenderTimes.add(millis);
+        float budget = frameBudgetMs;
+        if (millis > budget) {
+            jankFrames.incrementAndGet();
+            missedFrameBudgets.addAndGet((long) (millis / budget));
+        }
+        for (FrameListener listener : frameListeners) {
+            listener.onFrameRendered(millis);
+        }
+    }
+
+    public void recordCacheHit(String cacheName) {
+        if (!enabled) {
+            return;
+        }
+        getHitCounter(cacheName).hit();
+    }
+
+    public void recordCacheMiss(String cacheName) {
+        if (!enabled) {
+            return;
+        }
+        getHitCounter(cacheName).miss();
+    }
+
+    private HitCounter getHitCounter(String cacheName) {
+        HitCounter hitCounter = cacheHitCounters.get(cacheName);
+        if (hitCounter == null) {
+            hitCounter = new HitCounter();
+            HitCounter existing = cacheHitCounters.putIfAbsent(cacheName, hitCounter);
+            if (existing != null) {
+                hitCounter = existing;
             }
         }
+        return hitCounter;
+    }
+
+    /**
+     * Records offscreen buffers that didn't need to be allocated, for example because masks were drawn as clips.
+     * @param count number of saveLayer calls avoided
+     */
+    public void recordSaveLayersAvoided(int count) {
+        if (!enabled) {
+            return;
+        }
+        saveLayersAvoided.addAndGet(count);
+    }
+
+    public long getSaveLayersAvoided() {
+        return saveLayersAvoided.get();
     }
 
     public void addFrameListener(FrameListener frameListener) {
@@ -72,17 +178,50 @@ public class PerformanceTracker {
 
     public void clearRenderTimes() {
         layerRenderTimes.clear();
+        frameRenderTimes.clear();
+        jankFrames.set(0);
+        missedFrameBudgets.set(0);
+        saveLayersAvoided.set(0);
+    }
+
+    public void clearCacheHitRates() {
+        cacheHitCounters.clear();
     }
 
     public void logRenderTimes() {
         if (!enabled) {
             return;
         }
-        List<Pair<String, Float>> sortedRenderTimes = getSortedRenderTimes();
+        FrameTimeHistogram.Snapshot frames = getFrameSnapshot();
+        HMOSLogUtil.debug(L.TAG, String.format(Locale.US,
+            "Frames: %d, p50 %.2f p90 %.2f p99 %.2f max %.2f ms, %d over the %.1fms budget",
+            frames.getCount(), frames.getP50(), frames.getP90(), frames.getP99(), frames.getMax(), getJankFrameCount(),
+            frameBudgetMs));
+        Map<String, FrameTimeHistogram.Snapshot> snapshots = getLayerSnapshots();
+        List<Pair<String, Float>> sortedRenderTimes = new ArrayList<>(snapshots.size());
+        for (Map.Entry<String, FrameTimeHistogram.Snapshot> e : snapshots.entrySet()) {
+            sortedRenderTimes.add(new Pair<>(e.getKey(), e.getValue().getMean()));
+        }
+        Collections.sort(sortedRenderTimes, floatComparator);
         HMOSLogUtil.debug(L.TAG, "Render times:");
         for (int i = 0; i < sortedRenderTimes.size(); i++) {
             Pair<String, Float> layer = sortedRenderTimes.get(i);
-            HMOSLogUtil.debug(L.TAG, String.format("\t\t%30s:%.2f", layer.f, layer.s));
+            FrameTimeHistogram.Snapshot snapshot = snapshots.get(layer.f);
+            HMOSLogUtil.debug(L.TAG, String.format(Locale.US, "\t\t%30s:%.2f (p50 %.2f p90 %.2f p99 %.2f max %.2f)",
+                layer.f, layer.s, snapshot.getP50(), snapshot.getP90(), snapshot.getP99(), snapshot.getMax()));
+        }
+    }
+
+    public void logCacheHitRates() {
+        if (!enabled) {
+            return;
+        }
+        HMOSLogUtil.debug(L.TAG, "saveLayers avoided: " + saveLayersAvoided.get());
+        HMOSLogUtil.debug(L.TAG, "Cache hit rates:");
+        for (Map.Entry<String, HitCounter> e : cacheHitCounters.entrySet()) {
+            HitCounter hitCounter = e.getValue();
+            HMOSLogUtil.debug(L.TAG, String.format("\t\t%30s:%.2f (%d hits, %d misses)", e.getKey(),
+                hitCounter.getHitRate(), hitCounter.getHits(), hitCounter.getMisses()));
         }
     }
 
@@ -91,10 +230,105 @@ public class PerformanceTracker {
             return Collections.emptyList();
         }
         List<Pair<String, Float>> sortedRenderTimes = new ArrayList<>(layerRenderTimes.size());
-        for (Map.Entry<String, MeanCalculator> e : layerRenderTimes.entrySet()) {
-            sortedRenderTimes.add(new Pair<>(e.getKey(), e.getValue().getMean()));
+        for (Map.Entry<String, FrameTimeHistogram> e : layerRenderTimes.entrySet()) {
+            sortedRenderTimes.add(new Pair<>(e.getKey(), e.getValue().snapshot().getMean()));
         }
         Collections.sort(sortedRenderTimes, floatComparator);
         return sortedRenderTimes;
     }
+
+    /**
+     * @return distribution of whole frame render times
+     */
+    public FrameTimeHistogram.Snapshot getFrameSnapshot() {
+        return frameRenderTimes.snapshot();
+    }
+
+    /**
+     * @return distribution of render times per layer name, including the time of the layers drawn within each layer
+     */
+    public Map<String, FrameTimeHistogram.Snapshot> getLayerSnapshots() {
+        Map<String, FrameTimeHistogram.Snapshot> snapshots = new HashMap<>();
+        for (Map.Entry<String, FrameTimeHistogram> e : layerRenderTimes.entrySet()) {
+            snapshots.put(e.getKey(), e.getValue().snapshot());
+        }
+        return snapshots;
+    }
+
+    /**
+     * @return number of frames that took longer than the frame budget
+     */
+    public long getJankFrameCount() {
+        return jankFrames.get();
+    }
+
+    /**
+     * @return number of whole frame budgets that slow frames exceeded theirs by, roughly the number of vsyncs missed
+     */
+    public long getMissedFrameBudgetCount() {
+        return missedFrameBudgets.get();
+    }
+
+    /**
+     * Exports the frame and layer render times as json, for example to attach them to a bug report or collect them
+     * from a benchmark run.
+     * @return json object with a "frames" and a "layers" entry, times in ms
+     */
+    public String exportJson() {
+        StringBuilder sb = new StringBuilder("{\"frameBudgetMs\":");
+        sb.append(String.format(Locale.US, "%.2f", frameBudgetMs));
+        sb.append(",\"jankFrames\":").append(getJankFrameCount());
+        sb.append(",\"missedFrameBudgets\":").append(getMissedFrameBudgetCount());
+        sb.append(",\"frames\":");
+        appendJson(sb, getFrameSnapshot());
+        sb.append(",\"layers\":{");
+        boolean first = true;
+        for (Map.Entry<String, FrameTimeHistogram.Snapshot> e : getLayerSnapshots().entrySet()) {
+            if (!first) {
+                sb.append(',');
+            }
+            first = false;
+            sb.append('"').append(escapeJson(e.getKey())).append("\":");
+            appendJson(sb, e.getValue());
+        }
+        return sb.append("}}").toString();
+    }
+
+    private static void appendJson(StringBuilder sb, FrameTimeHistogram.Snapshot snapshot) {
+        sb.append(String.format(Locale.US,
+            "{\"count\":%d,\"mean\":%.3f,\"p50\":%.3f,\"p90\":%.3f,\"p99\":%.3f,\"max\":%.3f}",
+            snapshot.getCount(), snapshot.getMean(), snapshot.getP50(), snapshot.getP90(), snapshot.getP99(),
+            snapshot.getMax()));
+    }
+
+    private static String escapeJson(String value) {
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format(Locale.US, "\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Hit rate, from 0 to 1, of each cache that reported to this tracker, sorted from highest to lowest.
+     * @return list of cache name and hit rate pairs
+     */
+    public List<Pair<String, Float>> getCacheHitRates() {
+        if (!enabled) {
+            return Collections.emptyList();
+        }
+        List<Pair<String, Float>> hitRates = new ArrayList<>(cacheHitCounters.size());
+        for (Map.Entry<String, HitCounter> e : cacheHitCounters.entrySet()) {
+            hitRates.add(new Pair<>(e.getKey(), e.getValue().getHitRate()));
+        }
+        Collections.sort(hitRates, floatComparator);
+        return hitRates;
+    }
 }
@@ -0,0 +1,88 @@
+package com.airbnb.lottie;
+
+import ohos.app.Context;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+
+/**
+ * An animation to load ahead of time with
+ * {@link LottieCompositionFactory#prefetch(Context, java.util.List, boolean, LottieListener)}.
+ * <p>
+ * Requests use the same cache keys as the default factory methods so the prefetched composition is found by a later
+ * {@link LottieAnimationView#setAnimation(String)}, {@link LottieAnimationView#setAnimation(int)} or
+ * {@link LottieAnimationView#setAnimationFromUrl(String)}.
+ */
+public final class PrefetchRequest {
+    private enum Type {
+        ASSET,
+        RAW_RES,
+        URL
+    }
+
+    private final Type type;
+
+    @Nullable private final String name;
+
+    private final int rawRes;
+
+    @Nullable private String imagesFolder;
+
+    private PrefetchRequest(Type type, @Nullable String name, int rawRes) {
+        this.type = type;
+        this.name = name;
+        this.rawRes = rawRes;
+    }
+
+    public static PrefetchRequest asset(String fileName) {
+        return new PrefetchRequest(Type.ASSET, fileName, 0);
+    }
+
+    public static PrefetchRequest rawRes(int rawRes) {
+        return new PrefetchRequest(Type.RAW_RES, null, rawRes);
+    }
+
+    public static PrefetchRequest url(String url) {
+        return new PrefetchRequest(Type.URL, url, 0);
+    }
+
+    /**
+     * Set the folder the images of this animation are loaded from. Only needed to decode images ahead of time when
+     * they aren't embedded in the animation or its zip file.
+     * @param imagesFolder same folder as passed to {@link LottieDrawable#setImagesAssetsFolder(String)}
+     * @return this
+     */
+    public PrefetchRequest setImagesFolder(@Nullable String imagesFolder) {
+        this.imagesFolder = imagesFolder;
+        return this;
+    }
+
+    @Nullable
+    String getImagesFolder() {
+        return imagesFolder;
+    }
+
+    String getCacheKey(Context context) {
+        switch (type) {
+            case ASSET:
+                return "asset_" + name;
+            case RAW_RES:
+                return LottieCompositionFactory.rawResCacheKey(context, rawRes);
+            case URL:
+            default:
+                return "url_" + name;
+        }
+    }
+
+    LottieResult<LottieComposition> loadSync(Context context, String cacheKey) throws IOException {
+        switch (type) {
+            case ASSET:
+                return LottieCompositionFactory.fromAssetSync(context, name, cacheKey);
+            case RAW_RES:
+                return LottieCompositionFactory.fromRawResSync(context, rawRes, cacheKey);
+            case URL:
+            default:
+                return LottieCompositionFactory.fromUrlSync(context, name, cacheKey);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.airbnb.lottie;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * {@link TraceSink} that keeps the most recent section events in preallocated arrays and exports them in the Chrome
+ * trace event format, which chrome://tracing and Perfetto can open on any machine.
+ * <p>
+ * Recording copies a name reference and two longs into the next slot, so it doesn't allocate. Once the buffer is full
+ * the oldest events are overwritten.
+ * <pre>
+ * RingBufferTraceSink sink = new RingBufferTraceSink(64 * 1024);
+ * L.setTraceSink(sink);
+ * // play the animation
+ * sink.exportChromeTrace(writer);
+ * </pre>
+ */
+public class RingBufferTraceSink implements TraceSink {
+    private static final byte BEGIN = 'B';
+
+    private static final byte END = 'E';
+
+    private final String[] names;
+
+    private final long[] timestamps;
+
+    private final long[] threadIds;
+
+    private final byte[] phases;
+
+    /**
+     * Total number of events recorded, the next slot is count % capacity.
+     */
+    private long count;
+
+    public RingBufferTraceSink(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be > 0");
+        }
+        names = new String[capacity];
+        timestamps = new long[capacity];
+        threadIds = new long[capacity];
+        phases = new byte[capacity];
+    }
+
+    @Override
+    public void beginSection(String name, long timestampNanos) {
+        record(BEGIN, name, timestampNanos);
+    }
+
+    @Override
+    public void endSection(long timestampNanos) {
+        record(END, null, timestampNanos);
+    }
+
+    private synchronized void record(byte phase, String name, long timestampNanos) {
+        int slot = (int) (count % names.length);
+        phases[slot] = phase;
+        names[slot] = name;
+        timestamps[slot] = timestampNanos;
+        threadIds[slot] = Thread.currentThread().getId();
+        count++;
+    }
+
+    public synchronized void clear() {
+        count = 0;
+        for (int i = 0; i < names.length; i++) {
+            names[i] = null;
+        }
+    }
+
+    /**
+     * @return number of events currently held, at most the capacity
+     */
+    public synchronized int size() {
+        return (int) Math.min(count, names.length);
+    }
+
+    /**
+     * Writes the buffered events, oldest first, as a Chrome trace event json object. Ends whose begin has already been
+     * overwritten are dropped so that the remaining sections still nest correctly.
+     * @param writer destination, not closed
+     * @throws IOException if writing fails
+     */
+    public synchronized void exportChromeTrace(Writer writer) throws IOException {
+        int size = size();
+        int first = (int) ((count - size) % names.length);
+        Map<Long, Integer> depths = new HashMap<>();
+        writer.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+        boolean firstEvent = true;
+        for (int i = 0; i < size; i++) {
+            int slot = (first + i) % names.length;
+            long threadId = threadIds[slot];
+            Integer depth = depths.get(threadId);
+            int d = depth == null ? 0 : depth;
+            if (phases[slot] == END) {
+                if (d == 0) {
+                    continue;
+                }
+                depths.put(threadId, d - 1);
+            } else {
+                depths.put(threadId, d + 1);
+            }
+            if (!firstEvent) {
+                writer.write(',');
+            }
+            firstEvent = false;
+            writer.write("{\"ph\":\"");
+            writer.write((char) phases[slot]);
+            writer.write("\",\"pid\":0,\"tid\":");
+            writer.write(Long.toString(threadId));
+            writer.write(",\"ts\":");
+            // Trace event timestamps are in microseconds, fractions keep the nanosecond resolution.
+            writer.write(Long.toString(Math.floorDiv(timestamps[slot], 1000)));
+            writer.write('.');
+            writer.write(String.format(Locale.US, "%03d", Math.floorMod(timestamps[slot], 1000)));
+            if (phases[slot] == BEGIN) {
+                writer.write(",\"name\":\"");
+                writeEscaped(writer, names[slot]);
+                writer.write('"');
+            }
+            writer.write('}');
+        }
+        writer.write("]}");
+        writer.flush();
+    }
+
+    /**
+     * @return the buffered events as Chrome trace event json
+     * @see #exportChromeTrace(Writer)
+     */
+    public String toChromeTraceJson() {
+        StringWriter writer = new StringWriter();
+        try {
+            exportChromeTrace(writer);
+        } catch (IOException e) {
+            // StringWriter doesn't throw.
+        }
+        return writer.toString();
+    }
+
+    private static void writeEscaped(Writer writer, String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                writer.write('\\');
+                writer.write(c);
+            } else if (c < 0x20) {
+                writer.write(String.format(Locale.US, "\\u%04x", (int) c));
+            } else {
+                writer.write(c);
+            }
+        }
+    }
+}
@@ -98,9 +98,11 @@ public class TextDelegate {
 
     private void invalidate() {
          if (animationView != null) {
+             animationView.clearDisplayListCache();
              animationView.invalidate();
          }
         if (drawable != null) {
+            drawable.clearDisplayListCache();
             drawable.invalidateSelf();
         }
     }
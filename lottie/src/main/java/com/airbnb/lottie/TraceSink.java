@@ -0,0 +1,17 @@
+package com.airbnb.lottie;
+
+/**
+ * Receives the sections passed to {@link L#beginSection(String)} and {@link L#endSection(ohos.hiviewdfx.HiTraceId)}
+ * in addition to HiTrace. Sections nest per thread, so an end always closes the most recent section begun on the same
+ * thread.
+ * <p>
+ * Called on whichever thread the section is on, often the render thread, so implementations must be cheap and must
+ * not allocate.
+ *
+ * @see RingBufferTraceSink
+ */
+public interface TraceSink {
+  void beginSection(String name, long timestampNanos);
+
+  void endSection(long timestampNanos);
+}
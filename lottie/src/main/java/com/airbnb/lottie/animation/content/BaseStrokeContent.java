@@ -9,6 +9,7 @@ import com.airbnb.lottie.animation.keyframe.FloatKeyframeAnimation;
 import com.airbnb.lottie.animation.keyframe.IntegerKeyframeAnimation;
 import com.airbnb.lottie.animation.keyframe.ValueCallbackKeyframeAnimation;
 import com.airbnb.lottie.LottieDrawable;
+import com.airbnb.lottie.FrameStats;
 import com.airbnb.lottie.animation.LPaint;
 import com.airbnb.lottie.model.KeyPath;
 import com.airbnb.lottie.model.animatable.AnimatableFloatValue;
@@ -18,8 +19,8 @@ import com.airbnb.lottie.model.content.ShapeTrimPath;
 import com.airbnb.lottie.model.layer.BaseLayer;
 import com.airbnb.lottie.utils.Utils;
 import com.airbnb.lottie.value.LottieValueCallback;
+import com.airbnb.lottie.render.RenderTarget;
 
-import ohos.agp.render.Canvas;
 import ohos.agp.render.ColorFilter;
 import ohos.agp.render.Paint;
 import ohos.agp.render.Path;
@@ -43,12 +44,21 @@ public abstract class BaseStrokeContent
     protected final BaseLayer layer;
     private final List<PathGroup> pathGroups = new ArrayList<>();
     private final float[] dashPatternValues;
+    /**
+     * Quantized dash intervals followed by the offset of the path effect currently set on the paint.
+     */
+    private final int[] dashPatternKey;
+    private boolean hasDashPatternEffect;
     final Paint paint = new LPaint(true);
     private final BaseKeyframeAnimation<?, Float> widthAnimation;
     private final BaseKeyframeAnimation<?, Integer> opacityAnimation;
     private final List<BaseKeyframeAnimation<?, Float>> dashPatternAnimations;
     @Nullable
     private final BaseKeyframeAnimation<?, Float> dashPatternOffsetAnimation;
+    /**
+     * An animated offset gives a new dash pattern every frame, those effects aren't shared through the cache.
+     */
+    private final boolean dashPatternOffsetAnimated;
     @Nullable
     private BaseKeyframeAnimation<ColorFilter, ColorFilter> colorFilterAnimation;
 
@@ -68,11 +78,14 @@ public abstract class BaseStrokeContent
 
         if (offset == null) {
             dashPatternOffsetAnimation = null;
+            dashPatternOffsetAnimated = false;
         } else {
             dashPatternOffsetAnimation = offset.createAnimation();
+            dashPatternOffsetAnimated = !offset.isStatic();
         }
         dashPatternAnimations = new ArrayList<>(dashPattern.size());
         dashPatternValues = new float[dashPattern.size()];
+        dashPatternKey = new int[dashPattern.size() + 1];
 
         for (int i = 0; i < dashPattern.size(); i++) {
             dashPatternAnimations.add(dashPattern.get(i).createAnimation());
@@ -144,7 +157,7 @@ public abstract class BaseStrokeContent
     }
 
     @Override
-    public void draw(Canvas canvas, Matrix parentMatrix, float parentAlpha) {
+    public void draw(RenderTarget canvas, Matrix parentMatrix, float parentAlpha) {
         HiTraceId id = L.beginSection("StrokeContent#draw");
         if (Utils.hasZeroScaleAxis(parentMatrix)) {
             L.endSection(id);
@@ -184,7 +197,7 @@ public abstract class BaseStrokeContent
         L.endSection(id);
     }
 
-    private void applyTrimPathCurrentLengthMore(Canvas canvas,float startLength,float currentLength,float endLength,float length){
+    private void applyTrimPathCurrentLengthMore(RenderTarget canvas,float startLength,float currentLength,float endLength,float length){
         float startValue;
         if (startLength < currentLength) {
             startValue = 0;
@@ -201,12 +214,16 @@ public abstract class BaseStrokeContent
         canvas.drawPath(trimPathPath, paint);
     }
 
-    private void applyTrimPath(Canvas canvas, PathGroup pathGroup, Matrix parentMatrix) {
+    private void applyTrimPath(RenderTarget canvas, PathGroup pathGroup, Matrix parentMatrix) {
         HiTraceId id = L.beginSection("StrokeContent#applyTrimPath");
         if (pathGroup.trimPath == null) {
             L.endSection(id);
             return;
         }
+        FrameStats frameStats = lottieDrawable.getCurrentFrameStats();
+        if (frameStats != null) {
+            frameStats.recordTrimPaths(1);
+        }
         path.reset();
         for (int j = pathGroup.paths.size() - 1; j >= 0; j--) {
             path.addPath(pathGroup.paths.get(j).getPath(),parentMatrix, Path.AddPathMode.APPEND_ADD_PATH_MODE);
@@ -301,10 +318,48 @@ public abstract class BaseStrokeContent
             dashPatternValues[i] *= scale;
         }
         float offset = dashPatternOffsetAnimation == null ? 0f : dashPatternOffsetAnimation.getValue() * scale;
-        paint.setPathEffect(new PathEffect(dashPatternValues, offset));
+
+        boolean changed = !hasDashPatternEffect;
+        for (int i = 0; i < dashPatternValues.length; i++) {
+            changed |= updateDashPatternKey(i, dashPatternValues[i]);
+        }
+        changed |= updateDashPatternKey(dashPatternValues.length, offset);
+
+        if (!changed) {
+            lottieDrawable.recordCacheAccess("StrokeContent#dashPattern", true);
+            L.endSection(id);
+            return;
+        }
+        lottieDrawable.recordCacheAccess("StrokeContent#dashPattern", false);
+        FrameStats frameStats = lottieDrawable.getCurrentFrameStats();
+        if (frameStats != null) {
+            frameStats.recordDashPattern();
+        }
+
+        PathEffect pathEffect;
+        if (dashPatternOffsetAnimated) {
+            pathEffect = DashPathEffectCache.createUncached(dashPatternKey);
+        } else {
+            pathEffect = DashPathEffectCache.get(dashPatternKey);
+            lottieDrawable.recordCacheAccess(DashPathEffectCache.NAME, pathEffect != null);
+            if (pathEffect == null) {
+                pathEffect = DashPathEffectCache.create(dashPatternKey);
+            }
+        }
+        paint.setPathEffect(pathEffect);
+        hasDashPatternEffect = true;
         L.endSection(id);
     }
 
+    private boolean updateDashPatternKey(int index, float value) {
+        int quantized = DashPathEffectCache.quantize(value);
+        if (dashPatternKey[index] == quantized) {
+            return false;
+        }
+        dashPatternKey[index] = quantized;
+        return true;
+    }
+
     @Override
     public void resolveKeyPath(KeyPath keyPath, int depth, List<KeyPath> accumulator, KeyPath currentPartialKeyPath) {
         MiscUtils.resolveKeyPath(keyPath, depth, accumulator, currentPartialKeyPath, this);
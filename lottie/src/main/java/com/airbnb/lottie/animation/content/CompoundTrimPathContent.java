@@ -14,9 +14,20 @@ public class CompoundTrimPathContent {
         contents.add(trimPath);
     }
 
-    public void apply(Path path) {
+    /**
+     * Trims the path with each trim path that isn't hidden.
+     * @param path path to trim
+     * @return number of trim paths applied
+     */
+    public int apply(Path path) {
+        int applied = 0;
         for (int i = contents.size() - 1; i >= 0; i--) {
-            Utils.applyTrimPathIfNeeded(path, contents.get(i));
+            TrimPathContent trimPath = contents.get(i);
+            if (trimPath != null && !trimPath.isHidden()) {
+                applied++;
+            }
+            Utils.applyTrimPathIfNeeded(path, trimPath);
         }
+        return applied;
     }
 }
@@ -1,6 +1,5 @@
 package com.airbnb.lottie.animation.content;
 
-import ohos.agp.render.Canvas;
 import ohos.agp.render.Paint;
 import ohos.agp.render.Path;
 import ohos.agp.utils.Matrix;
@@ -8,6 +7,7 @@ import ohos.agp.utils.RectFloat;
 
 import com.airbnb.lottie.animation.keyframe.BaseKeyframeAnimation;
 import com.airbnb.lottie.animation.keyframe.TransformKeyframeAnimation;
+import com.airbnb.lottie.FrameStats;
 import com.airbnb.lottie.LottieDrawable;
 import com.airbnb.lottie.animation.LPaint;
 import com.airbnb.lottie.model.KeyPath;
@@ -18,6 +18,7 @@ import com.airbnb.lottie.utils.Utils;
 import com.airbnb.lottie.value.LottieValueCallback;
 import com.airbnb.lottie.model.KeyPathElement;
 import com.airbnb.lottie.model.layer.BaseLayer;
+import com.airbnb.lottie.render.RenderTarget;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -167,7 +168,7 @@ public class ContentGroup implements DrawingContent, PathContent,
     }
 
     @Override
-    public void draw(Canvas canvas, Matrix parentMatrix, float parentAlpha) {
+    public void draw(RenderTarget canvas, Matrix parentMatrix, float parentAlpha) {
         if (hidden) {
             return;
         }
@@ -189,6 +190,10 @@ public class ContentGroup implements DrawingContent, PathContent,
             getBounds(offScreenRectF, matrix, true);
             offScreenPaint.setAlpha(layerAlpha/255.0f);
             Utils.saveLayerCompat(canvas, offScreenRectF, offScreenPaint);
+            FrameStats frameStats = lottieDrawable.getCurrentFrameStats();
+            if (frameStats != null) {
+                frameStats.recordOffscreenLayer(offScreenRectF.getWidth(), offScreenRectF.getHeight());
+            }
         }
 
         float childAlpha = isRenderingWithOffScreen ? 255 : layerAlpha;
@@ -0,0 +1,102 @@
+package com.airbnb.lottie.animation.content;
+
+import ohos.agp.render.PathEffect;
+import ohos.utils.LruBuffer;
+
+import java.util.Arrays;
+
+/**
+ * Process wide cache of dash {@link PathEffect}s so that strokes with identical, already scaled, dash patterns
+ * share a single effect instead of each building their own every frame.
+ * Keys are dash intervals followed by the offset, quantized with {@link #quantize(float)}.
+ */
+final class DashPathEffectCache {
+    static final String NAME = "DashPathEffectCache";
+
+    private static final int MAX_SIZE = 64;
+
+    /**
+     * Dash values are quantized to 1/100 of a pixel which is well below anything visible.
+     */
+    private static final float QUANTUM = 100f;
+
+    private static final LruBuffer<Key, PathEffect> CACHE = new LruBuffer<>(MAX_SIZE);
+
+    private DashPathEffectCache() {
+    }
+
+    static int quantize(float value) {
+        return Math.round(value * QUANTUM);
+    }
+
+    /**
+     * Returns the cached effect for the quantized key or null if there isn't one.
+     * @param quantizedKey dash intervals followed by the offset, as returned by {@link #quantize(float)}.
+     * @return cached effect
+     */
+    static PathEffect get(int[] quantizedKey) {
+        synchronized (CACHE) {
+            return CACHE.get(new Key(quantizedKey));
+        }
+    }
+
+    /**
+     * Builds the effect for the quantized key and caches it. The caller's array is copied.
+     * @param quantizedKey dash intervals followed by the offset, as returned by {@link #quantize(float)}.
+     * @return new effect
+     */
+    static PathEffect create(int[] quantizedKey) {
+        PathEffect pathEffect = createUncached(quantizedKey);
+        synchronized (CACHE) {
+            CACHE.put(new Key(Arrays.copyOf(quantizedKey, quantizedKey.length)), pathEffect);
+        }
+        return pathEffect;
+    }
+
+    /**
+     * Builds the effect for the quantized key without caching it, for dash patterns that change every frame and
+     * would only push shared effects out of the cache.
+     * @param quantizedKey dash intervals followed by the offset, as returned by {@link #quantize(float)}.
+     * @return new effect
+     */
+    static PathEffect createUncached(int[] quantizedKey) {
+        int intervalCount = quantizedKey.length - 1;
+        float[] intervals = new float[intervalCount];
+        for (int i = 0; i < intervalCount; i++) {
+            intervals[i] = quantizedKey[i] / QUANTUM;
+        }
+        return new PathEffect(intervals, quantizedKey[intervalCount] / QUANTUM);
+    }
+
+    static void clear() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+    }
+
+    private static final class Key {
+        private final int[] values;
+        private final int hash;
+
+        private Key(int[] values) {
+            this.values = values;
+            this.hash = Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            return hash == ((Key) o).hash && Arrays.equals(values, ((Key) o).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
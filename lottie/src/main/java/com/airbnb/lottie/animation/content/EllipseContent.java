@@ -5,6 +5,7 @@ import com.airbnb.lottie.animation.keyframe.BaseKeyframeAnimation;
 import com.airbnb.lottie.model.KeyPath;
 import com.airbnb.lottie.utils.MiscUtils;
 import com.airbnb.lottie.LottieDrawable;
+import com.airbnb.lottie.FrameStats;
 import com.airbnb.lottie.model.content.CircleShape;
 import com.airbnb.lottie.model.content.ShapeTrimPath;
 import com.airbnb.lottie.model.layer.BaseLayer;
@@ -111,7 +112,12 @@ public class EllipseContent implements PathContent, BaseKeyframeAnimation.Animat
 
         path.close();
 
-        trimPaths.apply(path);
+        int trimPathCount = trimPaths.apply(path);
+        FrameStats frameStats = lottieDrawable.getCurrentFrameStats();
+        if (frameStats != null) {
+            frameStats.recordPathBuild();
+            frameStats.recordTrimPaths(trimPathCount);
+        }
 
         isPathValid = true;
         return path;
@@ -14,8 +14,8 @@ import com.airbnb.lottie.model.content.ShapeFill;
 import com.airbnb.lottie.utils.MiscUtils;
 import com.airbnb.lottie.model.layer.BaseLayer;
 import com.airbnb.lottie.value.LottieValueCallback;
+import com.airbnb.lottie.render.RenderTarget;
 
-import ohos.agp.render.Canvas;
 import ohos.agp.render.ColorFilter;
 import ohos.agp.render.Paint;
 import ohos.agp.render.Path;
@@ -83,7 +83,7 @@ public class FillContent implements DrawingContent, BaseKeyframeAnimation.Animat
     }
 
     @Override
-    public void draw(Canvas canvas, Matrix parentMatrix, float parentAlpha) {
+    public void draw(RenderTarget canvas, Matrix parentMatrix, float parentAlpha) {
         if (hidden) {
             return;
         }
@@ -15,32 +15,24 @@ import com.airbnb.lottie.model.content.GradientType;
 import com.airbnb.lottie.model.layer.BaseLayer;
 import com.airbnb.lottie.utils.MiscUtils;
 import com.airbnb.lottie.value.LottieValueCallback;
+import com.airbnb.lottie.render.RenderTarget;
 
 import ohos.agp.render.*;
-import ohos.agp.utils.Color;
 import ohos.agp.utils.Matrix;
 import ohos.agp.utils.Point;
 import ohos.agp.utils.RectFloat;
 import ohos.hiviewdfx.HiTraceId;
-import ohos.utils.LongPlainArray;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 
 public class GradientFillContent
         implements DrawingContent, BaseKeyframeAnimation.AnimationListener, KeyPathElementContent {
-    /**
-     * Cache the gradients such that it runs at 30fps.
-     */
-    private static final int CACHE_STEPS_MS = 32;
     @NotNull private final String name;
     private final boolean hidden;
     private final BaseLayer layer;
-    private final LongPlainArray<LinearShader> linearShaderCache = new LongPlainArray<LinearShader>();
-    private final LongPlainArray<RadialShader> radialShaderCache = new LongPlainArray<RadialShader>();
     private final Path path = new Path();
     private final Paint paint = new LPaint(true);
     private final RectFloat boundsRect = new RectFloat();
@@ -53,8 +45,9 @@ public class GradientFillContent
     @Nullable
     private BaseKeyframeAnimation<ColorFilter, ColorFilter> colorFilterAnimation;
     @Nullable private ValueCallbackKeyframeAnimation colorCallbackAnimation;
+    private int[] dynamicColorValues = new int[0];
+    private final GradientShaderCache shaderCache;
     private final LottieDrawable lottieDrawable;
-    private final int cacheSteps;
 
     public GradientFillContent(final LottieDrawable lottieDrawable, BaseLayer layer, GradientFill fill) {
         this.layer = layer;
@@ -62,8 +55,8 @@ public class GradientFillContent
         hidden = fill.isHidden();
         this.lottieDrawable = lottieDrawable;
         type = fill.getGradientType();
+        shaderCache = new GradientShaderCache(type);
         path.setFillType(fill.getFillType());
-        cacheSteps = (int) (lottieDrawable.getComposition().getDuration() / CACHE_STEPS_MS);
 
         colorAnimation = fill.getGradientColor().createAnimation();
         colorAnimation.addUpdateListener(this);
@@ -98,7 +91,7 @@ public class GradientFillContent
     }
 
     @Override
-    public void draw(Canvas canvas, Matrix parentMatrix, float parentAlpha) {
+    public void draw(RenderTarget canvas, Matrix parentMatrix, float parentAlpha) {
         if (hidden) {
             return;
         }
@@ -110,18 +103,6 @@ public class GradientFillContent
 
         path.computeBounds(boundsRect);
 
-        Shader shader;
-        if (type == GradientType.LINEAR) {
-            shader = getLinearShader();
-            shader.setShaderMatrix(parentMatrix);
-            paint.setShader(shader, Paint.ShaderType.LINEAR_SHADER);
-        } else {
-            shader = getRadialShader();
-            shader.setShaderMatrix(parentMatrix);
-            paint.setShader(shader, Paint.ShaderType.RADIAL_SHADER);
-        }
-
-
         if (colorFilterAnimation != null) {
             paint.setColorFilter(colorFilterAnimation.getValue());
         }
@@ -129,7 +110,15 @@ public class GradientFillContent
         int alpha = (int) ((parentAlpha / 255.0f * opacityAnimation.getValue() / 100f) * 255);
         paint.setAlpha(MiscUtils.clamp(alpha, 0, 255));
 
-        canvas.drawPath(path, paint);
+        // A target that keeps the paint gets its own shader so later frames can't change the matrix it recorded.
+        Shader shader = getShader(!canvas.retainsPaints());
+        // Cached shaders are shared with other contents and drawables, the matrix is only ours while drawing.
+        synchronized (shader) {
+            shader.setShaderMatrix(parentMatrix);
+            paint.setShader(shader,
+                type == GradientType.LINEAR ? Paint.ShaderType.LINEAR_SHADER : Paint.ShaderType.RADIAL_SHADER);
+            canvas.drawPath(path, paint);
+        }
         L.endSection(id);
     }
 
@@ -150,85 +139,24 @@ public class GradientFillContent
         return name;
     }
 
-    private LinearShader getLinearShader() {
-        int gradientHash = getGradientHash();
-
-        Optional<LinearShader> optVal = linearShaderCache.get(gradientHash);
-        if (optVal.isPresent()) {
-            return optVal.get();
-        }
-        Point startPoint = startPointAnimation.getValue();
-        Point endPoint = endPointAnimation.getValue();
-        GradientColor gradientColor = colorAnimation.getValue();
-        Color[] colors = applyDynamicColorsIfNeeded(gradientColor.getColors());
-        float[] positions = gradientColor.getPositions();
-
-        Point[] pointArr = {new Point(startPoint.getPointX(), startPoint.getPointY()),
-                            new Point(endPoint.getPointX(), endPoint.getPointY())};
-
-        LinearShader gradient = new LinearShader(pointArr, positions, colors, Shader.TileMode.CLAMP_TILEMODE);
-        linearShaderCache.put(gradientHash, gradient);
-        return gradient;
-    }
-
-    private RadialShader getRadialShader() {
-        int gradientHash = getGradientHash();
-
-        Optional<RadialShader> optVal = radialShaderCache.get(gradientHash);
-        if (optVal.isPresent()) {
-            return optVal.get();
-        }
-        Point startPoint = startPointAnimation.getValue();
-        Point endPoint = endPointAnimation.getValue();
-        GradientColor gradientColor = colorAnimation.getValue();
-        Color[] colors = applyDynamicColorsIfNeeded(gradientColor.getColors());
-        float[] positions = gradientColor.getPositions();
-        float x0 = startPoint.getPointX();
-        float y0 = startPoint.getPointY();
-        float x1 = endPoint.getPointX();
-        float y1 = endPoint.getPointY();
-        float r = (float) Math.hypot(x1 - x0, y1 - y0);
-        if (r <= 0) {
-            r = 0.001f;
-        }
-        RadialShader gradient = new RadialShader(new Point(x0, y0), r, positions, colors, Shader.TileMode.CLAMP_TILEMODE);
-        radialShaderCache.put(gradientHash, gradient);
-        return gradient;
+    private Shader getShader(boolean cached) {
+        return shaderCache.getShader(startPointAnimation, endPointAnimation, colorAnimation, getDynamicColors(), cached,
+            lottieDrawable);
     }
 
-    private int getGradientHash() {
-        int startPointProgress = Math.round(startPointAnimation.getProgress() * cacheSteps);
-        int endPointProgress = Math.round(endPointAnimation.getProgress() * cacheSteps);
-        int colorProgress = Math.round(colorAnimation.getProgress() * cacheSteps);
-        int hash = 17;
-        if (startPointProgress != 0) {
-            hash = hash * 31 * startPointProgress;
-        }
-        if (endPointProgress != 0) {
-            hash = hash * 31 * endPointProgress;
+    @Nullable
+    private int[] getDynamicColors() {
+        if (colorCallbackAnimation == null) {
+            return null;
         }
-        if (colorProgress != 0) {
-            hash = hash * 31 * colorProgress;
+        Integer[] dynamicColors = (Integer[]) colorCallbackAnimation.getValue();
+        if (dynamicColorValues.length != dynamicColors.length) {
+            dynamicColorValues = new int[dynamicColors.length];
         }
-        return hash;
-    }
-
-    private Color[] applyDynamicColorsIfNeeded(int[] colors) {
-        Color[] colorArr = new Color[colors.length];
-        if (colorCallbackAnimation != null) {
-            Integer[] dynamicColors = (Integer[]) colorCallbackAnimation.getValue();
-            if (colors.length == dynamicColors.length) {
-                for (int i = 0; i < colors.length; i++) {
-                    colorArr[i] = new Color(dynamicColors[i]);
-                }
-            } else {
-                colors = new int[dynamicColors.length];
-                for (int i = 0; i < dynamicColors.length; i++) {
-                    colorArr[i] = new Color(dynamicColors[i]);
-                }
-            }
+        for (int i = 0; i < dynamicColors.length; i++) {
+            dynamicColorValues[i] = dynamicColors[i];
         }
-        return colorArr;
+        return dynamicColorValues;
     }
 
     @Override
@@ -261,8 +189,6 @@ public class GradientFillContent
             if (callback == null) {
                 colorCallbackAnimation = null;
             } else {
-                linearShaderCache.clear();
-                radialShaderCache.clear();
                 colorCallbackAnimation = new ValueCallbackKeyframeAnimation<>(callback);
                 colorCallbackAnimation.addUpdateListener(this);
                 layer.addAnimation(colorCallbackAnimation);
@@ -0,0 +1,181 @@
+package com.airbnb.lottie.animation.content;
+
+import com.airbnb.lottie.LottieDrawable;
+import com.airbnb.lottie.animation.keyframe.BaseKeyframeAnimation;
+import com.airbnb.lottie.model.content.GradientColor;
+import com.airbnb.lottie.model.content.GradientType;
+
+import ohos.agp.render.LinearShader;
+import ohos.agp.render.RadialShader;
+import ohos.agp.render.Shader;
+import ohos.agp.utils.Color;
+import ohos.agp.utils.Point;
+import ohos.utils.LruBuffer;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Process wide cache of gradient {@link Shader}s so that identical gradients in every content and drawable share a
+ * single shader instead of each building their own.
+ * <p>
+ * Keys are the gradient type, the start and end point quantized with {@link #quantize(float)}, the color ints and the
+ * stop positions, kept in an int array that each content updates in place so that a hit doesn't allocate. Shaders
+ * are built from the key, so every content sharing one draws the same gradient.
+ * <p>
+ * The shader matrix is the only per draw state. It has to be set right before drawing while holding the lock of the
+ * shader, since other drawables may draw with the same shader. Targets that hold on to the paint after drawing get a
+ * shader that isn't cached.
+ */
+final class GradientShaderCache {
+    static final String NAME = "GradientShaderCache";
+
+    private static final int MAX_SIZE = 128;
+
+    /**
+     * Points are quantized to 1/8 of a pixel which is well below anything visible.
+     */
+    private static final float QUANTUM = 8f;
+
+    /**
+     * Type, start x, start y, end x, end y and the number of positions come before the colors and positions.
+     */
+    private static final int HEADER_SIZE = 6;
+
+    private static final LruBuffer<Key, Shader> CACHE = new LruBuffer<>(MAX_SIZE);
+
+    /**
+     * Reused for lookups while holding the cache lock.
+     */
+    private static final Key LOOKUP_KEY = new Key();
+
+    private final GradientType type;
+
+    /**
+     * Key of the gradient this content drew last.
+     */
+    private int[] key = new int[0];
+
+    GradientShaderCache(GradientType type) {
+        this.type = type;
+    }
+
+    static int quantize(float value) {
+        return Math.round(value * QUANTUM);
+    }
+
+    /**
+     * Returns the shader for the current values of the animations, building it if it isn't cached yet.
+     *
+     * @param startPoint start point animation
+     * @param endPoint end point animation
+     * @param color color animation
+     * @param dynamicColors colors from a value callback replacing the animated ones, null if there is none
+     * @param cached false to build a shader that isn't shared, for targets that hold on to the paint after drawing
+     * @param lottieDrawable drawable to count hits and misses for
+     * @return shader, the caller sets its matrix while holding its lock
+     */
+    Shader getShader(BaseKeyframeAnimation<Point, Point> startPoint, BaseKeyframeAnimation<Point, Point> endPoint,
+        BaseKeyframeAnimation<GradientColor, GradientColor> color, @Nullable int[] dynamicColors, boolean cached,
+        LottieDrawable lottieDrawable) {
+        updateKey(startPoint.getValue(), endPoint.getValue(), color.getValue(), dynamicColors);
+        if (!cached) {
+            return createShader(key);
+        }
+        Shader shader;
+        synchronized (CACHE) {
+            LOOKUP_KEY.set(key);
+            shader = CACHE.get(LOOKUP_KEY);
+        }
+        lottieDrawable.recordCacheAccess(NAME, shader != null);
+        if (shader != null) {
+            return shader;
+        }
+        shader = createShader(key);
+        synchronized (CACHE) {
+            Key newKey = new Key();
+            newKey.set(Arrays.copyOf(key, key.length));
+            CACHE.put(newKey, shader);
+        }
+        return shader;
+    }
+
+    static void clear() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+    }
+
+    private void updateKey(Point start, Point end, GradientColor gradientColor, @Nullable int[] dynamicColors) {
+        int[] colors = dynamicColors != null ? dynamicColors : gradientColor.getColors();
+        float[] positions = gradientColor.getPositions();
+        int size = HEADER_SIZE + colors.length + positions.length;
+        if (key.length != size) {
+            key = new int[size];
+        }
+        key[0] = type.ordinal();
+        key[1] = quantize(start.getPointX());
+        key[2] = quantize(start.getPointY());
+        key[3] = quantize(end.getPointX());
+        key[4] = quantize(end.getPointY());
+        // Dynamic colors don't have to match the number of positions.
+        key[5] = positions.length;
+        System.arraycopy(colors, 0, key, HEADER_SIZE, colors.length);
+        int positionsStart = HEADER_SIZE + colors.length;
+        for (int i = 0; i < positions.length; i++) {
+            key[positionsStart + i] = Float.floatToIntBits(positions[i]);
+        }
+    }
+
+    private Shader createShader(int[] key) {
+        int positionCount = key[5];
+        int colorCount = key.length - HEADER_SIZE - positionCount;
+        Color[] colors = new Color[colorCount];
+        for (int i = 0; i < colorCount; i++) {
+            colors[i] = new Color(key[HEADER_SIZE + i]);
+        }
+        float[] positions = new float[positionCount];
+        for (int i = 0; i < positionCount; i++) {
+            positions[i] = Float.intBitsToFloat(key[HEADER_SIZE + colorCount + i]);
+        }
+        float startX = key[1] / QUANTUM;
+        float startY = key[2] / QUANTUM;
+        float endX = key[3] / QUANTUM;
+        float endY = key[4] / QUANTUM;
+        if (type == GradientType.LINEAR) {
+            Point[] points = {new Point(startX, startY), new Point(endX, endY)};
+            return new LinearShader(points, positions, colors, Shader.TileMode.CLAMP_TILEMODE);
+        }
+        float r = (float) Math.hypot(endX - startX, endY - startY);
+        if (r <= 0) {
+            r = 0.001f;
+        }
+        return new RadialShader(new Point(startX, startY), r, positions, colors, Shader.TileMode.CLAMP_TILEMODE);
+    }
+
+    private static final class Key {
+        private int[] values;
+        private int hash;
+
+        void set(int[] values) {
+            this.values = values;
+            this.hash = Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            return hash == ((Key) o).hash && Arrays.equals(values, ((Key) o).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
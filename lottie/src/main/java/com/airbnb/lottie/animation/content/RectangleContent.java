@@ -6,6 +6,7 @@ import com.airbnb.lottie.animation.keyframe.FloatKeyframeAnimation;
 import com.airbnb.lottie.model.KeyPath;
 import com.airbnb.lottie.utils.MiscUtils;
 import com.airbnb.lottie.LottieDrawable;
+import com.airbnb.lottie.FrameStats;
 import com.airbnb.lottie.model.content.RectangleShape;
 import com.airbnb.lottie.model.content.ShapeTrimPath;
 import com.airbnb.lottie.model.layer.BaseLayer;
@@ -150,7 +151,12 @@ public class RectangleContent implements BaseKeyframeAnimation.AnimationListener
         }
         path.close();
 
-        trimPaths.apply(path);
+        int trimPathCount = trimPaths.apply(path);
+        FrameStats frameStats = lottieDrawable.getCurrentFrameStats();
+        if (frameStats != null) {
+            frameStats.recordPathBuild();
+            frameStats.recordTrimPaths(trimPathCount);
+        }
 
         isPathValid = true;
         return path;
@@ -9,8 +9,8 @@ import com.airbnb.lottie.LottieDrawable;
 import com.airbnb.lottie.model.content.Repeater;
 import com.airbnb.lottie.model.layer.BaseLayer;
 import com.airbnb.lottie.value.LottieValueCallback;
+import com.airbnb.lottie.render.RenderTarget;
 
-import ohos.agp.render.Canvas;
 import ohos.agp.render.Path;
 import ohos.agp.utils.Matrix;
 import ohos.agp.utils.RectFloat;
@@ -107,7 +107,7 @@ public class RepeaterContent implements DrawingContent,PathContent,GreedyContent
     }
 
     @Override
-    public void draw(Canvas canvas, Matrix parentMatrix, float alpha) {
+    public void draw(RenderTarget canvas, Matrix parentMatrix, float alpha) {
         float copies = this.copies.getValue();
         float offset = this.offset.getValue();
         float startOpacity = this.transform.getStartOpacity().getValue() / 100f;
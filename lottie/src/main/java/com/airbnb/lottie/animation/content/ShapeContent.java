@@ -2,6 +2,7 @@ package com.airbnb.lottie.animation.content;
 
 import com.airbnb.lottie.animation.keyframe.BaseKeyframeAnimation;
 import com.airbnb.lottie.LottieDrawable;
+import com.airbnb.lottie.FrameStats;
 import com.airbnb.lottie.model.content.ShapePath;
 import com.airbnb.lottie.model.content.ShapeTrimPath;
 import com.airbnb.lottie.model.layer.BaseLayer;
@@ -69,7 +70,12 @@ public class ShapeContent implements PathContent, BaseKeyframeAnimation.Animatio
         path.set(shapeAnimation.getValue());
         path.setFillType(Path.FillType.EVEN_ODD);
 
-        trimPaths.apply(path);
+        int trimPathCount = trimPaths.apply(path);
+        FrameStats frameStats = lottieDrawable.getCurrentFrameStats();
+        if (frameStats != null) {
+            frameStats.recordPathBuild();
+            frameStats.recordTrimPaths(trimPathCount);
+        }
 
         isPathValid = true;
         return path;
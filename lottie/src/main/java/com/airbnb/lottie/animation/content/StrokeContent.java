@@ -10,8 +10,8 @@ import com.airbnb.lottie.LottieDrawable;
 import com.airbnb.lottie.model.content.ShapeStroke;
 import com.airbnb.lottie.model.layer.BaseLayer;
 import com.airbnb.lottie.value.LottieValueCallback;
+import com.airbnb.lottie.render.RenderTarget;
 
-import ohos.agp.render.Canvas;
 import ohos.agp.render.ColorFilter;
 import ohos.agp.utils.Color;
 import ohos.agp.utils.Matrix;
@@ -39,7 +39,7 @@ public class StrokeContent extends BaseStrokeContent {
     }
 
     @Override
-    public void draw(Canvas canvas, Matrix parentMatrix, float parentAlpha) {
+    public void draw(RenderTarget canvas, Matrix parentMatrix, float parentAlpha) {
         if (hidden) {
             return;
         }
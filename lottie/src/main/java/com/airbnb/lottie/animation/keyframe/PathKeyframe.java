@@ -5,13 +5,30 @@ import com.airbnb.lottie.utils.Utils;
 import com.airbnb.lottie.value.Keyframe;
 
 import ohos.agp.render.Path;
+import ohos.agp.render.PathMeasure;
+import ohos.agp.utils.Matrix;
 import ohos.agp.utils.Point;
 import org.jetbrains.annotations.Nullable;
 
 public class PathKeyframe extends Keyframe<Point> {
+    /**
+     * Bounds for the number of samples in the arc length table. Motion paths are short, single cubic segments
+     * so a few hundred samples is already well below a pixel of error.
+     */
+    private static final int MIN_SAMPLES = 16;
+    private static final int MAX_SAMPLES = 256;
+    private static final float PIXELS_PER_SAMPLE = 2f;
+
     @Nullable private Path path;
     private final Keyframe<Point> pointKeyFrame;
 
+    /**
+     * Interleaved x/y positions sampled at equal arc length intervals along {@link #path}.
+     * Built lazily the first time a position is requested and immutable afterwards so it can be shared by every
+     * drawable that renders this composition.
+     */
+    @Nullable private volatile float[] positionTable;
+
     public PathKeyframe(LottieComposition composition, Keyframe<Point> keyframe) {
         super(composition, keyframe.startValue, keyframe.endValue, keyframe.interpolator, keyframe.xInterpolator, keyframe.yInterpolator,
                 keyframe.startFrame, keyframe.endFrame);
@@ -27,6 +44,7 @@ public class PathKeyframe extends Keyframe<Point> {
         if (startValue != null && endValue != null && !equals) {
             path = Utils.createPath(startValue, endValue, pointKeyFrame.pathCp1, pointKeyFrame.pathCp2);
         }
+        positionTable = null;
     }
 
     /**
@@ -36,4 +54,41 @@ public class PathKeyframe extends Keyframe<Point> {
     @Nullable Path getPath() {
         return path;
     }
+
+    /**
+     * Sets outPoint to the position at the given fraction of the path length.
+     * The path is only measured once; every later call is a table lookup and a lerp.
+     *
+     * @param progress fraction of the arc length, from 0 to 1.
+     * @param outPoint point that receives the position.
+     */
+    void getPosition(float progress, Point outPoint) {
+        float[] table = positionTable;
+        if (table == null) {
+            table = buildPositionTable();
+            positionTable = table;
+        }
+        int lastSample = table.length / 2 - 1;
+        float sample = Math.max(0f, Math.min(1f, progress)) * lastSample;
+        int index = Math.min((int) sample, lastSample - 1);
+        float fraction = sample - index;
+        int i = index * 2;
+        outPoint.modify(table[i] + fraction * (table[i + 2] - table[i]),
+            table[i + 1] + fraction * (table[i + 3] - table[i + 1]));
+    }
+
+    private float[] buildPositionTable() {
+        PathMeasure pathMeasure = new PathMeasure(path, false);
+        float length = pathMeasure.getLength();
+        int samples = Math.max(MIN_SAMPLES, Math.min(MAX_SAMPLES, (int) Math.ceil(length / PIXELS_PER_SAMPLE)));
+        float[] table = new float[(samples + 1) * 2];
+        Matrix matrix = new Matrix();
+        for (int i = 0; i <= samples; i++) {
+            matrix.reset();
+            pathMeasure.getMatrix(length * i / samples, matrix, 1);
+            table[i * 2] = matrix.getTranslateX();
+            table[i * 2 + 1] = matrix.getTranslateY();
+        }
+        return table;
+    }
 }
@@ -2,18 +2,12 @@ package com.airbnb.lottie.animation.keyframe;
 
 import com.airbnb.lottie.value.Keyframe;
 import ohos.agp.render.Path;
-import ohos.agp.render.PathMeasure;
-import ohos.agp.utils.Matrix;
 import ohos.agp.utils.Point;
 
 import java.util.List;
 
 public class PathKeyframeAnimation extends KeyframeAnimation<Point> {
     private final Point point = new Point();
-    private final float[] pos = new float[2];
-    private final Matrix matrix = new Matrix();
-    private PathKeyframe pathMeasureKeyframe;
-    private PathMeasure pathMeasure ;
 
     public PathKeyframeAnimation(List<? extends Keyframe<Point>> keyframes) {
         super(keyframes);
@@ -35,13 +29,7 @@ public class PathKeyframeAnimation extends KeyframeAnimation<Point> {
                 return value;
             }
         }
-        pathMeasure = new PathMeasure(path, false);
-        if (pathMeasureKeyframe != pathKeyframe) {
-            pathMeasureKeyframe = pathKeyframe;
-        }
-        matrix.reset();
-        pathMeasure.getMatrix(keyframeProgress * pathMeasure.getLength(), matrix, 1);
-        point.modify(matrix.getTranslateX(), matrix.getTranslateY());
+        pathKeyframe.getPosition(keyframeProgress, point);
         return point;
     }
 }
\ No newline at end of file
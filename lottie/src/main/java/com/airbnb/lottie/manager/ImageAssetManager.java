@@ -4,17 +4,13 @@ import com.airbnb.lottie.ImageAssetDelegate;
 import com.airbnb.lottie.L;
 import com.airbnb.lottie.LottieImageAsset;
 import com.airbnb.lottie.utils.HMOSLogUtil;
+import com.airbnb.lottie.utils.Utils;
 
 import ohos.app.Context;
-import ohos.media.image.ImageSource;
 import ohos.media.image.PixelMap;
-import ohos.media.image.common.PixelFormat;
-import ohos.media.image.common.Rect;
-import ohos.media.image.common.Size;
 import org.jetbrains.annotations.Nullable;
 
-import java.io.IOException;
-import java.io.InputStream;
+import java.io.ByteArrayInputStream;
 import java.util.Map;
 
 public class ImageAssetManager {
@@ -28,6 +24,12 @@ public class ImageAssetManager {
 
     private final Map<String, LottieImageAsset> imageAssets;
 
+    private float targetScale = 1f;
+
+    private boolean warnedMissingImagesFolder;
+
+    @Nullable private ImagePipeline.Listener imageDecodedListener;
+
     public ImageAssetManager(Context context, String imagesFolder, ImageAssetDelegate delegate,
         Map<String, LottieImageAsset> imageAssets) {
         this.imagesFolder = imagesFolder;
@@ -63,6 +65,13 @@ public class ImageAssetManager {
         return prevBitmap;
     }
 
+    /**
+     * Returns the image for id if it has already been decoded. This never decodes on the calling thread; images that
+     * aren't ready yet are decoded in the background and the listener set with
+     * {@link #setImageDecodedListener(ImagePipeline.Listener)} is notified once they are.
+     * @param id image id
+     * @return the image or null if it isn't available yet
+     */
     @Nullable public PixelMap bitmapForId(String id) {
         LottieImageAsset asset = imageAssets.get(id);
         if (asset == null) {
@@ -81,51 +90,97 @@ public class ImageAssetManager {
             return pixelmap;
         }
 
-        String filename = asset.getFileName();
-        ImageSource.SourceOptions srcOpts = new ImageSource.SourceOptions();
-        // ImageSource.DecodingOptions opts = new ImageSource.DecodingOptions();
-        // opts.inScaled = true;
-        // opts.inDensity = 160;
+        String key = getPipelineKey(asset);
+        if (key == null) {
+            return null;
+        }
+        ImagePipeline pipeline = ImagePipeline.getInstance();
+        int width = getTargetWidth(asset);
+        int height = getTargetHeight(asset);
+        if (pipeline.needsDecode(key, width, height)) {
+            requestDecode(asset, key, width, height);
+        }
+        return pipeline.get(key);
+    }
 
-        java.util.Base64.Decoder decoder = java.util.Base64.getDecoder();
-        if (filename.startsWith("data:") && filename.indexOf("base64,") > -1) {
-            // Contents look like a base64 data URI, with the format data:image/png;base64,<data>.
-            byte[] data;
-            try {
-                data = decoder.decode(filename.substring(filename.indexOf(',') + 1));
-            } catch (IllegalArgumentException e) {
-                HMOSLogUtil.error(L.TAG, "data URL did not have correct base64 format.", e);
-                return null;
+    /**
+     * Starts decoding every image that isn't already available so that they are ready by the time they are drawn.
+     */
+    public void prefetchImages() {
+        if (delegate != null) {
+            return;
+        }
+        ImagePipeline pipeline = ImagePipeline.getInstance();
+        for (LottieImageAsset asset : imageAssets.values()) {
+            if (asset.getPixelmap() != null) {
+                continue;
+            }
+            String key = getPipelineKey(asset);
+            int width = getTargetWidth(asset);
+            int height = getTargetHeight(asset);
+            if (key != null && pipeline.needsDecode(key, width, height)) {
+                requestDecode(asset, key, width, height);
             }
-            ImageSource imageSource = ImageSource.create(data, srcOpts);
-            ImageSource.DecodingOptions decodingOpts = new ImageSource.DecodingOptions();
-            decodingOpts.desiredSize = new Size(0, 0);
-            decodingOpts.desiredRegion = new Rect(0, 0, 0, 0);
-            decodingOpts.desiredPixelFormat = PixelFormat.ARGB_8888;//RGBA_8888;
-            PixelMap pixelMap = imageSource.createPixelmap(decodingOpts);
-            // bitmap = BitmapFactory.decodeByteArray(data, 0, data.length, opts);
-            return putPixelMap(id, pixelmap);
         }
+    }
 
-        InputStream is;
-        try {
-            if (imagesFolder == null || imagesFolder.length() == 0) {
-                throw new IllegalStateException("You must set an images folder before loading an image."
-                    + " Set it with LottieComposition#setImagesFolder or LottieDrawable#setImagesFolder");
+    /**
+     * Sets the scale the images will be drawn at on top of the display density so that they can be decoded at the
+     * size they will actually be displayed at.
+     * @param targetScale the drawable scale times the scale the view fits it with, or 0 to decode images at their full
+     *     size
+     */
+    public void setTargetScale(float targetScale) {
+        this.targetScale = targetScale;
+    }
+
+    public void setImageDecodedListener(@Nullable ImagePipeline.Listener listener) {
+        this.imageDecodedListener = listener;
+    }
+
+    @Nullable
+    private String getPipelineKey(LottieImageAsset asset) {
+        if (asset.getEncodedImageKey() != null) {
+            return asset.getEncodedImageKey();
+        }
+        String filename = asset.getFileName();
+        if (filename.startsWith("data:") && filename.indexOf("base64,") > -1) {
+            return filename;
+        }
+        if (imagesFolder == null || imagesFolder.length() == 0) {
+            if (warnedMissingImagesFolder) {
+                return null;
             }
-            // is = context.getResourceManager().getAssetManager().getAsset(imagesFolder + filename);
-            is = context.getResourceManager().getRawFileEntry(imagesFolder + filename).openRawFile();
-        } catch (IOException e) {
-            HMOSLogUtil.warn(L.TAG, "Unable to open asset -" + e.getLocalizedMessage());
+            warnedMissingImagesFolder = true;
+            HMOSLogUtil.warn(L.TAG, "You must set an images folder before loading an image."
+                + " Set it with LottieComposition#setImagesFolder or LottieDrawable#setImagesFolder");
             return null;
         }
-        ImageSource imageSource = ImageSource.create(is, srcOpts);
-        ImageSource.DecodingOptions decodingOpts = new ImageSource.DecodingOptions();
-        decodingOpts.desiredSize = new Size(0, 0);
-        decodingOpts.desiredRegion = new Rect(0, 0, 0, 0);
-        decodingOpts.desiredPixelFormat = PixelFormat.ARGB_8888;//RGBA_8888;
-        PixelMap pixelMap = imageSource.createPixelmap(decodingOpts);
-        return putPixelMap(id, pixelmap);
+        return imagesFolder + filename;
+    }
+
+    private int getTargetWidth(LottieImageAsset asset) {
+        return (int) Math.ceil(asset.getWidth() * Utils.dpScale() * targetScale);
+    }
+
+    private int getTargetHeight(LottieImageAsset asset) {
+        return (int) Math.ceil(asset.getHeight() * Utils.dpScale() * targetScale);
+    }
+
+    private void requestDecode(LottieImageAsset asset, final String key, int width, int height) {
+        final String filename = asset.getFileName();
+        final byte[] encodedImage = asset.getEncodedImage();
+        ImagePipeline.Source source;
+        if (encodedImage != null) {
+            source = () -> new ByteArrayInputStream(encodedImage);
+        } else if (key.equals(filename)) {
+            // Contents look like a base64 data URI, with the format data:image/png;base64,<data>.
+            source = () -> new ByteArrayInputStream(
+                java.util.Base64.getDecoder().decode(filename.substring(filename.indexOf(',') + 1)));
+        } else {
+            source = () -> context.getResourceManager().getRawFileEntry(key).openRawFile();
+        }
+        ImagePipeline.getInstance().decodeAsync(key, source, width, height, imageDecodedListener);
     }
 
     public boolean hasSameContext(Context context) {
@@ -0,0 +1,283 @@
+package com.airbnb.lottie.manager;
+
+import com.airbnb.lottie.L;
+import com.airbnb.lottie.utils.HMOSLogUtil;
+import com.airbnb.lottie.utils.Utils;
+
+import ohos.eventhandler.EventHandler;
+import ohos.eventhandler.EventRunner;
+import ohos.media.image.ImageSource;
+import ohos.media.image.PixelMap;
+import ohos.media.image.common.Size;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decodes image assets off the main thread and keeps the results in a process wide, byte budgeted LRU cache.
+ * <p>
+ * Images are downsampled to the size they will actually be drawn at so a 2048px source drawn in a 200px view doesn't
+ * occupy 16MB. Drawing code only ever calls {@link #get(String)}, which never decodes. Missing or undersized images are
+ * requested with {@link #decodeAsync(String, Source, int, int, Listener)} and listeners are called on the main thread
+ * once the image is in the cache.
+ */
+public final class ImagePipeline {
+    private static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+
+    private static final int DECODE_THREADS = 2;
+
+    private static final ImagePipeline INSTANCE = new ImagePipeline();
+
+    public static ImagePipeline getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Opens the encoded image. Called on a decode thread.
+     */
+    public interface Source {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Called on the main thread after an image has been decoded into the cache.
+     */
+    public interface Listener {
+        void onImageDecoded(String key);
+    }
+
+    private static final class Entry {
+        final PixelMap pixelMap;
+
+        final int requestedWidth;
+
+        final int requestedHeight;
+
+        final long bytes;
+
+        Entry(PixelMap pixelMap, int requestedWidth, int requestedHeight) {
+            this.pixelMap = pixelMap;
+            this.requestedWidth = requestedWidth;
+            this.requestedHeight = requestedHeight;
+            Size size = pixelMap.getImageInfo().size;
+            this.bytes = size.width * (long) size.height * 4;
+        }
+
+        boolean covers(int width, int height) {
+            return requestedWidth <= 0 || requestedWidth >= width && requestedHeight >= height;
+        }
+    }
+
+    private static final class Request {
+        final String key;
+
+        final Source source;
+
+        final int width;
+
+        final int height;
+
+        final List<Listener> listeners = new ArrayList<>();
+
+        Request(String key, Source source, int width, int height) {
+            this.key = key;
+            this.source = source;
+            this.width = width;
+            this.height = height;
+        }
+
+        boolean covers(int width, int height) {
+            return this.width <= 0 || this.width >= width && this.height >= height;
+        }
+    }
+
+    private final LinkedHashMap<String, Entry> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Map<String, Request> pending = new HashMap<>();
+
+    private final EventHandler mainHandler = new EventHandler(EventRunner.getMainEventRunner());
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(DECODE_THREADS, new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "LottieImageDecode-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        }
+    });
+
+    private long maxBytes = DEFAULT_MAX_BYTES;
+
+    private long cachedBytes;
+
+    private ImagePipeline() {
+    }
+
+    /**
+     * Returns the decoded image for key, or null if it hasn't been decoded yet. Never decodes.
+     * @param key image key
+     * @return the cached image, which may be smaller than the size last requested
+     */
+    @Nullable
+    public synchronized PixelMap get(String key) {
+        Entry entry = cache.get(key);
+        return entry == null ? null : entry.pixelMap;
+    }
+
+    /**
+     * Returns true if there is neither a cached image nor a pending decode at least width x height large.
+     * @param key image key
+     * @param width width the image will be drawn at in pixels, or 0 for the full size
+     * @param height height the image will be drawn at in pixels, or 0 for the full size
+     * @return whether {@link #decodeAsync(String, Source, int, int, Listener)} would start a new decode
+     */
+    public synchronized boolean needsDecode(String key, int width, int height) {
+        Entry entry = cache.get(key);
+        if (entry != null && entry.covers(width, height)) {
+            return false;
+        }
+        Request request = pending.get(key);
+        return request == null || !request.covers(width, height);
+    }
+
+    /**
+     * Decodes the image on a background thread unless an image or a pending decode of at least the requested size
+     * already exists. The listener is called once a new decode has finished.
+     * @param key image key
+     * @param source encoded image
+     * @param width width the image will be drawn at in pixels, or 0 for the full size
+     * @param height height the image will be drawn at in pixels, or 0 for the full size
+     * @param listener called on the main thread once decoded, may be null
+     */
+    public void decodeAsync(String key, Source source, int width, int height, @Nullable final Listener listener) {
+        final Request request;
+        synchronized (this) {
+            Entry entry = cache.get(key);
+            if (entry != null && entry.covers(width, height)) {
+                return;
+            }
+            Request existing = pending.get(key);
+            if (existing != null && existing.covers(width, height)) {
+                if (listener != null && !existing.listeners.contains(listener)) {
+                    existing.listeners.add(listener);
+                }
+                return;
+            }
+            request = new Request(key, source, width, height);
+            if (listener != null) {
+                request.listeners.add(listener);
+            }
+            pending.put(key, request);
+        }
+        executor.execute(() -> decode(request));
+    }
+
+    private void decode(Request request) {
+        PixelMap pixelMap = null;
+        try (InputStream is = request.source.open()) {
+            pixelMap = decodeScaled(is, request.width, request.height);
+            if (pixelMap == null) {
+                HMOSLogUtil.warn(L.TAG, "Unable to decode image " + abbreviate(request.key));
+            }
+        } catch (IOException | IllegalArgumentException | IllegalStateException e) {
+            HMOSLogUtil.warn(L.TAG, "Unable to decode image " + abbreviate(request.key) + " - " + e.getLocalizedMessage());
+        }
+
+        final List<Listener> listeners;
+        synchronized (this) {
+            if (pending.get(request.key) == request) {
+                pending.remove(request.key);
+            }
+            if (pixelMap != null) {
+                Entry existing = cache.get(request.key);
+                if (existing == null || !existing.covers(request.width, request.height)) {
+                    put(request.key, new Entry(pixelMap, request.width, request.height));
+                }
+            }
+            listeners = new ArrayList<>(request.listeners);
+        }
+        if (pixelMap == null || listeners.isEmpty()) {
+            return;
+        }
+        final String key = request.key;
+        mainHandler.postTask(() -> {
+            for (int i = 0; i < listeners.size(); i++) {
+                listeners.get(i).onImageDecoded(key);
+            }
+        });
+    }
+
+    @Nullable
+    private static PixelMap decodeScaled(InputStream is, int width, int height) {
+        ImageSource imageSource = ImageSource.create(is, new ImageSource.SourceOptions());
+        if (imageSource == null) {
+            return null;
+        }
+        try {
+            ImageSource.DecodingOptions decodingOpts = new ImageSource.DecodingOptions();
+            Utils.resetOptions(decodingOpts);
+            Size sourceSize = imageSource.getImageInfo().size;
+            if (width > 0 && height > 0 && (width < sourceSize.width || height < sourceSize.height)) {
+                // Never upscale, the draw matrix takes care of that without using more memory.
+                decodingOpts.desiredSize = new Size(Math.min(width, sourceSize.width), Math.min(height, sourceSize.height));
+            }
+            return imageSource.createPixelmap(decodingOpts);
+        } finally {
+            imageSource.release();
+        }
+    }
+
+    private void put(String key, Entry entry) {
+        Entry previous = cache.put(key, entry);
+        if (previous != null) {
+            cachedBytes -= previous.bytes;
+        }
+        cachedBytes += entry.bytes;
+        trimToSize(maxBytes);
+    }
+
+    /**
+     * Evicted images aren't released because a drawable may still be drawing them; they are reclaimed once
+     * unreferenced.
+     */
+    private void trimToSize(long size) {
+        Iterator<Entry> it = cache.values().iterator();
+        // Always keep the most recent image, even if it is larger than the budget on its own.
+        while (cachedBytes > size && cache.size() > 1 && it.hasNext()) {
+            cachedBytes -= it.next().bytes;
+            it.remove();
+        }
+    }
+
+    public synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        trimToSize(maxBytes);
+    }
+
+    public synchronized long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    public synchronized void clear() {
+        cache.clear();
+        cachedBytes = 0;
+    }
+
+    private static String abbreviate(String key) {
+        return key.length() > 64 ? key.substring(0, 64) + "..." : key;
+    }
+}
@@ -40,6 +40,10 @@ public class FontCharacter {
         return shapes;
     }
 
+    public char getCharacter() {
+        return character;
+    }
+
     double getSize() {
         return size;
     }
@@ -48,10 +52,14 @@ public class FontCharacter {
         return width;
     }
 
-    String getStyle() {
+    public String getStyle() {
         return style;
     }
 
+    public String getFontFamily() {
+        return fontFamily;
+    }
+
     @Override
     public int hashCode() {
         return hashFor(character, fontFamily, style);
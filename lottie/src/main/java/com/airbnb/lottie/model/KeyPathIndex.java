@@ -0,0 +1,224 @@
+package com.airbnb.lottie.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of every {@link KeyPathElement} of a layer tree that resolves {@link KeyPath KeyPaths} without walking the
+ * tree again.
+ * <p>
+ * The tree is walked once when the index is built and flattened in pre-order, with every element name interned to an
+ * int. Each KeyPath is compiled into a small automaton over those ints: state i means the first i keys have been
+ * matched, a key matches one name, '*' matches any one name and '**' matches zero or more names. The states are kept
+ * in a long bit set so matching an element is a few bit operations per key, and subtrees in which no state is alive
+ * are skipped. {@link #resolveAll(List)} runs any number of KeyPaths in the same pass.
+ * <p>
+ * Unlike the element by element resolution, '**' is not greedy, so a globstar followed by a key also matches when
+ * that key appears more than once on the path. KeyPaths with more than {@link #MAX_COMPILED_KEYS} keys fall back to
+ * the element by element resolution.
+ */
+public class KeyPathIndex {
+    /**
+     * Longest KeyPath that fits in the bit set of states.
+     */
+    public static final int MAX_COMPILED_KEYS = 63;
+
+    private static final String WILDCARD = "*";
+
+    private static final String GLOBSTAR = "**";
+
+    private static final int WILDCARD_ID = -1;
+
+    private static final int GLOBSTAR_ID = -2;
+
+    private final KeyPathElement root;
+
+    private final KeyPath[] elements;
+
+    private final int[] nameIds;
+
+    private final int[] depths;
+
+    /**
+     * Index after the last element of the subtree of each element.
+     */
+    private final int[] subtreeEnds;
+
+    private final int maxDepth;
+
+    private final Map<String, Integer> nameToId = new HashMap<>();
+
+    /**
+     * Walks the tree under root once and indexes every element in it.
+     *
+     * @param root root of the layer tree, usually the composition layer
+     */
+    public KeyPathIndex(KeyPathElement root) {
+        this.root = root;
+        List<KeyPath> all = new ArrayList<>();
+        root.resolveKeyPath(new KeyPath(GLOBSTAR), 0, all, new KeyPath());
+
+        int count = all.size();
+        elements = all.toArray(new KeyPath[count]);
+        nameIds = new int[count];
+        depths = new int[count];
+        subtreeEnds = new int[count];
+        int deepest = 0;
+        // Elements are resolved in pre-order with the full path as keys, so the open elements form a stack by depth.
+        int[] open = new int[16];
+        int openCount = 0;
+        for (int i = 0; i < count; i++) {
+            List<String> keys = elements[i].keys;
+            int depth = keys.size();
+            while (openCount > 0 && depths[open[openCount - 1]] >= depth) {
+                subtreeEnds[open[--openCount]] = i;
+            }
+            if (openCount == open.length) {
+                open = Arrays.copyOf(open, openCount * 2);
+            }
+            open[openCount++] = i;
+            depths[i] = depth;
+            nameIds[i] = intern(keys.get(depth - 1));
+            deepest = Math.max(deepest, depth);
+        }
+        while (openCount > 0) {
+            subtreeEnds[open[--openCount]] = count;
+        }
+        maxDepth = deepest;
+    }
+
+    private int intern(String name) {
+        Integer id = nameToId.get(name);
+        if (id == null) {
+            id = nameToId.size();
+            nameToId.put(name, id);
+        }
+        return id;
+    }
+
+    /**
+     * @return number of indexed elements
+     */
+    public int size() {
+        return elements.length;
+    }
+
+    /**
+     * Resolves keyPath to the elements it matches, in the order of the layer tree.
+     *
+     * @param keyPath KeyPath, potentially with wildcards or globstars
+     * @return resolved KeyPaths
+     */
+    public List<KeyPath> resolve(KeyPath keyPath) {
+        return resolveAll(Collections.singletonList(keyPath)).get(0);
+    }
+
+    /**
+     * Resolves every KeyPath in one pass over the index.
+     *
+     * @param keyPaths KeyPaths, potentially with wildcards or globstars
+     * @return resolved KeyPaths for each of keyPaths, in the same order
+     */
+    public List<List<KeyPath>> resolveAll(List<KeyPath> keyPaths) {
+        int patternCount = keyPaths.size();
+        List<List<KeyPath>> results = new ArrayList<>(patternCount);
+        int[][] patterns = new int[patternCount][];
+        long[] startStates = new long[patternCount];
+        boolean anyAlive = false;
+        for (int p = 0; p < patternCount; p++) {
+            KeyPath keyPath = keyPaths.get(p);
+            List<KeyPath> result = new ArrayList<>();
+            results.add(result);
+            if (keyPath.keys.size() > MAX_COMPILED_KEYS) {
+                root.resolveKeyPath(keyPath, 0, result, new KeyPath());
+                continue;
+            }
+            patterns[p] = compile(keyPath);
+            startStates[p] = patterns[p] == null ? 0 : closure(patterns[p], 1L);
+            anyAlive |= startStates[p] != 0;
+        }
+        if (!anyAlive) {
+            return results;
+        }
+
+        // states[d] holds the states of every pattern after matching the element at depth d, states[0] the start.
+        long[][] states = new long[maxDepth + 1][];
+        states[0] = startStates;
+        for (int d = 1; d <= maxDepth; d++) {
+            states[d] = new long[patternCount];
+        }
+        int i = 0;
+        while (i < elements.length) {
+            int depth = depths[i];
+            long[] parentStates = states[depth - 1];
+            long[] elementStates = states[depth];
+            boolean alive = false;
+            for (int p = 0; p < patternCount; p++) {
+                long next = parentStates[p] == 0 ? 0 : step(patterns[p], parentStates[p], nameIds[i]);
+                elementStates[p] = next;
+                if (next != 0) {
+                    alive = true;
+                    if ((next & (1L << patterns[p].length)) != 0) {
+                        results.get(p).add(elements[i]);
+                    }
+                }
+            }
+            i = alive ? i + 1 : subtreeEnds[i];
+        }
+        return results;
+    }
+
+    /**
+     * @return the name id of every key, or null if a key names no element in the tree so nothing can match
+     */
+    private int[] compile(KeyPath keyPath) {
+        int[] pattern = new int[keyPath.keys.size()];
+        for (int k = 0; k < pattern.length; k++) {
+            String key = keyPath.keys.get(k);
+            if (GLOBSTAR.equals(key)) {
+                pattern[k] = GLOBSTAR_ID;
+            } else if (WILDCARD.equals(key)) {
+                pattern[k] = WILDCARD_ID;
+            } else {
+                Integer id = nameToId.get(key);
+                if (id == null) {
+                    return null;
+                }
+                pattern[k] = id;
+            }
+        }
+        return pattern;
+    }
+
+    private static long step(int[] pattern, long states, int nameId) {
+        long next = 0;
+        for (int k = 0; k < pattern.length; k++) {
+            if ((states & (1L << k)) == 0) {
+                continue;
+            }
+            int key = pattern[k];
+            if (key == GLOBSTAR_ID) {
+                next |= 1L << k;
+            } else if (key == WILDCARD_ID || key == nameId) {
+                next |= 1L << (k + 1);
+            }
+        }
+        return next == 0 ? 0 : closure(pattern, next);
+    }
+
+    /**
+     * Adds the states reachable by letting globstars match zero names.
+     */
+    private static long closure(int[] pattern, long states) {
+        for (int k = 0; k < pattern.length; k++) {
+            if (pattern[k] == GLOBSTAR_ID && (states & (1L << k)) != 0) {
+                states |= 1L << (k + 1);
+            }
+        }
+        return states;
+    }
+}
@@ -2,40 +2,224 @@ package com.airbnb.lottie.model;
 
 import com.airbnb.lottie.LottieComposition;
 
-import ohos.utils.LruBuffer;
 import org.jetbrains.annotations.Nullable;
 
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Process wide cache of parsed compositions.
+ * <p>
+ * Compositions are weighed by the number of bytes they are estimated to retain and the least recently used ones are
+ * evicted once either the byte budget or the maximum number of entries is exceeded, so a single huge animation can't
+ * crowd out memory while many small icons still fit. Evicted compositions can optionally be kept in a second tier of
+ * soft references that the GC may reclaim whenever it needs the memory.
+ */
 public class LottieCompositionCache {
 
+    /**
+     * Estimates the number of bytes a composition keeps alive.
+     */
+    public interface Weigher {
+        long weigh(LottieComposition composition);
+    }
+
+    private static final int DEFAULT_MAX_ENTRIES = 20;
+
+    private static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+
+    private static final Weigher DEFAULT_WEIGHER = new Weigher() {
+        @Override
+        public long weigh(LottieComposition composition) {
+            return composition.getEstimatedByteSize();
+        }
+    };
+
     private static final LottieCompositionCache INSTANCE = new LottieCompositionCache();
 
     public static LottieCompositionCache getInstance() {
         return INSTANCE;
     }
 
-    private final LruBuffer<String, LottieComposition> cache = new LruBuffer<>(20);
+    private static final class Entry {
+        final LottieComposition composition;
+
+        final long bytes;
+
+        Entry(LottieComposition composition, long bytes) {
+            this.composition = composition;
+            this.bytes = bytes;
+        }
+    }
+
+    private static final class SoftEntry extends SoftReference<LottieComposition> {
+        final String cacheKey;
+
+        SoftEntry(String cacheKey, LottieComposition composition, ReferenceQueue<LottieComposition> queue) {
+            super(composition, queue);
+            this.cacheKey = cacheKey;
+        }
+    }
+
+    private final LinkedHashMap<String, Entry> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Map<String, SoftEntry> softCache = new HashMap<>();
+
+    /**
+     * Keys of prefetched compositions that mustn't be evicted before they are first used.
+     */
+    private final Set<String> pinnedKeys = new HashSet<>();
+
+    private final ReferenceQueue<LottieComposition> softQueue = new ReferenceQueue<>();
+
+    private Weigher weigher = DEFAULT_WEIGHER;
+
+    private int maxEntries = DEFAULT_MAX_ENTRIES;
+
+    private long maxBytes = DEFAULT_MAX_BYTES;
+
+    private long bytes;
+
+    private boolean softTierEnabled;
+
+    private int hitCount;
+
+    private int softHitCount;
+
+    private int missCount;
+
+    private int evictionCount;
 
     public LottieCompositionCache() {
-        //TODO
     }
 
-	@Nullable
-    public LottieComposition get(@Nullable String cacheKey) {
+    @Nullable
+    public synchronized LottieComposition get(@Nullable String cacheKey) {
         if (cacheKey == null) {
             return null;
         }
-        return cache.get(cacheKey);
+        pinnedKeys.remove(cacheKey);
+        return lookup(cacheKey, true);
     }
 
-    public void put(@Nullable String cacheKey, LottieComposition composition) {
+    /**
+     * Like {@link #get(String)} but doesn't unpin the key or count a hit or miss, for lookups the library makes while
+     * it loads a composition, which aren't a use of it.
+     * @param cacheKey key of the composition
+     * @return the cached composition or null
+     */
+    @Nullable
+    public synchronized LottieComposition peek(@Nullable String cacheKey) {
+        if (cacheKey == null) {
+            return null;
+        }
+        return lookup(cacheKey, false);
+    }
+
+    @Nullable
+    private LottieComposition lookup(String cacheKey, boolean count) {
+        Entry entry = cache.get(cacheKey);
+        if (entry != null) {
+            if (count) {
+                hitCount++;
+            }
+            return entry.composition;
+        }
+        pollSoftQueue();
+        SoftEntry softEntry = softCache.remove(cacheKey);
+        LottieComposition composition = softEntry == null ? null : softEntry.get();
+        if (composition != null) {
+            if (count) {
+                softHitCount++;
+            }
+            putInternal(cacheKey, composition);
+            return composition;
+        }
+        if (count) {
+            missCount++;
+        }
+        return null;
+    }
+
+    public synchronized void put(@Nullable String cacheKey, LottieComposition composition) {
         if (cacheKey == null) {
             return;
         }
-        cache.put(cacheKey, composition);
+        softCache.remove(cacheKey);
+        putInternal(cacheKey, composition);
     }
 
-    public void clear() {
+    private void putInternal(String cacheKey, LottieComposition composition) {
+        Entry previous = cache.put(cacheKey, new Entry(composition, weigher.weigh(composition)));
+        if (previous != null) {
+            bytes -= previous.bytes;
+        }
+        bytes += cache.get(cacheKey).bytes;
+        trim();
+    }
+
+    private void trim() {
+        Iterator<Map.Entry<String, Entry>> it = cache.entrySet().iterator();
+        while ((bytes > maxBytes || cache.size() > maxEntries) && it.hasNext()) {
+            Map.Entry<String, Entry> eldest = it.next();
+            // The most recent composition is always kept even if it is larger than the budget on its own.
+            if (!it.hasNext() || pinnedKeys.contains(eldest.getKey())) {
+                continue;
+            }
+            it.remove();
+            bytes -= eldest.getValue().bytes;
+            evictionCount++;
+            if (softTierEnabled) {
+                pollSoftQueue();
+                softCache.put(eldest.getKey(), new SoftEntry(eldest.getKey(), eldest.getValue().composition, softQueue));
+            }
+        }
+    }
+
+    /**
+     * Drops the soft entries whose compositions have been reclaimed by the GC.
+     */
+    private void pollSoftQueue() {
+        SoftEntry reclaimed;
+        while ((reclaimed = (SoftEntry) softQueue.poll()) != null) {
+            if (softCache.get(reclaimed.cacheKey) == reclaimed) {
+                softCache.remove(reclaimed.cacheKey);
+            }
+        }
+    }
+
+    /**
+     * Keeps the composition for cacheKey, once it has been put, from being evicted until the next
+     * {@link #get(String)} for it.
+     * @param cacheKey key of a prefetched composition
+     */
+    public synchronized void pin(@Nullable String cacheKey) {
+        if (cacheKey != null) {
+            pinnedKeys.add(cacheKey);
+        }
+    }
+
+    /**
+     * Lets the composition for cacheKey be evicted again, for prefetches that failed or are no longer needed.
+     * @param cacheKey key passed to {@link #pin(String)}
+     */
+    public synchronized void unpin(@Nullable String cacheKey) {
+        if (cacheKey != null && pinnedKeys.remove(cacheKey)) {
+            trim();
+        }
+    }
+
+    public synchronized void clear() {
         cache.clear();
+        softCache.clear();
+        pinnedKeys.clear();
+        bytes = 0;
     }
 
     /**
@@ -43,7 +227,64 @@ public class LottieCompositionCache {
      * This must be > 0.
      * @param size in int
      */
-    public void resize(int size) {
-        cache.updateCapacity(size);
+    public synchronized void resize(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be > 0");
+        }
+        maxEntries = size;
+        trim();
+    }
+
+    /**
+     * Set the maximum estimated number of bytes the strongly referenced compositions may retain.
+     * @param maxBytes byte budget
+     */
+    public synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        trim();
+    }
+
+    /**
+     * Replace the default weigher, which uses {@link LottieComposition#getEstimatedByteSize()}. Compositions that are
+     * already cached keep their weight.
+     * @param weigher weigher or null for the default
+     */
+    public synchronized void setWeigher(@Nullable Weigher weigher) {
+        this.weigher = weigher == null ? DEFAULT_WEIGHER : weigher;
+    }
+
+    /**
+     * When enabled, compositions evicted from the cache are still reachable through soft references until the GC
+     * reclaims them.
+     * @param enabled whether to keep a soft reference tier
+     */
+    public synchronized void setSoftTierEnabled(boolean enabled) {
+        softTierEnabled = enabled;
+        if (!enabled) {
+            softCache.clear();
+        }
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized int getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return number of hits served by the soft reference tier. These are not included in {@link #getHitCount()}.
+     */
+    public synchronized int getSoftHitCount() {
+        return softHitCount;
+    }
+
+    public synchronized int getMissCount() {
+        return missCount;
+    }
+
+    public synchronized int getEvictionCount() {
+        return evictionCount;
     }
 }
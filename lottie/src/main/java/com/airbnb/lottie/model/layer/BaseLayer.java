@@ -1,5 +1,6 @@
 package com.airbnb.lottie.model.layer;
 
+import com.airbnb.lottie.FrameStats;
 import com.airbnb.lottie.L;
 import com.airbnb.lottie.animation.LPaint;
 import com.airbnb.lottie.animation.content.Content;
@@ -11,15 +12,18 @@ import com.airbnb.lottie.animation.keyframe.TransformKeyframeAnimation;
 import com.airbnb.lottie.model.content.Mask;
 import com.airbnb.lottie.model.content.ShapeData;
 import com.airbnb.lottie.utils.HMOSLogUtil;
+import com.airbnb.lottie.utils.OffscreenBuffer;
+import com.airbnb.lottie.utils.OffscreenBufferPool;
 import com.airbnb.lottie.utils.Utils;
 import com.airbnb.lottie.value.LottieValueCallback;
 import com.airbnb.lottie.LottieComposition;
 import com.airbnb.lottie.LottieDrawable;
+import com.airbnb.lottie.PerformanceTracker;
 import com.airbnb.lottie.model.KeyPath;
 import com.airbnb.lottie.model.KeyPathElement;
+import com.airbnb.lottie.render.RenderTarget;
 
 import ohos.agp.render.BlendMode;
-import ohos.agp.render.Canvas;
 import ohos.agp.render.Paint;
 import ohos.agp.render.Path;
 import ohos.agp.utils.Color;
@@ -80,15 +84,18 @@ public abstract class BaseLayer implements DrawingContent, BaseKeyframeAnimation
     private final Paint mattePaint = new LPaint(true);
     private final Paint clearPaint = new LPaint(BlendMode.CLEAR);
     private final RectFloat rect = new RectFloat();
+    private final RectFloat clearRect = new RectFloat();
     private final RectFloat maskBoundsRect = new RectFloat();
     private final RectFloat matteBoundsRect = new RectFloat();
     private final RectFloat tempMaskBoundsRect = new RectFloat();
+    private final RectFloat bufferClipRect = new RectFloat();
     private final String drawTraceName;
     final Matrix boundsMatrix = new Matrix();
     final LottieDrawable lottieDrawable;
     final Layer layerModel;
     @Nullable
     private MaskKeyframeAnimation mask;
+    private boolean masksCanClip;
     @Nullable
     private FloatKeyframeAnimation inOutAnimation;
     @Nullable
@@ -127,6 +134,7 @@ public abstract class BaseLayer implements DrawingContent, BaseKeyframeAnimation
 
         if (layerModel.getMasks() != null && !layerModel.getMasks().isEmpty()) {
             this.mask = new MaskKeyframeAnimation(layerModel.getMasks());
+            masksCanClip = MaskStrategy.canClip(layerModel.getMasks());
             for (BaseKeyframeAnimation<?, Path> animation : mask.getMaskAnimations()) {
                 // Don't call addAnimation() because progress gets set manually in setProgress to
                 // properly handle time scale.
@@ -229,12 +237,24 @@ public abstract class BaseLayer implements DrawingContent, BaseKeyframeAnimation
     }
 
     @Override
-    public void draw(Canvas canvas, Matrix parentMatrix, float parentAlpha) {
-//        HiTraceId traceID = L.beginSection(drawTraceName);
+    public void draw(RenderTarget canvas, Matrix parentMatrix, float parentAlpha) {
         if (!visible || layerModel.isHidden()) {
-            //L.endSection(traceID);
             return;
         }
+        HiTraceId traceID = L.beginSection(drawTraceName);
+        PerformanceTracker performanceTracker = lottieDrawable.getComposition().getPerfTracker();
+        if (!performanceTracker.isEnabled()) {
+            drawVisible(canvas, parentMatrix, parentAlpha);
+            L.endSection(traceID);
+            return;
+        }
+        long startNs = System.nanoTime();
+        drawVisible(canvas, parentMatrix, parentAlpha);
+        recordRenderTime((System.nanoTime() - startNs) / 1000000f);
+        L.endSection(traceID);
+    }
+
+    private void drawVisible(RenderTarget canvas, Matrix parentMatrix, float parentAlpha) {
         buildParentLayerListIfNeeded();
         HiTraceId lyrTraceID = L.beginSection("Layer#parentMatrix");
         matrix.reset();
@@ -247,14 +267,20 @@ public abstract class BaseLayer implements DrawingContent, BaseKeyframeAnimation
         int alpha = (int) ((parentAlpha / 255.0f * (float) opacity / 100f) * 255);
         if (!hasMatteOnThisLayer() && !hasMasksOnThisLayer()) {
             matrix.preConcat(transform.getMatrix());
-//            HiTraceId ldlTraceID = L.beginSection("Layer#drawLayer");
+            HiTraceId ldlTraceID = L.beginSection("Layer#drawLayer");
             drawLayer(canvas, matrix, alpha);
-//            L.endSection(ldlTraceID);
-//            recordRenderTime(L.endSection(traceID));
+            L.endSection(ldlTraceID);
             return;
         }
 
-//        HiTraceId lcbTraceID = L.beginSection("Layer#computeBounds");
+        if (!hasMatteOnThisLayer() && !outlineMasksAndMattes
+            && MaskStrategy.forFrame(mask, masksCanClip, matrix, transform.getMatrix()) == MaskStrategy.CLIP) {
+            matrix.preConcat(transform.getMatrix());
+            drawLayerClippedToMasks(canvas, matrix, alpha);
+            return;
+        }
+
+        HiTraceId lcbTraceID = L.beginSection("Layer#computeBounds");
         getBounds(rect, matrix, false);
 
         intersectBoundsWithMatte(rect, parentMatrix);
@@ -262,49 +288,15 @@ public abstract class BaseLayer implements DrawingContent, BaseKeyframeAnimation
         matrix.preConcat(transform.getMatrix());
         intersectBoundsWithMask(rect, matrix);
 
-        if(canvas.getLocalClipBounds()!=null) {
-//            if (!rect.isIntersect(0, 0, canvas.getLocalClipBounds().getWidth(), canvas.getLocalClipBounds().getHeight())) {
-//               //rect.modify(0, 0, 0, 0);
-//            }
-        }
-
-//        L.endSection(lcbTraceID);
-
-            // Ensure that what we are drawing is >=1px of width and height.
-            // On older devices, drawing to an offscreen buffer of <1px would draw back as a black bar.
-            if (rect.getWidth() >= 1f && rect.getHeight() >= 1f) {
-                HiTraceId id = L.beginSection(SAVE_LAYER);
-            contentPaint.setAlpha(1.0f);
-            Utils.saveLayerCompat(canvas, rect, contentPaint);
-            L.endSection(id);
-
-            // Clear the off screen buffer. This is necessary for some phones.
-            clearCanvas(canvas);
-            id = L.beginSection("Layer#drawLayer");
-            drawLayer(canvas, matrix, alpha);
-            L.endSection(id);
+        L.endSection(lcbTraceID);
 
-            if (hasMasksOnThisLayer()) {
-                applyMasks(canvas, matrix);
-            }
-
-            if (hasMatteOnThisLayer()) {
-                HiTraceId ldmTraceID = L.beginSection("Layer#drawMatte");
-                HiTraceId tmpTraceID = L.beginSection(SAVE_LAYER);
-                Utils.saveLayerCompat(canvas, rect, mattePaint, SAVE_FLAGS);
-                L.endSection(tmpTraceID);
-                clearCanvas(canvas);
-                matteLayer.draw(canvas, parentMatrix, alpha);
-                tmpTraceID = L.beginSection(RESTORE_LAYER);
-                canvas.restore();
-                L.endSection(tmpTraceID);
-                L.endSection(ldmTraceID);
-            }
-
-            HiTraceId resTraceID = L.beginSection(RESTORE_LAYER);
-            canvas.restore();
-            L.endSection(resTraceID);
+        // Ensure that what we are drawing is >=1px of width and height.
+        // On older devices, drawing to an offscreen buffer of <1px would draw back as a black bar.
+        if (rect.getWidth() >= 1f && rect.getHeight() >= 1f) {
+            if (!lottieDrawable.isOffscreenBufferPoolEnabled() || !drawWithPooledBuffers(canvas, parentMatrix, alpha)) {
+                drawWithSaveLayers(canvas, parentMatrix, alpha);
             }
+        }
         if (outlineMasksAndMattes && outlineMasksAndMattesPaint != null) {
             outlineMasksAndMattesPaint.setStyle(Paint.Style.STROKE_STYLE);
             //outlineMasksAndMattesPaint.setColor(0xFFFC2803);
@@ -316,19 +308,175 @@ public abstract class BaseLayer implements DrawingContent, BaseKeyframeAnimation
             outlineMasksAndMattesPaint.setColor(Color.CYAN);
             canvas.drawRect(rect, outlineMasksAndMattesPaint);
         }
-//        recordRenderTime(L.endSection(traceID));
+    }
+
+    private void drawLayerClippedToMasks(RenderTarget canvas, Matrix matrix, int alpha) {
+        HiTraceId id = L.beginSection("Layer#clipMasks");
+        canvas.save();
+        for (int i = 0; i < mask.getMaskAnimations().size(); i++) {
+            path.set(mask.getMaskAnimations().get(i).getValue());
+            path.transform(matrix);
+            canvas.clipPath(path);
+        }
+        L.endSection(id);
+        id = L.beginSection("Layer#drawLayer");
+        drawLayer(canvas, matrix, alpha);
+        L.endSection(id);
+        canvas.restore();
+        lottieDrawable.getComposition().getPerfTracker().recordSaveLayersAvoided(MaskStrategy.SAVE_LAYERS_AVOIDED_BY_CLIP);
+    }
+
+    /**
+     * Utils#saveLayerCompat for {@link #rect} that also counts the offscreen layer in the frame stats.
+     */
+    private void saveLayer(RenderTarget canvas, Paint paint) {
+        saveLayer(canvas, paint, 31);
+    }
+
+    private void saveLayer(RenderTarget canvas, Paint paint, int flags) {
+        Utils.saveLayerCompat(canvas, rect, paint, flags);
+        FrameStats frameStats = lottieDrawable.getCurrentFrameStats();
+        if (frameStats != null) {
+            frameStats.recordOffscreenLayer(rect.getWidth(), rect.getHeight());
+        }
     }
 
     private void recordRenderTime(float ms) {
         lottieDrawable.getComposition().getPerfTracker().recordRenderTime(layerModel.getName(), ms);
     }
 
-    private void clearCanvas(Canvas canvas) {
-//        HiTraceId id = L.beginSection("Layer#clearLayer");
+    private void drawWithSaveLayers(RenderTarget canvas, Matrix parentMatrix, int alpha) {
+        HiTraceId id = L.beginSection(SAVE_LAYER);
+        contentPaint.setAlpha(1.0f);
+        saveLayer(canvas, contentPaint);
+        L.endSection(id);
+
+        // Clear the off screen buffer. This is necessary for some phones.
+        clearCanvas(canvas);
+        id = L.beginSection("Layer#drawLayer");
+        drawLayer(canvas, matrix, alpha);
+        L.endSection(id);
+
+        if (hasMasksOnThisLayer()) {
+            applyMasks(canvas, matrix);
+        }
+
+        if (hasMatteOnThisLayer()) {
+            HiTraceId ldmTraceID = L.beginSection("Layer#drawMatte");
+            HiTraceId tmpTraceID = L.beginSection(SAVE_LAYER);
+            saveLayer(canvas, mattePaint, SAVE_FLAGS);
+            L.endSection(tmpTraceID);
+            clearCanvas(canvas);
+            matteLayer.draw(canvas, parentMatrix, alpha);
+            tmpTraceID = L.beginSection(RESTORE_LAYER);
+            canvas.restore();
+            L.endSection(tmpTraceID);
+            L.endSection(ldmTraceID);
+        }
+
+        HiTraceId resTraceID = L.beginSection(RESTORE_LAYER);
+        canvas.restore();
+        L.endSection(resTraceID);
+    }
+
+    /**
+     * Draws the layer, its masks and its matte into buffers from {@link OffscreenBufferPool} covering {@link #rect}
+     * instead of saveLayers. The buffers are held by the drawable until the frame is done.
+     * @return false if the pool couldn't provide the buffers, in which case nothing was drawn.
+     */
+    private boolean drawWithPooledBuffers(RenderTarget canvas, Matrix parentMatrix, int alpha) {
+        OffscreenBufferPool pool = OffscreenBufferPool.getInstance();
+        int left = (int) Math.floor(rect.left);
+        int top = (int) Math.floor(rect.top);
+        int width = (int) Math.ceil(rect.right) - left;
+        int height = (int) Math.ceil(rect.bottom) - top;
+
+        OffscreenBuffer contentBuffer = pool.acquire(width, height);
+        OffscreenBuffer maskBuffer = hasMasksOnThisLayer() ? pool.acquire(width, height) : null;
+        OffscreenBuffer matteBuffer = hasMatteOnThisLayer() ? pool.acquire(width, height) : null;
+        if (contentBuffer == null || (hasMasksOnThisLayer() && maskBuffer == null)
+            || (hasMatteOnThisLayer() && matteBuffer == null)) {
+            releaseBuffer(pool, contentBuffer);
+            releaseBuffer(pool, maskBuffer);
+            releaseBuffer(pool, matteBuffer);
+            return false;
+        }
+
+        FrameStats frameStats = lottieDrawable.getCurrentFrameStats();
+        if (frameStats != null) {
+            frameStats.recordOffscreenLayer(width, height);
+            if (maskBuffer != null) {
+                frameStats.recordOffscreenLayer(width, height);
+            }
+            if (matteBuffer != null) {
+                frameStats.recordOffscreenLayer(width, height);
+            }
+        }
+
+        // Pooled buffers can be larger than the bounds. Nothing may be drawn outside of them since only the bounds are
+        // masked and composited.
+        bufferClipRect.modify(0, 0, width, height);
+        RenderTarget contentCanvas = beginBufferDraw(contentBuffer, left, top);
+        HiTraceId id = L.beginSection("Layer#drawLayer");
+        drawLayer(contentCanvas, matrix, alpha);
+        L.endSection(id);
+
+        if (maskBuffer != null) {
+            RenderTarget maskCanvas = beginBufferDraw(maskBuffer, left, top);
+            drawMasks(maskCanvas, matrix);
+            maskCanvas.restore();
+            maskBuffer.drawTo(contentCanvas, left, top, width, height, dstInPaint);
+        }
+
+        if (matteBuffer != null) {
+            id = L.beginSection("Layer#drawMatte");
+            RenderTarget matteCanvas = beginBufferDraw(matteBuffer, left, top);
+            matteLayer.draw(matteCanvas, parentMatrix, alpha);
+            matteCanvas.restore();
+            matteBuffer.drawTo(contentCanvas, left, top, width, height, mattePaint);
+            L.endSection(id);
+        }
+        contentCanvas.restore();
+
+        contentPaint.setAlpha(1.0f);
+        contentBuffer.drawTo(canvas, left, top, width, height, contentPaint);
+        // The target may read the buffers until the frame is done, so they go back to the pool with the frame.
+        lottieDrawable.retainUntilFrameEnd(contentBuffer);
+        if (maskBuffer != null) {
+            lottieDrawable.retainUntilFrameEnd(maskBuffer);
+        }
+        if (matteBuffer != null) {
+            lottieDrawable.retainUntilFrameEnd(matteBuffer);
+        }
+        lottieDrawable.getComposition().getPerfTracker()
+            .recordSaveLayersAvoided(1 + (maskBuffer != null ? 1 : 0) + (matteBuffer != null ? 1 : 0));
+        return true;
+    }
+
+    /**
+     * Saves the canvas of the buffer, clips it to {@link #bufferClipRect} and moves the layer bounds to its origin.
+     * @return the canvas to draw into, to be restored once done
+     */
+    private RenderTarget beginBufferDraw(OffscreenBuffer buffer, int left, int top) {
+        RenderTarget bufferCanvas = buffer.getRenderTarget();
+        bufferCanvas.save();
+        bufferCanvas.clipRect(bufferClipRect);
+        bufferCanvas.translate(-left, -top);
+        return bufferCanvas;
+    }
+
+    private static void releaseBuffer(OffscreenBufferPool pool, @Nullable OffscreenBuffer buffer) {
+        if (buffer != null) {
+            pool.release(buffer);
+        }
+    }
+
+    private void clearCanvas(RenderTarget canvas) {
+        HiTraceId id = L.beginSection("Layer#clearLayer");
         // If we don't pad the clear draw, some phones leave a 1px border of the graphics buffer.
-        canvas.drawRect(new RectFloat(rect.left - 1, rect.top - 1, rect.right + 1, rect.bottom + 1),
-            clearPaint);
-//        L.endSection(id);
+        clearRect.modify(rect.left - 1, rect.top - 1, rect.right + 1, rect.bottom + 1);
+        canvas.drawRect(clearRect, clearPaint);
+        L.endSection(id);
     }
 
     private void intersectBoundsWithMask(RectFloat rect, Matrix matrix) {
@@ -401,10 +549,10 @@ public abstract class BaseLayer implements DrawingContent, BaseKeyframeAnimation
         }
     }
 
-    abstract void drawLayer(Canvas canvas, Matrix parentMatrix,
+    abstract void drawLayer(RenderTarget canvas, Matrix parentMatrix,
         float parentAlpha);
 
-    private void maskMode(Canvas canvas,Matrix matrix,Mask mask,BaseKeyframeAnimation<ShapeData, Path> maskAnimation,BaseKeyframeAnimation<Integer, Integer> opacityAnimation, int i){
+    private void maskMode(RenderTarget canvas,Matrix matrix,Mask mask,BaseKeyframeAnimation<ShapeData, Path> maskAnimation,BaseKeyframeAnimation<Integer, Integer> opacityAnimation, int i){
         switch (mask.getMaskMode()) {
             case MASK_MODE_NONE:
                 // None mask should have no effect. If all masks are NONE, fill the
@@ -445,19 +593,23 @@ public abstract class BaseLayer implements DrawingContent, BaseKeyframeAnimation
         }
     }
 
-    private void applyMasks(Canvas canvas, Matrix matrix) {
+    private void applyMasks(RenderTarget canvas, Matrix matrix) {
         HiTraceId id = L.beginSection(SAVE_LAYER);
-        Utils.saveLayerCompat(canvas, rect, dstInPaint, SAVE_FLAGS);
+        saveLayer(canvas, dstInPaint, SAVE_FLAGS);
+        L.endSection(id);
+        drawMasks(canvas, matrix);
+        id = L.beginSection(RESTORE_LAYER);
+        canvas.restore();
         L.endSection(id);
+    }
+
+    private void drawMasks(RenderTarget canvas, Matrix matrix) {
         for (int i = 0; i < mask.getMasks().size(); i++) {
             Mask mask = this.mask.getMasks().get(i);
             BaseKeyframeAnimation<ShapeData, Path> maskAnimation = this.mask.getMaskAnimations().get(i);
             BaseKeyframeAnimation<Integer, Integer> opacityAnimation = this.mask.getOpacityAnimations().get(i);
             maskMode(canvas,matrix,mask,maskAnimation,opacityAnimation,i);
         }
-        id = L.beginSection(RESTORE_LAYER);
-        canvas.restore();
-        L.endSection(id);
     }
 
     private boolean areAllMasksNone() {
@@ -473,7 +625,7 @@ public abstract class BaseLayer implements DrawingContent, BaseKeyframeAnimation
         return true;
     }
 
-    private void applyAddMask(Canvas canvas, Matrix matrix, Mask mask,
+    private void applyAddMask(RenderTarget canvas, Matrix matrix, Mask mask,
         BaseKeyframeAnimation<ShapeData, Path> maskAnimation,  BaseKeyframeAnimation<Integer, Integer> opacityAnimation) {
         Path maskPath = maskAnimation.getValue();
         path.set(maskPath);
@@ -482,9 +634,9 @@ public abstract class BaseLayer implements DrawingContent, BaseKeyframeAnimation
         canvas.drawPath(path, contentPaint);
     }
 
-    private void applyInvertedAddMask(Canvas canvas, Matrix matrix, Mask mask, 
+    private void applyInvertedAddMask(RenderTarget canvas, Matrix matrix, Mask mask, 
 		BaseKeyframeAnimation<ShapeData, Path> maskAnimation, BaseKeyframeAnimation<Integer, Integer> opacityAnimation) {
-        Utils.saveLayerCompat(canvas, rect, contentPaint);
+        saveLayer(canvas, contentPaint);
         canvas.drawRect(rect, contentPaint);
         Path maskPath = maskAnimation.getValue();
         path.set(maskPath);
@@ -494,7 +646,7 @@ public abstract class BaseLayer implements DrawingContent, BaseKeyframeAnimation
         canvas.restore();
     }
 
-    private void applySubtractMask(Canvas canvas, Matrix matrix, Mask mask,
+    private void applySubtractMask(RenderTarget canvas, Matrix matrix, Mask mask,
         BaseKeyframeAnimation<ShapeData, Path> maskAnimation, BaseKeyframeAnimation<Integer, Integer> opacityAnimation) {
         Path maskPath = maskAnimation.getValue();
         path.set(maskPath);
@@ -502,9 +654,9 @@ public abstract class BaseLayer implements DrawingContent, BaseKeyframeAnimation
         canvas.drawPath(path, dstOutPaint);
     }
 
-    private void applyInvertedSubtractMask(Canvas canvas, Matrix matrix,Mask mask, 
+    private void applyInvertedSubtractMask(RenderTarget canvas, Matrix matrix,Mask mask, 
 		BaseKeyframeAnimation<ShapeData, Path> maskAnimation, BaseKeyframeAnimation<Integer, Integer> opacityAnimation) {
-        Utils.saveLayerCompat(canvas, rect, dstOutPaint);
+        saveLayer(canvas, dstOutPaint);
         canvas.drawRect(rect, contentPaint);
         dstOutPaint.setAlpha((int) (opacityAnimation.getValue() /100f));
         Path maskPath = maskAnimation.getValue();
@@ -514,9 +666,9 @@ public abstract class BaseLayer implements DrawingContent, BaseKeyframeAnimation
         canvas.restore();
     }
 
-    private void applyIntersectMask(Canvas canvas, Matrix matrix, Mask mask,
+    private void applyIntersectMask(RenderTarget canvas, Matrix matrix, Mask mask,
         BaseKeyframeAnimation<ShapeData, Path> maskAnimation, BaseKeyframeAnimation<Integer, Integer> opacityAnimation) {
-        Utils.saveLayerCompat(canvas, rect, dstInPaint);
+        saveLayer(canvas, dstInPaint);
         Path maskPath = maskAnimation.getValue();
         path.set(maskPath);
         path.transform(matrix);
@@ -525,9 +677,9 @@ public abstract class BaseLayer implements DrawingContent, BaseKeyframeAnimation
         canvas.restore();
     }
 
-    private void applyInvertedIntersectMask(Canvas canvas, Matrix matrix,
+    private void applyInvertedIntersectMask(RenderTarget canvas, Matrix matrix,
         Mask mask, BaseKeyframeAnimation<ShapeData, Path> maskAnimation, BaseKeyframeAnimation<Integer, Integer> opacityAnimation) {
-        Utils.saveLayerCompat(canvas, rect, dstInPaint);
+        saveLayer(canvas, dstInPaint);
         canvas.drawRect(rect, contentPaint);
         dstOutPaint.setAlpha((opacityAnimation.getValue()/100f));
         Path maskPath = maskAnimation.getValue();
@@ -1,5 +1,6 @@
 package com.airbnb.lottie.model.layer;
 
+import com.airbnb.lottie.FrameStats;
 import com.airbnb.lottie.L;
 import com.airbnb.lottie.LottieProperty;
 import com.airbnb.lottie.animation.keyframe.BaseKeyframeAnimation;
@@ -10,8 +11,8 @@ import com.airbnb.lottie.value.LottieValueCallback;
 import com.airbnb.lottie.model.KeyPath;
 import com.airbnb.lottie.LottieComposition;
 import com.airbnb.lottie.LottieDrawable;
+import com.airbnb.lottie.render.RenderTarget;
 
-import ohos.agp.render.Canvas;
 import ohos.agp.render.Paint;
 import ohos.agp.utils.Matrix;
 import ohos.agp.utils.RectFloat;
@@ -96,7 +97,7 @@ public class CompositionLayer extends BaseLayer {
     }
 
     @Override
-    void drawLayer(Canvas canvas, Matrix parentMatrix, float parentAlpha) {
+    void drawLayer(RenderTarget canvas, Matrix parentMatrix, float parentAlpha) {
         HiTraceId traceid = L.beginSection("CompositionLayer#draw");
         newClipRect.modify(0, 0, layerModel.getPreCompWidth(), layerModel.getPreCompHeight());
         parentMatrix.mapRect(newClipRect);
@@ -107,6 +108,10 @@ public class CompositionLayer extends BaseLayer {
         if (isDrawingWithOffScreen) {
             layerPaint.setAlpha(parentAlpha/255.0f);
             Utils.saveLayerCompat(canvas, newClipRect, layerPaint);
+            FrameStats frameStats = lottieDrawable.getCurrentFrameStats();
+            if (frameStats != null) {
+                frameStats.recordOffscreenLayer(newClipRect.getWidth(), newClipRect.getHeight());
+            }
         } else {
             canvas.save();
         }
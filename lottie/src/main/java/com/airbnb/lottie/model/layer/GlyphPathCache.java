@@ -0,0 +1,207 @@
+package com.airbnb.lottie.model.layer;
+
+import com.airbnb.lottie.model.FontCharacter;
+import com.airbnb.lottie.model.animatable.AnimatableShapeValue;
+import com.airbnb.lottie.model.content.ContentModel;
+import com.airbnb.lottie.model.content.GradientFill;
+import com.airbnb.lottie.model.content.GradientStroke;
+import com.airbnb.lottie.model.content.ShapeData;
+import com.airbnb.lottie.model.content.ShapeFill;
+import com.airbnb.lottie.model.content.ShapeGroup;
+import com.airbnb.lottie.model.content.ShapePath;
+import com.airbnb.lottie.model.content.ShapeStroke;
+import com.airbnb.lottie.utils.MiscUtils;
+
+import ohos.agp.render.Path;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Process wide cache of glyph paths keyed by font family, style and character, shared by every {@link TextLayer}
+ * in every composition.
+ * <p>
+ * Each entry holds one path per shape group of the glyph, built straight from the shape data. The paths are
+ * immutable once cached; callers must copy them before transforming. Glyphs whose shapes are animated or
+ * contain anything other than plain shapes, fills and strokes can't be prebuilt. They are remembered as
+ * unsupported and {@link #getPaths(FontCharacter)} returns null for them.
+ * <p>
+ * Memory is accounted from the number of curves in each glyph and bounded by a byte budget, evicting the least
+ * recently used glyphs first.
+ */
+final class GlyphPathCache {
+    private static final long DEFAULT_MAX_BYTES = 1024 * 1024;
+
+    /**
+     * Rough native size of a path and of each cubic segment in it.
+     */
+    private static final int PATH_OVERHEAD_BYTES = 64;
+    private static final int BYTES_PER_CURVE = 28;
+
+    private static final List<Path> UNSUPPORTED = Collections.emptyList();
+
+    private static final GlyphPathCache INSTANCE = new GlyphPathCache();
+
+    static GlyphPathCache getInstance() {
+        return INSTANCE;
+    }
+
+    private final LinkedHashMap<Key, Entry> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Reused for lookups so that a hit doesn't allocate.
+     */
+    private final Key lookupKey = new Key();
+
+    private long maxBytes = DEFAULT_MAX_BYTES;
+
+    private long sizeBytes;
+
+    private GlyphPathCache() {
+    }
+
+    /**
+     * Returns the untransformed paths of each shape group of the glyph, or null if the glyph can't be prebuilt.
+     * @param character glyph to look up
+     * @return immutable paths that must not be modified
+     */
+    @Nullable
+    synchronized List<Path> getPaths(FontCharacter character) {
+        lookupKey.set(character.getFontFamily(), character.getStyle(), character.getCharacter());
+        Entry entry = cache.get(lookupKey);
+        if (entry == null) {
+            entry = build(character);
+            cache.put(new Key().set(character.getFontFamily(), character.getStyle(), character.getCharacter()), entry);
+            sizeBytes += entry.bytes;
+            trimToSize();
+        }
+        return entry.paths == UNSUPPORTED ? null : entry.paths;
+    }
+
+    synchronized long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        trimToSize();
+    }
+
+    synchronized void clear() {
+        cache.clear();
+        sizeBytes = 0;
+    }
+
+    private void trimToSize() {
+        Iterator<Entry> it = cache.values().iterator();
+        while (sizeBytes > maxBytes && it.hasNext()) {
+            sizeBytes -= it.next().bytes;
+            it.remove();
+        }
+    }
+
+    private static Entry build(FontCharacter character) {
+        List<ShapeGroup> shapes = character.getShapes();
+        List<Path> paths = new ArrayList<>(shapes.size());
+        long[] bytes = {0};
+        for (int i = 0; i < shapes.size(); i++) {
+            Path path = new Path();
+            if (!addGroupPath(shapes.get(i), path, bytes)) {
+                return new Entry(UNSUPPORTED, 0);
+            }
+            paths.add(path);
+            bytes[0] += PATH_OVERHEAD_BYTES;
+        }
+        return new Entry(Collections.unmodifiableList(paths), bytes[0]);
+    }
+
+    /**
+     * Adds the paths of a group the same way ContentGroup#getPath does, in reverse order.
+     * @return false if the group contains content that can't be prebuilt.
+     */
+    private static boolean addGroupPath(ShapeGroup group, Path outPath, long[] bytes) {
+        if (group.isHidden()) {
+            return true;
+        }
+        List<ContentModel> items = group.getItems();
+        for (int i = items.size() - 1; i >= 0; i--) {
+            ContentModel item = items.get(i);
+            if (item instanceof ShapePath) {
+                ShapePath shapePath = (ShapePath) item;
+                if (shapePath.isHidden()) {
+                    continue;
+                }
+                AnimatableShapeValue value = shapePath.getShapePath();
+                if (!value.isStatic()) {
+                    return false;
+                }
+                if (value.getKeyframes().isEmpty()) {
+                    continue;
+                }
+                ShapeData shapeData = value.getKeyframes().get(0).startValue;
+                if (shapeData == null) {
+                    continue;
+                }
+                Path shape = new Path();
+                MiscUtils.getPathFromData(shapeData, shape);
+                shape.setFillType(Path.FillType.EVEN_ODD);
+                outPath.addPath(shape);
+                bytes[0] += shapeData.getCurves().size() * BYTES_PER_CURVE;
+            } else if (item instanceof ShapeGroup) {
+                if (!addGroupPath((ShapeGroup) item, outPath, bytes)) {
+                    return false;
+                }
+            } else if (!(item instanceof ShapeFill || item instanceof ShapeStroke || item instanceof GradientFill
+                || item instanceof GradientStroke)) {
+                // Transforms, trim paths, merge paths, etc.
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Entry {
+        private final List<Path> paths;
+        private final long bytes;
+
+        private Entry(List<Path> paths, long bytes) {
+            this.paths = paths;
+            this.bytes = bytes;
+        }
+    }
+
+    private static final class Key {
+        private String fontFamily;
+        private String style;
+        private char character;
+
+        Key set(String fontFamily, String style, char character) {
+            this.fontFamily = fontFamily;
+            this.style = style;
+            this.character = character;
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return character == key.character && fontFamily.equals(key.fontFamily) && style.equals(key.style);
+        }
+
+        @Override
+        public int hashCode() {
+            return FontCharacter.hashFor(character, fontFamily, style);
+        }
+    }
+}
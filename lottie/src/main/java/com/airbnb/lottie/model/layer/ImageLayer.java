@@ -1,5 +1,7 @@
 package com.airbnb.lottie.model.layer;
 
+import com.airbnb.lottie.LottieComposition;
+import com.airbnb.lottie.LottieImageAsset;
 import com.airbnb.lottie.LottieProperty;
 import com.airbnb.lottie.animation.LPaint;
 import com.airbnb.lottie.animation.keyframe.BaseKeyframeAnimation;
@@ -7,11 +9,10 @@ import com.airbnb.lottie.animation.keyframe.ValueCallbackKeyframeAnimation;
 import com.airbnb.lottie.utils.Utils;
 import com.airbnb.lottie.value.LottieValueCallback;
 import com.airbnb.lottie.LottieDrawable;
+import com.airbnb.lottie.render.RenderTarget;
 
-import ohos.agp.render.Canvas;
 import ohos.agp.render.ColorFilter;
 import ohos.agp.render.Paint;
-import ohos.agp.render.PixelMapHolder;
 import ohos.agp.utils.Matrix;
 import ohos.agp.utils.RectFloat;
 import ohos.media.image.PixelMap;
@@ -35,7 +36,7 @@ public class ImageLayer extends BaseLayer {
     }
 
     @Override
-    void drawLayer(Canvas canvas, Matrix parentMatrix, float parentAlpha) {
+    void drawLayer(RenderTarget canvas, Matrix parentMatrix, float parentAlpha) {
         PixelMap pixelmap = getPixelmap();
         if (pixelmap == null) {
             return;
@@ -51,9 +52,9 @@ public class ImageLayer extends BaseLayer {
         canvas.save();
         canvas.concat(parentMatrix);
         src.modify(0, 0, pixelmap.getImageInfo().size.width, pixelmap.getImageInfo().size.height);
-        dst.modify(0, 0, (int) (pixelmap.getImageInfo().size.width * density),
-            (int) (pixelmap.getImageInfo().size.height * density));
-        canvas.drawPixelMapHolderRect(new PixelMapHolder(pixelmap), src, dst, lPaint);
+        // Images the pipeline decoded below their full size are drawn at the size of the asset.
+        dst.modify(0, 0, (int) (getImageWidth(pixelmap) * density), (int) (getImageHeight(pixelmap) * density));
+        canvas.drawPixelMap(pixelmap, src, dst, lPaint);
         canvas.restore();
     }
 
@@ -62,12 +63,38 @@ public class ImageLayer extends BaseLayer {
         super.getBounds(outBounds, parentMatrix, applyParents);
         PixelMap pixelmap = getPixelmap();
         if (pixelmap != null) {
-            outBounds.modify(0, 0, pixelmap.getImageInfo().size.width * Utils.dpScale(),
-                pixelmap.getImageInfo().size.height * Utils.dpScale());
+            outBounds.modify(0, 0, getImageWidth(pixelmap) * Utils.dpScale(),
+                getImageHeight(pixelmap) * Utils.dpScale());
             boundsMatrix.mapRect(outBounds);
         }
     }
 
+    private int getImageWidth(PixelMap pixelmap) {
+        LottieImageAsset asset = getImageAsset();
+        return isDecodedByPipeline(asset, pixelmap) && asset.getWidth() > 0
+            ? asset.getWidth() : pixelmap.getImageInfo().size.width;
+    }
+
+    private int getImageHeight(PixelMap pixelmap) {
+        LottieImageAsset asset = getImageAsset();
+        return isDecodedByPipeline(asset, pixelmap) && asset.getHeight() > 0
+            ? asset.getHeight() : pixelmap.getImageInfo().size.height;
+    }
+
+    /**
+     * Bitmaps from an {@link com.airbnb.lottie.ImageAssetDelegate}, from
+     * {@link LottieDrawable#updatePixelmap(String, PixelMap)} or bundled with the composition are set on the asset
+     * and drawn at their own size like before. Only bitmaps the image pipeline decoded, possibly downsampled, are not.
+     */
+    private static boolean isDecodedByPipeline(LottieImageAsset asset, PixelMap pixelmap) {
+        return asset != null && asset.getPixelmap() != pixelmap;
+    }
+
+    private LottieImageAsset getImageAsset() {
+        LottieComposition composition = lottieDrawable.getComposition();
+        return composition == null ? null : composition.getImages().get(layerModel.getRefId());
+    }
+
     private PixelMap getPixelmap() {
         String refId = layerModel.getRefId();
         return lottieDrawable.getImageAsset(refId);
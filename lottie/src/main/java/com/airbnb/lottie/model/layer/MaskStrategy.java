@@ -0,0 +1,155 @@
+package com.airbnb.lottie.model.layer;
+
+import com.airbnb.lottie.animation.keyframe.BaseKeyframeAnimation;
+import com.airbnb.lottie.animation.keyframe.MaskKeyframeAnimation;
+import com.airbnb.lottie.model.CubicCurveData;
+import com.airbnb.lottie.model.content.Mask;
+import com.airbnb.lottie.model.content.ShapeData;
+import com.airbnb.lottie.utils.Utils;
+import com.airbnb.lottie.value.Keyframe;
+
+import ohos.agp.utils.Matrix;
+import ohos.agp.utils.Point;
+
+import java.util.List;
+
+/**
+ * Decides how the masks of a layer get applied.
+ * <p>
+ * Masks are normally composited through an offscreen buffer with DST_IN/DST_OUT. When the masks are one
+ * non-inverted ADD mask optionally followed by non-inverted INTERSECT masks, all fully opaque, the result is
+ * the intersection of the mask paths which can be expressed with {@link ohos.agp.render.Canvas#clipPath}
+ * instead, saving both the content and the mask saveLayer.
+ * <p>
+ * Clips aren't anti-aliased while composited masks are, so clipping is only used when every mask is an axis aligned
+ * rectangle on every keyframe and the layer is only scaled, translated or rotated by a multiple of 90 degrees. The edges
+ * of such a clip run along pixel rows and columns, so at most the partially covered pixels along them differ from the
+ * composited mask.
+ */
+enum MaskStrategy {
+    /**
+     * Masks are applied with clip operations, no offscreen buffer is needed.
+     */
+    CLIP,
+    /**
+     * Masks need to be composited through an offscreen buffer.
+     */
+    OFFSCREEN;
+
+    /**
+     * Number of saveLayer calls that {@link #CLIP} avoids per draw: one for the content and one for the masks.
+     */
+    static final int SAVE_LAYERS_AVOIDED_BY_CLIP = 2;
+
+    /**
+     * Whether the mask modes and shapes allow clipping. This doesn't change over time so it is computed once per layer.
+     * @param masks masks of the layer
+     * @return true if the masks can be drawn with {@link #CLIP} whenever they are opaque and the layer matrix
+     *     preserves axes.
+     */
+    static boolean canClip(List<Mask> masks) {
+        if (masks.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < masks.size(); i++) {
+            Mask mask = masks.get(i);
+            if (mask.isInverted()) {
+                return false;
+            }
+            Mask.MaskMode expectedMode = i == 0 ? Mask.MaskMode.MASK_MODE_ADD : Mask.MaskMode.MASK_MODE_INTERSECT;
+            if (mask.getMaskMode() != expectedMode) {
+                return false;
+            }
+            if (!isAxisAlignedRectangle(mask.getMaskPath().getKeyframes())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks every keyframe of a mask path. The orientation of the first edge has to be the same on all of them so
+     * that the shapes interpolated between two keyframes are axis aligned rectangles as well.
+     */
+    private static boolean isAxisAlignedRectangle(List<Keyframe<ShapeData>> keyframes) {
+        if (keyframes.isEmpty()) {
+            return false;
+        }
+        Boolean firstEdgeHorizontal = null;
+        for (int i = 0; i < keyframes.size(); i++) {
+            Keyframe<ShapeData> keyframe = keyframes.get(i);
+            for (ShapeData shape : new ShapeData[] {keyframe.startValue, keyframe.endValue}) {
+                if (shape == null) {
+                    continue;
+                }
+                Boolean horizontal = firstEdgeHorizontal(shape);
+                if (horizontal == null || firstEdgeHorizontal != null && !firstEdgeHorizontal.equals(horizontal)) {
+                    return false;
+                }
+                firstEdgeHorizontal = horizontal;
+            }
+        }
+        return firstEdgeHorizontal != null;
+    }
+
+    /**
+     * @return whether the first edge of the shape is horizontal, or null if the shape isn't a closed axis aligned
+     *     rectangle made of straight lines
+     */
+    private static Boolean firstEdgeHorizontal(ShapeData shape) {
+        List<CubicCurveData> curves = shape.getCurves();
+        Point initialPoint = shape.getInitialPoint();
+        if (!shape.isClosed() || initialPoint == null || curves.size() < 3 || curves.size() > 4) {
+            return null;
+        }
+        Point[] corners = new Point[4];
+        corners[0] = initialPoint;
+        Point previous = initialPoint;
+        for (int i = 0; i < curves.size(); i++) {
+            CubicCurveData curve = curves.get(i);
+            // Straight lines are stored with control points on their end points, see MiscUtils#getPathFromData.
+            if (!curve.getControlPoint1().equals(previous) || !curve.getControlPoint2().equals(curve.getVertex())) {
+                return null;
+            }
+            previous = curve.getVertex();
+            if (i < 3) {
+                corners[i + 1] = previous;
+            } else if (!previous.equals(initialPoint)) {
+                return null;
+            }
+        }
+        boolean horizontal = corners[0].getPointY() == corners[1].getPointY();
+        for (int i = 0; i < 4; i++) {
+            Point from = corners[i];
+            Point to = corners[(i + 1) % 4];
+            boolean edgeHorizontal = (i % 2 == 0) == horizontal;
+            if (edgeHorizontal ? from.getPointY() != to.getPointY() : from.getPointX() != to.getPointX()) {
+                return null;
+            }
+        }
+        return horizontal;
+    }
+
+    /**
+     * Picks the strategy for the current frame.
+     * @param mask mask animations of the layer
+     * @param canClip result of {@link #canClip(List)} for the same masks
+     * @param parentMatrix matrix of the parent layers
+     * @param layerMatrix matrix of the layer's own transform
+     * @return strategy to use for this frame
+     */
+    static MaskStrategy forFrame(MaskKeyframeAnimation mask, boolean canClip, Matrix parentMatrix,
+        Matrix layerMatrix) {
+        if (!canClip || !Utils.preservesAxes(parentMatrix) || !Utils.preservesAxes(layerMatrix)) {
+            return OFFSCREEN;
+        }
+        List<BaseKeyframeAnimation<Integer, Integer>> opacityAnimations = mask.getOpacityAnimations();
+        for (int i = 0; i < opacityAnimations.size(); i++) {
+            Integer opacity = opacityAnimations.get(i).getValue();
+            if (opacity == null || opacity < 100) {
+                return OFFSCREEN;
+            }
+        }
+        return CLIP;
+    }
+}
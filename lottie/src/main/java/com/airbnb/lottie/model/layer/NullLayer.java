@@ -1,7 +1,7 @@
 package com.airbnb.lottie.model.layer;
 
 import com.airbnb.lottie.LottieDrawable;
-import ohos.agp.render.Canvas;
+import com.airbnb.lottie.render.RenderTarget;
 import ohos.agp.utils.Matrix;
 import ohos.agp.utils.RectFloat;
 
@@ -12,7 +12,7 @@ public class NullLayer extends BaseLayer {
     }
 
     @Override
-    void drawLayer(Canvas canvas, Matrix parentMatrix, float parentAlpha) {
+    void drawLayer(RenderTarget canvas, Matrix parentMatrix, float parentAlpha) {
         //do nothing
     }
 
@@ -5,7 +5,7 @@ import com.airbnb.lottie.animation.content.ContentGroup;
 import com.airbnb.lottie.model.content.ShapeGroup;
 import com.airbnb.lottie.LottieDrawable;
 import com.airbnb.lottie.model.KeyPath;
-import ohos.agp.render.Canvas;
+import com.airbnb.lottie.render.RenderTarget;
 import ohos.agp.utils.Matrix;
 import ohos.agp.utils.RectFloat;
 import org.jetbrains.annotations.NotNull;
@@ -26,7 +26,7 @@ public class ShapeLayer extends BaseLayer {
     }
 
     @Override
-    void drawLayer(@NotNull Canvas canvas, Matrix parentMatrix, float parentAlpha) {
+    void drawLayer(@NotNull RenderTarget canvas, Matrix parentMatrix, float parentAlpha) {
         contentGroup.draw(canvas, parentMatrix, parentAlpha);
 
     }
@@ -6,8 +6,8 @@ import com.airbnb.lottie.animation.keyframe.BaseKeyframeAnimation;
 import com.airbnb.lottie.animation.keyframe.ValueCallbackKeyframeAnimation;
 import com.airbnb.lottie.value.LottieValueCallback;
 import com.airbnb.lottie.LottieDrawable;
+import com.airbnb.lottie.render.RenderTarget;
 
-import ohos.agp.render.Canvas;
 import ohos.agp.render.ColorFilter;
 import ohos.agp.render.Paint;
 import ohos.agp.render.Path;
@@ -36,7 +36,7 @@ public class SolidLayer extends BaseLayer {
 
 
     @Override
-    public void drawLayer(Canvas canvas, Matrix parentMatrix, float parentAlpha) {
+    public void drawLayer(RenderTarget canvas, Matrix parentMatrix, float parentAlpha) {
 
         int backgroundAlpha = Color.alpha(layerModel.getSolidColor());
         if (backgroundAlpha == 0) {
@@ -15,8 +15,8 @@ import com.airbnb.lottie.LottieDrawable;
 import com.airbnb.lottie.model.DocumentData;
 import com.airbnb.lottie.model.Font;
 import com.airbnb.lottie.model.FontCharacter;
+import com.airbnb.lottie.render.RenderTarget;
 
-import ohos.agp.render.Canvas;
 import ohos.agp.render.Paint;
 import ohos.agp.render.Path;
 import ohos.agp.utils.Color;
@@ -28,14 +28,26 @@ import org.jetbrains.annotations.Nullable;
 import java.util.*;
 
 public class TextLayer extends BaseLayer {
+    private static final String LAYOUT_CACHE_NAME = "TextLayer#layout";
+
+    /**
+     * Number of layouts kept per layer. Text keyframes usually alternate between a handful of strings.
+     */
+    private static final int MAX_CACHED_LAYOUTS = 4;
+
+    /**
+     * Sentinel for a paint color that hasn't been set yet. Colors are ints so this can never match one.
+     */
+    private static final long UNSET_COLOR = Long.MIN_VALUE;
+
     // Capacity is 2 because emojis are 2 characters. Some are longer in which case, the capacity will
     // be expanded but that should be pretty rare.
     private final StringBuilder stringBuilder = new StringBuilder(2);
 
-    private final RectFloat rectF = new RectFloat();
-
     private final Matrix matrix = new Matrix();
 
+    private final Path glyphPath = new Path();
+
     private final Paint fillPaint = new Paint() {{
         setStyle(Style.FILL_STYLE);
     }};
@@ -48,6 +60,15 @@ public class TextLayer extends BaseLayer {
 
     private final LongPlainArray<String> codePointCache = new LongPlainArray<String>();
 
+    /**
+     * Most recently used layouts first.
+     */
+    private final List<TextLayout> textLayouts = new ArrayList<>(MAX_CACHED_LAYOUTS);
+
+    private long fillPaintColor = UNSET_COLOR;
+
+    private long strokePaintColor = UNSET_COLOR;
+
     private final TextKeyframeAnimation textAnimation;
 
     private final LottieDrawable lottieDrawable;
@@ -116,7 +137,7 @@ public class TextLayer extends BaseLayer {
     }
 
     @Override
-    void drawLayer(Canvas canvas, Matrix parentMatrix, float parentAlpha) {
+    void drawLayer(RenderTarget canvas, Matrix parentMatrix, float parentAlpha) {
         canvas.save();
         if (!lottieDrawable.useTextGlyphs()) {
             canvas.concat(parentMatrix);
@@ -129,20 +150,30 @@ public class TextLayer extends BaseLayer {
             return;
         }
 
+        int fillColor;
         if (colorCallbackAnimation != null) {
-            fillPaint.setColor(new Color(colorCallbackAnimation.getValue()));
+            fillColor = colorCallbackAnimation.getValue();
         } else if (colorAnimation != null) {
-            fillPaint.setColor(new Color(colorAnimation.getValue()));
+            fillColor = colorAnimation.getValue();
         } else {
-            fillPaint.setColor(new Color(documentData.color));
+            fillColor = documentData.color;
+        }
+        if (fillPaintColor != fillColor) {
+            fillPaint.setColor(new Color(fillColor));
+            fillPaintColor = fillColor;
         }
 
+        int strokeColor;
         if (strokeColorCallbackAnimation != null) {
-            strokePaint.setColor(new Color(strokeColorCallbackAnimation.getValue()));
+            strokeColor = strokeColorCallbackAnimation.getValue();
         } else if (strokeColorAnimation != null) {
-            strokePaint.setColor(new Color(strokeColorAnimation.getValue()));
+            strokeColor = strokeColorAnimation.getValue();
         } else {
-            strokePaint.setColor(new Color(documentData.strokeColor));
+            strokeColor = documentData.strokeColor;
+        }
+        if (strokePaintColor != strokeColor) {
+            strokePaint.setColor(new Color(strokeColor));
+            strokePaintColor = strokeColor;
         }
         int opacity = transform.getOpacity() == null ? 100 : transform.getOpacity().getValue();
         int alpha = opacity * 255 / 100;
@@ -168,82 +199,84 @@ public class TextLayer extends BaseLayer {
     }
 
     private void drawTextGlyphs(DocumentData documentData, Matrix parentMatrix, Font font,
-        Canvas canvas) {
-        float textSize;
-        if (textSizeCallbackAnimation != null) {
-            textSize = textSizeCallbackAnimation.getValue();
-        } else if (textSizeAnimation != null) {
-            textSize = textSizeAnimation.getValue();
-        } else {
-            textSize = documentData.size;
-        }
+        RenderTarget canvas) {
+        float textSize = getTextSize(documentData);
         float fontScale = textSize / 100f;
         float parentScale = Utils.getScale(parentMatrix);
-
-        String text = documentData.text;
-
+        float tracking = getTracking(documentData);
         // Line height
         float lineHeight = documentData.lineHeight * Utils.dpScale();
 
-        // Split full text in multiple lines
-        List<String> textLines = getTextLines(text);
-        int textLineCount = textLines.size();
-        for (int l = 0; l < textLineCount; l++) {
-
-            String textLine = textLines.get(l);
-            float textLineWidth = getTextLineWidthForGlyphs(textLine, font, fontScale, parentScale);
+        TextLayout layout = getCachedLayout(documentData.text, font, textSize, tracking, lineHeight,
+            documentData.justification);
+        if (layout == null) {
+            layout = buildGlyphLayout(documentData.text, font, textSize, tracking, lineHeight,
+                documentData.justification);
+            cacheLayout(layout);
+        }
 
+        for (int l = 0; l < layout.getLineCount(); l++) {
             canvas.save();
-
-            // Apply horizontal justification
-            applyJustification(documentData.justification, canvas, textLineWidth);
-
-            // Center text vertically
-            float multilineTranslateY = (textLineCount - 1) * lineHeight / 2;
-            float translateY = l * lineHeight - multilineTranslateY;
-            canvas.translate(0, translateY);
+            // Apply horizontal justification and center text vertically
+            canvas.translate(layout.lineOffsetsX[l] * parentScale, layout.lineOffsetsY[l]);
 
             // Draw each line
-            drawGlyphTextLine(textLine, documentData, parentMatrix, font, canvas, parentScale, fontScale);
+            FontCharacter[] characters = layout.lineCharacters[l];
+            float[] advances = layout.advances[l];
+            for (int i = 0; i < characters.length; i++) {
+                if (characters[i] == null) {
+                    // Something is wrong. Potentially, they didn't export the text as a glyph.
+                    continue;
+                }
+                drawCharacterAsGlyph(characters[i], parentMatrix, fontScale, documentData, canvas);
+                canvas.translate(advances[i] * parentScale, 0);
+            }
 
             // Reset canvas
             canvas.restore();
         }
     }
 
-    private void drawGlyphTextLine(String text, DocumentData documentData, Matrix parentMatrix,
-        Font font, Canvas canvas, float parentScale, float fontScale) {
-        for (int i = 0; i < text.length(); i++) {
-            char c = text.charAt(i);
-            int characterHash = FontCharacter.hashFor(c, font.getFamily(), font.getStyle());
-            Optional<FontCharacter> optVal = composition.getCharacters().get(characterHash);
-            FontCharacter character = null;
-            if(null != optVal && optVal.isPresent())
-            {
-                character = optVal.get();
+    private TextLayout buildGlyphLayout(String text, Font font, float textSize, float tracking, float lineHeight,
+        DocumentData.Justification justification) {
+        float fontScale = textSize / 100f;
+        // Split full text in multiple lines
+        List<String> textLines = getTextLines(text);
+        int textLineCount = textLines.size();
+        FontCharacter[][] lineCharacters = new FontCharacter[textLineCount][];
+        float[][] advances = new float[textLineCount][];
+        float[] lineWidths = new float[textLineCount];
+        for (int l = 0; l < textLineCount; l++) {
+            String textLine = textLines.get(l);
+            lineCharacters[l] = new FontCharacter[textLine.length()];
+            advances[l] = new float[textLine.length()];
+            for (int i = 0; i < textLine.length(); i++) {
+                FontCharacter character = getCharacter(textLine.charAt(i), font);
+                if (character == null) {
+                    continue;
+                }
+                float width = (float) character.getWidth() * fontScale * Utils.dpScale();
+                lineCharacters[l][i] = character;
+                advances[l][i] = width + tracking;
+                lineWidths[l] += width;
             }
+        }
+        return new TextLayout(text, font.getFamily(), font.getStyle(), textSize, tracking, lineHeight, justification,
+            null, lineCharacters, advances, lineWidths);
+    }
 
-            if (character == null) {
-                // Something is wrong. Potentially, they didn't export the text as a glyph.
-                continue;
-            }
-            drawCharacterAsGlyph(character, parentMatrix, fontScale, documentData, canvas);
-            float tx = (float) character.getWidth() * fontScale * Utils.dpScale() * parentScale;
-            // Add tracking
-            float tracking = documentData.tracking / 10f;
-            if (trackingCallbackAnimation != null) {
-                tracking += trackingCallbackAnimation.getValue();
-            } else if (trackingAnimation != null) {
-                tracking += trackingAnimation.getValue();
-            }
-            tx += tracking * parentScale;
-            canvas.translate(tx, 0);
+    @Nullable
+    private FontCharacter getCharacter(char c, Font font) {
+        int characterHash = FontCharacter.hashFor(c, font.getFamily(), font.getStyle());
+        Optional<FontCharacter> optVal = composition.getCharacters().get(characterHash);
+        if (null != optVal && optVal.isPresent()) {
+            return optVal.get();
         }
+        return null;
     }
 
     private void drawTextWithFont(DocumentData documentData, Font font, Matrix parentMatrix,
-        Canvas canvas) {
-        float parentScale = Utils.getScale(parentMatrix);
+        RenderTarget canvas) {
         ohos.agp.text.Font typeface = lottieDrawable.getTypeface(font.getFamily(), font.getStyle());
         if (typeface == null) {
             return;
@@ -254,14 +287,7 @@ public class TextLayer extends BaseLayer {
             text = textDelegate.getTextInternal(text);
         }
         fillPaint.setFont(typeface);
-        float textSize;
-        if (textSizeCallbackAnimation != null) {
-            textSize = textSizeCallbackAnimation.getValue();
-        } else if (textSizeAnimation != null) {
-            textSize = textSizeAnimation.getValue();
-        } else {
-            textSize = documentData.size;
-        }
+        float textSize = getTextSize(documentData);
         fillPaint.setTextSize((int) (textSize * Utils.dpScale()));
         strokePaint.setFont(fillPaint.getFont());
         strokePaint.setTextSize(fillPaint.getTextSize());
@@ -270,36 +296,110 @@ public class TextLayer extends BaseLayer {
         float lineHeight = documentData.lineHeight * Utils.dpScale();
 
         // Calculate tracking
-        float tracking = documentData.tracking / 10f;
-        if (trackingCallbackAnimation != null) {
-            tracking += trackingCallbackAnimation.getValue();
-        } else if (trackingAnimation != null) {
-            tracking += trackingAnimation.getValue();
+        float tracking = getTracking(documentData) * Utils.dpScale() * textSize / 100.0f;
+
+        TextLayout layout = getCachedLayout(text, font, textSize, tracking, lineHeight, documentData.justification);
+        if (layout == null) {
+            layout = buildFontLayout(text, font, textSize, tracking, lineHeight, documentData.justification);
+            cacheLayout(layout);
+        }
+
+        for (int l = 0; l < layout.getLineCount(); l++) {
+            canvas.save();
+            // Apply horizontal justification and center text vertically
+            canvas.translate(layout.lineOffsetsX[l], layout.lineOffsetsY[l]);
+
+            // Draw each line
+            String[] glyphs = layout.lineGlyphs[l];
+            float[] advances = layout.advances[l];
+            for (int i = 0; i < glyphs.length; i++) {
+                drawCharacterFromFont(glyphs[i], documentData, canvas);
+                canvas.translate(advances[i], 0);
+            }
+
+            // Reset canvas
+            canvas.restore();
         }
-        tracking = tracking * Utils.dpScale() * textSize / 100.0f;
+    }
+
+    /**
+     * Measures the text with the paints, which must already have the font and text size set.
+     */
+    private TextLayout buildFontLayout(String text, Font font, float textSize, float tracking, float lineHeight,
+        DocumentData.Justification justification) {
         // Split full text in multiple lines
         List<String> textLines = getTextLines(text);
         int textLineCount = textLines.size();
+        String[][] lineGlyphs = new String[textLineCount][];
+        float[][] advances = new float[textLineCount][];
+        float[] lineWidths = new float[textLineCount];
+        List<String> glyphs = new ArrayList<>();
         for (int l = 0; l < textLineCount; l++) {
-
             String textLine = textLines.get(l);
             // We have to manually add the tracking between characters as the strokePaint ignores it
-            float textLineWidth = strokePaint.measureText(textLine) + (textLine.length() - 1) * tracking;
-            canvas.save();
-            // Apply horizontal justification
-            applyJustification(documentData.justification, canvas, textLineWidth);
+            lineWidths[l] = strokePaint.measureText(textLine) + (textLine.length() - 1) * tracking;
 
-            // Center text vertically
-            float multilineTranslateY = (textLineCount - 1) * lineHeight / 2;
-            float translateY = l * lineHeight - multilineTranslateY;
-            canvas.translate(0, translateY);
+            glyphs.clear();
+            for (int i = 0; i < textLine.length(); ) {
+                String charString = codePointToString(textLine, i);
+                i += charString.length();
+                glyphs.add(charString);
+            }
+            lineGlyphs[l] = glyphs.toArray(new String[0]);
+            advances[l] = new float[lineGlyphs[l].length];
+            for (int i = 0; i < lineGlyphs[l].length; i++) {
+                advances[l][i] = fillPaint.measureText(lineGlyphs[l][i]) + tracking;
+            }
+        }
+        return new TextLayout(text, font.getFamily(), font.getStyle(), textSize, tracking, lineHeight, justification,
+            lineGlyphs, null, advances, lineWidths);
+    }
 
-            // Draw each line
-            drawFontTextLine(textLine, documentData, canvas, tracking);
+    @Nullable
+    private TextLayout getCachedLayout(String text, Font font, float textSize, float tracking, float lineHeight,
+        DocumentData.Justification justification) {
+        boolean useGlyphs = lottieDrawable.useTextGlyphs();
+        for (int i = 0; i < textLayouts.size(); i++) {
+            TextLayout layout = textLayouts.get(i);
+            if ((layout.lineCharacters != null) == useGlyphs
+                && layout.matches(text, font.getFamily(), font.getStyle(), textSize, tracking, lineHeight,
+                justification)) {
+                if (i != 0) {
+                    textLayouts.remove(i);
+                    textLayouts.add(0, layout);
+                }
+                lottieDrawable.recordCacheAccess(LAYOUT_CACHE_NAME, true);
+                return layout;
+            }
+        }
+        lottieDrawable.recordCacheAccess(LAYOUT_CACHE_NAME, false);
+        return null;
+    }
 
-            // Reset canvas
-            canvas.restore();
+    private void cacheLayout(TextLayout layout) {
+        if (textLayouts.size() == MAX_CACHED_LAYOUTS) {
+            textLayouts.remove(MAX_CACHED_LAYOUTS - 1);
         }
+        textLayouts.add(0, layout);
+    }
+
+    private float getTextSize(DocumentData documentData) {
+        if (textSizeCallbackAnimation != null) {
+            return textSizeCallbackAnimation.getValue();
+        } else if (textSizeAnimation != null) {
+            return textSizeAnimation.getValue();
+        }
+        return documentData.size;
+    }
+
+    private float getTracking(DocumentData documentData) {
+        float tracking = documentData.tracking / 10f;
+        if (trackingCallbackAnimation != null) {
+            tracking += trackingCallbackAnimation.getValue();
+        } else if (trackingAnimation != null) {
+            tracking += trackingAnimation.getValue();
+        }
+        return tracking;
     }
 
     private List<String> getTextLines(String text) {
@@ -309,73 +409,40 @@ public class TextLayer extends BaseLayer {
         return Arrays.asList(textLinesArray);
     }
 
-  private void drawFontTextLine(String text, DocumentData documentData, Canvas canvas, float tracking) {
-        for (int i = 0; i < text.length(); ) {
-            String charString = codePointToString(text, i);
-            i += charString.length();
-            drawCharacterFromFont(charString, documentData, canvas);
-            float charWidth = fillPaint.measureText(charString);
-            float tx = charWidth + tracking;
-            canvas.translate(tx, 0);
-        }
-    }
-
-    private float getTextLineWidthForGlyphs(String textLine, Font font, float fontScale, float parentScale) {
-        float textLineWidth = 0;
-        for (int i = 0; i < textLine.length(); i++) {
-            char c = textLine.charAt(i);
-            int characterHash = FontCharacter.hashFor(c, font.getFamily(), font.getStyle());
-
-            Optional<FontCharacter> optVal = composition.getCharacters().get(characterHash);
-            FontCharacter character = null;
-            if(null != optVal && optVal.isPresent())
-            {
-                character = optVal.get();
-            }
-            if (character == null) {
-                continue;
+    private void drawCharacterAsGlyph(FontCharacter character, Matrix parentMatrix, float fontScale,
+        DocumentData documentData, RenderTarget canvas) {
+        matrix.setMatrix(parentMatrix);
+        matrix.preTranslate(0, -documentData.baselineShift * Utils.dpScale());
+        matrix.preScale(fontScale, fontScale);
+
+        List<Path> glyphPaths = GlyphPathCache.getInstance().getPaths(character);
+        if (glyphPaths != null) {
+            for (int j = 0; j < glyphPaths.size(); j++) {
+                // Cached paths are shared so they have to be copied before being transformed.
+                glyphPath.set(glyphPaths.get(j));
+                drawGlyphPath(glyphPath, documentData, canvas);
             }
-            textLineWidth += character.getWidth() * fontScale * Utils.dpScale() * parentScale;
+            return;
         }
-        return textLineWidth;
-    }
 
-    private void applyJustification(DocumentData.Justification justification, Canvas canvas,
-                                    float textLineWidth) {
-        switch (justification) {
-            case LEFT_ALIGN:
-                // Do nothing. Default is left aligned.
-                break;
-            case RIGHT_ALIGN:
-                canvas.translate(-textLineWidth, 0);
-                break;
-            case CENTER:
-                canvas.translate(-textLineWidth / 2, 0);
-                break;
+        List<ContentGroup> contentGroups = getContentsForCharacter(character);
+        for (int j = 0; j < contentGroups.size(); j++) {
+            drawGlyphPath(contentGroups.get(j).getPath(), documentData, canvas);
         }
     }
 
-    private void drawCharacterAsGlyph(FontCharacter character, Matrix parentMatrix, float fontScale,
-        DocumentData documentData, Canvas canvas) {
-        List<ContentGroup> contentGroups = getContentsForCharacter(character);
-        for (int j = 0; j < contentGroups.size(); j++) {
-            Path path = contentGroups.get(j).getPath();
-            path.computeBounds(rectF);
-            matrix.setMatrix(parentMatrix);
-            matrix.preTranslate(0, -documentData.baselineShift * Utils.dpScale());
-            matrix.preScale(fontScale, fontScale);
-            path.transform(matrix);
-            if (documentData.strokeOverFill) {
-                drawGlyph(path, fillPaint, canvas);
-                drawGlyph(path, strokePaint, canvas);
-            } else {
-                drawGlyph(path, strokePaint, canvas);
-                drawGlyph(path, fillPaint, canvas);
-            }
+    private void drawGlyphPath(Path path, DocumentData documentData, RenderTarget canvas) {
+        path.transform(matrix);
+        if (documentData.strokeOverFill) {
+            drawGlyph(path, fillPaint, canvas);
+            drawGlyph(path, strokePaint, canvas);
+        } else {
+            drawGlyph(path, strokePaint, canvas);
+            drawGlyph(path, fillPaint, canvas);
         }
     }
 
-    private void drawGlyph(Path path, Paint paint, Canvas canvas) {
+    private void drawGlyph(Path path, Paint paint, RenderTarget canvas) {
         if (paint.getColor() == Color.TRANSPARENT) {
             return;
         }
@@ -385,7 +452,7 @@ public class TextLayer extends BaseLayer {
         canvas.drawPath(path, paint);
     }
 
-    private void drawCharacterFromFont(String character, DocumentData documentData, Canvas canvas) {
+    private void drawCharacterFromFont(String character, DocumentData documentData, RenderTarget canvas) {
         if (documentData.strokeOverFill) {
             drawCharacter(character, fillPaint, canvas);
             drawCharacter(character, strokePaint, canvas);
@@ -395,7 +462,7 @@ public class TextLayer extends BaseLayer {
         }
     }
 
-    private void drawCharacter(String character, Paint paint, Canvas canvas) {
+    private void drawCharacter(String character, Paint paint, RenderTarget canvas) {
         if (paint.getColor() == Color.TRANSPARENT) {
             return;
         }
@@ -0,0 +1,94 @@
+package com.airbnb.lottie.model.layer;
+
+import com.airbnb.lottie.model.DocumentData;
+import com.airbnb.lottie.model.FontCharacter;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Line breaks, per glyph advances and line offsets of a piece of text, computed once by {@link TextLayer} and reused
+ * for every frame in which the text, font, size, tracking, line height and justification stay the same.
+ * <p>
+ * When drawing with glyphs, widths and advances exclude the parent scale since that changes with the transform.
+ * Multiply them by it at draw time.
+ */
+final class TextLayout {
+    final String text;
+    final String fontFamily;
+    final String fontStyle;
+    final float textSize;
+    final float tracking;
+    final float lineHeight;
+    final DocumentData.Justification justification;
+
+    /**
+     * Grapheme strings of each line. Only set when drawing with a font.
+     */
+    @Nullable final String[][] lineGlyphs;
+
+    /**
+     * Characters of each line, null for characters that weren't exported as glyphs. Only set when drawing with glyphs.
+     */
+    @Nullable final FontCharacter[][] lineCharacters;
+
+    /**
+     * Horizontal advance, tracking included, after each glyph of each line.
+     */
+    final float[][] advances;
+
+    /**
+     * Horizontal offset of each line from justification.
+     */
+    final float[] lineOffsetsX;
+
+    /**
+     * Vertical offset of each line that centers the block of lines.
+     */
+    final float[] lineOffsetsY;
+
+    TextLayout(String text, String fontFamily, String fontStyle, float textSize, float tracking, float lineHeight,
+        DocumentData.Justification justification, @Nullable String[][] lineGlyphs,
+        @Nullable FontCharacter[][] lineCharacters, float[][] advances, float[] lineWidths) {
+        this.text = text;
+        this.fontFamily = fontFamily;
+        this.fontStyle = fontStyle;
+        this.textSize = textSize;
+        this.tracking = tracking;
+        this.lineHeight = lineHeight;
+        this.justification = justification;
+        this.lineGlyphs = lineGlyphs;
+        this.lineCharacters = lineCharacters;
+        this.advances = advances;
+
+        int lineCount = lineWidths.length;
+        lineOffsetsX = new float[lineCount];
+        lineOffsetsY = new float[lineCount];
+        float multilineTranslateY = (lineCount - 1) * lineHeight / 2;
+        for (int l = 0; l < lineCount; l++) {
+            switch (justification) {
+                case RIGHT_ALIGN:
+                    lineOffsetsX[l] = -lineWidths[l];
+                    break;
+                case CENTER:
+                    lineOffsetsX[l] = -lineWidths[l] / 2;
+                    break;
+                case LEFT_ALIGN:
+                default:
+                    // Do nothing. Default is left aligned.
+                    break;
+            }
+            lineOffsetsY[l] = l * lineHeight - multilineTranslateY;
+        }
+    }
+
+    int getLineCount() {
+        return lineOffsetsY.length;
+    }
+
+    boolean matches(String text, String fontFamily, String fontStyle, float textSize, float tracking,
+        float lineHeight, DocumentData.Justification justification) {
+        return this.textSize == textSize && this.tracking == tracking && this.lineHeight == lineHeight
+            && this.justification == justification && this.text.equals(text)
+            && this.fontFamily.equals(fontFamily) && this.fontStyle.equals(fontStyle);
+    }
+}
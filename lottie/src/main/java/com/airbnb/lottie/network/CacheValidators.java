@@ -0,0 +1,94 @@
+package com.airbnb.lottie.network;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Locale;
+
+/**
+ * HTTP validators and freshness of a cached network animation, used to revalidate it with a conditional request
+ * instead of downloading it again.
+ */
+public final class CacheValidators {
+    @Nullable private final String etag;
+
+    @Nullable private final String lastModified;
+
+    /**
+     * Time in ms since the epoch until which the cached animation may be used without revalidating it, 0 if it must
+     * always be revalidated.
+     */
+    private final long expiresAt;
+
+    public CacheValidators(@Nullable String etag, @Nullable String lastModified, long expiresAt) {
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Reads the ETag, Last-Modified and Cache-Control max-age of a response.
+     * @param result response
+     * @param now current time in ms since the epoch
+     * @return validators of the response
+     */
+    static CacheValidators fromResult(LottieFetchResult result, long now) {
+        return new CacheValidators(result.header("ETag"), result.header("Last-Modified"),
+            now + maxAgeSeconds(result.header("Cache-Control")) * 1000L);
+    }
+
+    /**
+     * Keeps the validators the server didn't send again with a 304 but takes the new freshness.
+     * @param notModified 304 response
+     * @param now current time in ms since the epoch
+     * @return updated validators
+     */
+    CacheValidators revalidated(LottieFetchResult notModified, long now) {
+        CacheValidators fresh = fromResult(notModified, now);
+        return new CacheValidators(fresh.etag != null ? fresh.etag : etag,
+            fresh.lastModified != null ? fresh.lastModified : lastModified, fresh.expiresAt);
+    }
+
+    private static long maxAgeSeconds(@Nullable String cacheControl) {
+        if (cacheControl == null) {
+            return 0;
+        }
+        long maxAge = 0;
+        // no-cache and no-store win over max-age wherever they appear.
+        for (String directive : cacheControl.split(",")) {
+            directive = directive.trim().toLowerCase(Locale.ROOT);
+            if (directive.equals("no-cache") || directive.equals("no-store")) {
+                return 0;
+            }
+            if (directive.startsWith("max-age=")) {
+                try {
+                    maxAge = Math.max(0, Long.parseLong(directive.substring("max-age=".length()).trim()));
+                } catch (NumberFormatException e) {
+                    maxAge = 0;
+                }
+            }
+        }
+        return maxAge;
+    }
+
+    @Nullable
+    public String getEtag() {
+        return etag;
+    }
+
+    @Nullable
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean isFresh(long now) {
+        return now < expiresAt;
+    }
+
+    public boolean canRevalidate() {
+        return etag != null || lastModified != null;
+    }
+}
@@ -12,6 +12,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
+import java.util.zip.GZIPInputStream;
 
 public class DefaultLottieFetchResult implements LottieFetchResult {
 
@@ -31,7 +32,7 @@ public class DefaultLottieFetchResult implements LottieFetchResult {
   }
 
   @NotNull @Override public InputStream bodyByteStream() throws IOException {
-    return connection.getInputStream();
+    return decode(connection.getInputStream());
   }
 
   @Nullable
@@ -39,6 +40,19 @@ public class DefaultLottieFetchResult implements LottieFetchResult {
     return connection.getContentType();
   }
 
+  @Nullable
+  @Override public String header(@NotNull String name) {
+    return connection.getHeaderField(name);
+  }
+
+  @Override public boolean isNotModified() {
+    try {
+      return connection.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
   @Nullable @Override public String error() {
     try {
       return isSuccessful() ? null :
@@ -49,12 +63,31 @@ public class DefaultLottieFetchResult implements LottieFetchResult {
     }
   }
 
+  /**
+   * Closes the response stream instead of disconnecting so that HttpURLConnection can keep the connection alive and
+   * reuse it for the next request to the same host.
+   */
   @Override public void close() {
-    connection.disconnect();
+    try {
+      InputStream stream = connection.getResponseCode() >= HttpURLConnection.HTTP_BAD_REQUEST
+          ? connection.getErrorStream() : connection.getInputStream();
+      if (stream != null) {
+        stream.close();
+      }
+    } catch (IOException e) {
+      connection.disconnect();
+    }
+  }
+
+  private InputStream decode(InputStream inputStream) throws IOException {
+    if ("gzip".equalsIgnoreCase(connection.getContentEncoding())) {
+      return new GZIPInputStream(inputStream, 8192);
+    }
+    return inputStream;
   }
 
   private String getErrorFromConnection(HttpURLConnection connection) throws IOException {
-    BufferedReader r = new BufferedReader(new InputStreamReader(connection.getErrorStream()));
+    BufferedReader r = new BufferedReader(new InputStreamReader(decode(connection.getErrorStream())));
     StringBuilder error = new StringBuilder();
     String line;
 
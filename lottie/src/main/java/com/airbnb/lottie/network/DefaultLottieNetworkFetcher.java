@@ -11,9 +11,31 @@ public class DefaultLottieNetworkFetcher implements LottieNetworkFetcher {
   @Override
   @NotNull
   public LottieFetchResult fetchSync(@NotNull String url) throws IOException {
-    final HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-    connection.setRequestMethod("GET");
+    final HttpURLConnection connection = openConnection(url);
+    connection.connect();
+    return new DefaultLottieFetchResult(connection);
+  }
+
+  @Override
+  @NotNull
+  public LottieFetchResult fetchSync(@NotNull String url, @NotNull CacheValidators validators) throws IOException {
+    final HttpURLConnection connection = openConnection(url);
+    if (validators.getEtag() != null) {
+      connection.setRequestProperty("If-None-Match", validators.getEtag());
+    }
+    if (validators.getLastModified() != null) {
+      connection.setRequestProperty("If-Modified-Since", validators.getLastModified());
+    }
     connection.connect();
     return new DefaultLottieFetchResult(connection);
   }
+
+  private HttpURLConnection openConnection(String url) throws IOException {
+    final HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+    connection.setRequestMethod("GET");
+    // Bodymovin json is very repetitive and typically shrinks to a fifth of its size. HttpURLConnection doesn't
+    // decompress responses by itself once this header is set, DefaultLottieFetchResult does.
+    connection.setRequestProperty("Accept-Encoding", "gzip");
+    return connection;
+  }
 }
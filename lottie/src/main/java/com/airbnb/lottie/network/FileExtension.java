@@ -8,6 +8,10 @@ import com.airbnb.lottie.utils.HMOSLogUtil;
  */
 public enum FileExtension {
     JSON(".json"),
+    /**
+     * Json stored gzipped in the network cache. Responses are never reported with this type.
+     */
+    JSON_GZIP(".json.gz"),
     ZIP(".zip");
 
     public final String extension;
@@ -38,4 +38,22 @@ public interface LottieFetchResult extends Closeable {
    */
   @Nullable
   String error();
+
+  /**
+   * Value of a response header
+   * @param name header name
+   * @return the header value or null if the response doesn't have it
+   */
+  @Nullable
+  default String header(@NotNull String name) {
+    return null;
+  }
+
+  /**
+   * Whether the server answered a conditional request with 304 Not Modified
+   * @return true if the cached animation is still valid
+   */
+  default boolean isNotModified() {
+    return false;
+  }
 }
@@ -15,4 +15,17 @@ import java.io.IOException;
 public interface LottieNetworkFetcher {
   @NotNull
   LottieFetchResult fetchSync(@NotNull String url) throws IOException;
+
+  /**
+   * Fetches the url with a conditional request using the validators of a cached copy. Fetchers that don't support
+   * conditional requests fall back to a regular fetch, which simply downloads the animation again.
+   * @param url animation url
+   * @param validators validators of the cached copy
+   * @throws IOException
+   * @return the result, {@link LottieFetchResult#isNotModified()} if the cached copy is still valid
+   */
+  @NotNull
+  default LottieFetchResult fetchSync(@NotNull String url, @NotNull CacheValidators validators) throws IOException {
+    return fetchSync(url);
+  }
 }
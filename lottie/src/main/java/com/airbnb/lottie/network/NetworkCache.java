@@ -2,37 +2,174 @@ package com.airbnb.lottie.network;
 
 import com.airbnb.lottie.L;
 import com.airbnb.lottie.utils.HMOSLogUtil;
-import ohos.app.Context;
+import com.airbnb.lottie.utils.Utils;
 import ohos.utils.Pair;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Helper class to save and restore animations fetched from an URL to the app disk cache.
+ * <p>
+ * Files are named after a hash of their url and tracked by an in-memory LRU index, so lookups never touch the file
+ * system. The index is backed by an append-only journal of PUT, READ and DEL records that is replayed when the cache is
+ * first used. New files are written to a temporary name, synced and only renamed and journaled once they parse, so a
+ * crash mid-write leaves at most an orphaned temporary file which is deleted on the next start. Once the cached files
+ * exceed the byte limit the least recently used ones are deleted.
  */
 public class NetworkCache {
+    private static final String JOURNAL_FILE = "journal";
+
+    private static final String JOURNAL_FILE_TEMP = "journal.tmp";
+
+    private static final String MAGIC = "lottie-network-cache";
+
+    private static final String VERSION = "1";
+
+    private static final String PUT = "PUT";
+
+    private static final String READ = "READ";
+
+    private static final String DEL = "DEL";
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final long DEFAULT_MAX_BYTES = 20L * 1024 * 1024;
+
+    /**
+     * Rebuild the journal once it holds this many more records than there are entries.
+     */
+    private static final int REDUNDANT_RECORD_THRESHOLD = 1000;
+
+    private static final class Entry {
+        final String key;
+
+        final FileExtension extension;
+
+        final long size;
+
+        @Nullable final CacheValidators validators;
+
+        Entry(String key, FileExtension extension, long size, @Nullable CacheValidators validators) {
+            this.key = key;
+            this.extension = extension;
+            this.size = size;
+            this.validators = validators;
+        }
+
+        /**
+         * Values of the PUT record for this entry. Validators are url encoded because they may contain spaces.
+         */
+        String recordValues() {
+            String values = extension.name() + " " + size;
+            if (validators == null) {
+                return values;
+            }
+            return values + " " + encode(validators.getEtag()) + " " + encode(validators.getLastModified()) + " "
+                + validators.getExpiresAt();
+        }
+
+        String fileName() {
+            return key + extension.extension;
+        }
+    }
 
     @NotNull
     private final LottieNetworkCacheProvider cacheProvider;
 
+    /**
+     * Index of committed files in access order. Only valid once {@link #initialize()} has run.
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long maxBytes = DEFAULT_MAX_BYTES;
+
+    private long size;
+
+    private boolean compressJson;
+
+    @Nullable private Writer journalWriter;
+
+    /**
+     * Cache directory resolved once by {@link #initialize()} so that lookups don't have to check it exists.
+     */
+    @Nullable private File directory;
+
+    private int redundantRecordCount;
+
+    private boolean initialized;
+
     public NetworkCache(@NotNull LottieNetworkCacheProvider cacheProvider) {
         this.cacheProvider = cacheProvider;
     }
 
-    public void clear() {
-        File parentDir = parentDir();
+    /**
+     * Set the maximum number of bytes the cached animations may take up on disk.
+     * @param maxBytes byte limit
+     */
+    public synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        if (initialized) {
+            trimToSize();
+        }
+    }
+
+    /**
+     * Json animations are stored as is by default. When enabled, new json entries are gzipped on disk and
+     * decompressed as they are parsed. Bodymovin json typically shrinks to a fifth of its size, which leaves room for
+     * more animations within the byte limit at the cost of inflating them on every cache hit. Existing entries are
+     * left as they are.
+     * @param compress whether to gzip new json entries
+     */
+    public synchronized void setCompressJson(boolean compress) {
+        compressJson = compress;
+    }
+
+    /**
+     * Returns the extension a response of the given type is stored with.
+     * @param extension type of the response
+     * @return {@link FileExtension#JSON_GZIP} for json if compression is enabled, otherwise extension
+     */
+    synchronized FileExtension storageExtension(FileExtension extension) {
+        return compressJson && extension == FileExtension.JSON ? FileExtension.JSON_GZIP : extension;
+    }
+
+    public synchronized long getSize() {
+        initialize();
+        return size;
+    }
+
+    public synchronized void clear() {
+        closeJournal();
+        entries.clear();
+        size = 0;
+        redundantRecordCount = 0;
+        initialized = false;
+        File parentDir = cacheProvider.getCacheDir();
         if (parentDir.exists()) {
             File[] files = parentDir.listFiles();
             if (files != null && files.length > 0) {
-                for (File file : parentDir.listFiles()) {
+                for (File file : files) {
                     file.delete();
                 }
             }
@@ -48,44 +185,43 @@ public class NetworkCache {
      * be used in the future.
      * @param url of animation
      * @throws IOException
-     * @return null or pair
+     * @return null or pair of the file type and a stream the caller has to close. Gzipped json is returned as
+     * {@link FileExtension#JSON} with a decompressing stream.
      */
 	@Nullable
     Pair<FileExtension, InputStream> fetchPair(String url) throws IOException {
-        File cachedFile;
-        try {
-            cachedFile = getCachedFile(url);
-        } catch (FileNotFoundException e) {
+        Pair<FileExtension, File> cached = fetchFile(url);
+        if (cached == null) {
             return null;
         }
-        if (cachedFile == null) {
-            return null;
-        }
-
-        //FileInputStream inputStream = null;
-        try (FileInputStream inputStream = new FileInputStream(cachedFile);){
-            FileExtension extension;
-            if (cachedFile.getAbsolutePath().endsWith(".zip")) {
-                extension = FileExtension.ZIP;
-            } else {
-                extension = FileExtension.JSON;
+        try {
+            InputStream inputStream = new FileInputStream(cached.s);
+            if (cached.f == FileExtension.JSON_GZIP) {
+                return new Pair<>(FileExtension.JSON, (InputStream) new GZIPInputStream(inputStream, 8192));
             }
-
-            HMOSLogUtil.warn(L.TAG, "Cache hit for " + url + " at " + cachedFile.getCanonicalPath());
-            return new Pair<>(extension, (InputStream) inputStream);
+            return new Pair<>(cached.f, inputStream);
         } catch (FileNotFoundException e) {
+            remove(keyForUrl(url));
             return null;
         }
-//        finally {
-//            if(inputStream != null){
-//                try{
-//                    inputStream.close();
-//                } catch (IOException e) {
-//                    HMOSLogUtil.warn(L.TAG,"InputStream  close failed "+ e.getLocalizedMessage());
-//                }
-//            }
-//        }
+    }
 
+    /**
+     * Returns the cached file for the url and marks it as recently used, or null if it isn't cached.
+     * @param url of animation
+     * @return null or pair of the file type and the file
+     */
+    @Nullable
+    synchronized Pair<FileExtension, File> fetchFile(String url) {
+        initialize();
+        String key = keyForUrl(url);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        appendRecord(READ, key, null);
+        HMOSLogUtil.debug(L.TAG, "Cache hit for " + url);
+        return new Pair<>(entry.extension, new File(directory, entry.fileName()));
     }
 
     /**
@@ -99,27 +235,41 @@ public class NetworkCache {
      * @return file
      */
     File writeTempCacheFile(String url, InputStream stream, FileExtension extension) throws IOException {
-        String fileName = filenameForUrl(url, extension, true);
-        File file = new File(parentDir(), fileName);
-        try (OutputStream output = new FileOutputStream(file);){
-            try {
-                byte[] buffer = new byte[1024];
-                int read;
-
-                while ((read = stream.read(buffer)) != -1) {
-                    output.write(buffer, 0, read);
-                }
+        File file = tempFileForUrl(url, extension);
+        try (FileOutputStream output = openTempCacheFile(url, extension)) {
+            byte[] buffer = new byte[8192];
+            int read;
 
-                output.flush();
-            } finally {
-                output.close();
+            while ((read = stream.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
             }
+
+            output.flush();
+            // The rename in renameTempFile must never expose a partially written file after a crash.
+            output.getFD().sync();
         } finally {
             stream.close();
         }
         return file;
     }
 
+    /**
+     * Opens the temporary file for a response that is written while it is being parsed. Like with
+     * {@link #writeTempCacheFile(String, InputStream, FileExtension)}, {#renameTempFile(FileExtension)} should be called
+     * once the file is complete and the response parsed.
+     * @param url of animation
+     * @param extension file extention
+     * @throws IOException
+     * @return output stream for the temporary file
+     */
+    FileOutputStream openTempCacheFile(String url, FileExtension extension) throws IOException {
+        synchronized (this) {
+            // Temporary files found while initializing are treated as left over from a crash.
+            initialize();
+        }
+        return new FileOutputStream(tempFileForUrl(url, extension));
+    }
+
     /**
      * If the file created by {#writeTempCacheFile(InputStream, FileExtension)} was successfully parsed,
      * this should be called to remove the temporary part of its name which will allow it to be a cache hit in the future.
@@ -128,40 +278,263 @@ public class NetworkCache {
      * @throws IOException
      */
     void renameTempFile(String url, FileExtension extension) throws IOException {
-        String fileName = filenameForUrl(url, extension, true);
-        File file = new File(parentDir(), fileName);
-        String newFileName = file.getAbsolutePath().replace(".temp", "");
-        File newFile = new File(newFileName);
+        renameTempFile(url, extension, null);
+    }
+
+    /**
+     * Same as {@link #renameTempFile(String, FileExtension)} but also stores the validators of the response so that
+     * it can be revalidated later.
+     * @param url of animation
+     * @param extension FileExtension
+     * @param validators validators of the response, may be null
+     * @throws IOException if the file is larger than the whole cache, in which case it isn't cached and any previous
+     *     entry for the url is kept
+     */
+    synchronized void renameTempFile(String url, FileExtension extension, @Nullable CacheValidators validators)
+        throws IOException {
+        initialize();
+        String key = keyForUrl(url);
+        File file = tempFileForUrl(url, extension);
+        Entry entry = new Entry(key, extension, file.length(), validators);
+        if (entry.size > maxBytes) {
+            // It would be evicted again right after being committed.
+            file.delete();
+            throw new IOException("Response of " + entry.size + " bytes is larger than the cache limit of " + maxBytes
+                + " bytes");
+        }
+        File newFile = new File(directory, entry.fileName());
+        Entry previous = entries.remove(key);
+        if (previous != null) {
+            size -= previous.size;
+            new File(directory, previous.fileName()).delete();
+        }
         boolean renamed = file.renameTo(newFile);
-        HMOSLogUtil.debug(L.TAG, "Copying temp file to real file (" + newFile + ")");
+        HMOSLogUtil.debug(L.TAG, "Copying temp file to real file (" + newFile + ", " + entry.size + " bytes)");
         if (!renamed) {
             HMOSLogUtil.warn(L.TAG,
                 "Unable to rename cache file " + file.getCanonicalPath() + " to " + newFile.getCanonicalPath() + ".");
+            if (previous != null) {
+                appendRecord(DEL, key, null);
+            }
+            return;
+        }
+        entries.put(key, entry);
+        size += entry.size;
+        appendRecord(PUT, key, entry.recordValues());
+        trimToSize();
+    }
 
+    @Nullable
+    synchronized CacheValidators getValidators(String url) {
+        initialize();
+        Entry entry = entries.get(keyForUrl(url));
+        return entry == null ? null : entry.validators;
+    }
+
+    /**
+     * Stores new validators for a cached file after the server confirmed that it is still valid.
+     * @param url of animation
+     * @param validators new validators
+     */
+    synchronized void updateValidators(String url, CacheValidators validators) {
+        initialize();
+        String key = keyForUrl(url);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return;
         }
+        Entry updated = new Entry(key, entry.extension, entry.size, validators);
+        entries.put(key, updated);
+        appendRecord(PUT, key, updated.recordValues());
     }
 
     /**
-     * Returns the cache file for the given url if it exists. Checks for both json and zip.
-     * Returns null if neither exist.
+     * Deletes the temporary file of a download that didn't parse.
      * @param url of animation
-     * @throws IOException
-     * @return Returns the cache file
+     * @param extension FileExtension
      */
-	@Nullable
-    private File getCachedFile(String url) throws FileNotFoundException {
-        File jsonFile = new File(parentDir(), filenameForUrl(url, FileExtension.JSON, false));
-        if (jsonFile.exists()) {
-            return jsonFile;
+    void discardTempFile(String url, FileExtension extension) {
+        tempFileForUrl(url, extension).delete();
+    }
+
+    private File tempFileForUrl(String url, FileExtension extension) {
+        return new File(directory(), keyForUrl(url) + extension.extension + TEMP_SUFFIX);
+    }
+
+    private synchronized File directory() {
+        initialize();
+        return directory;
+    }
+
+    private synchronized void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            size -= entry.size;
+            new File(directory, entry.fileName()).delete();
+            appendRecord(DEL, key, null);
+        }
+    }
+
+    private void trimToSize() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (size > maxBytes && it.hasNext()) {
+            Entry eldest = it.next();
+            it.remove();
+            size -= eldest.size;
+            new File(directory, eldest.fileName()).delete();
+            appendRecord(DEL, eldest.key, null);
+        }
+    }
+
+    /**
+     * Replays the journal into the index, then deletes files the index doesn't know about, including temporary files
+     * left behind by a crash and files from before the journal existed, and finally writes a compact journal.
+     */
+    private void initialize() {
+        if (initialized) {
+            return;
+        }
+        initialized = true;
+        File parentDir = resolveDirectory();
+        directory = parentDir;
+        File journal = new File(parentDir, JOURNAL_FILE);
+        if (journal.exists()) {
+            try {
+                readJournal(journal);
+            } catch (IOException e) {
+                HMOSLogUtil.warn(L.TAG, "Network cache journal is corrupt, clearing the cache. " + e.getLocalizedMessage());
+                entries.clear();
+            }
+        }
+
+        size = 0;
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            File file = new File(parentDir, entry.fileName());
+            if (file.length() != entry.size) {
+                it.remove();
+                file.delete();
+            } else {
+                size += entry.size;
+            }
+        }
+        File[] files = parentDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                if (name.equals(JOURNAL_FILE) || isIndexed(name)) {
+                    continue;
+                }
+                file.delete();
+            }
+        }
+        rebuildJournal();
+        trimToSize();
+    }
+
+    private boolean isIndexed(String fileName) {
+        int dot = fileName.indexOf('.');
+        if (dot <= 0) {
+            return false;
         }
-        File zipFile = new File(parentDir(), filenameForUrl(url, FileExtension.ZIP, false));
-        if (zipFile.exists()) {
-            return zipFile;
+        Entry entry = entries.get(fileName.substring(0, dot));
+        return entry != null && entry.fileName().equals(fileName);
+    }
+
+    private void readJournal(File journal) throws IOException {
+        try (BufferedReader reader = new BufferedReader(
+            new InputStreamReader(new FileInputStream(journal), StandardCharsets.UTF_8))) {
+            if (!MAGIC.equals(reader.readLine()) || !VERSION.equals(reader.readLine())) {
+                throw new IOException("unexpected journal header");
+            }
+            int lineCount = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineCount++;
+                String[] parts = line.split(" ");
+                // A record cut short by a crash is ignored, the files it refers to get cleaned up.
+                if ((parts.length == 4 || parts.length == 7) && PUT.equals(parts[0])) {
+                    try {
+                        CacheValidators validators = parts.length == 7
+                            ? new CacheValidators(decode(parts[4]), decode(parts[5]), Long.parseLong(parts[6]))
+                            : null;
+                        entries.put(parts[1], new Entry(parts[1], FileExtension.valueOf(parts[2]),
+                            Long.parseLong(parts[3]), validators));
+                    } catch (IllegalArgumentException e) {
+                        entries.remove(parts[1]);
+                    }
+                } else if (parts.length == 2 && READ.equals(parts[0])) {
+                    entries.get(parts[1]);
+                } else if (parts.length == 2 && DEL.equals(parts[0])) {
+                    entries.remove(parts[1]);
+                }
+            }
+            redundantRecordCount = lineCount - entries.size();
+        }
+    }
+
+    /**
+     * Writes the index to a new journal and atomically replaces the old one.
+     */
+    private void rebuildJournal() {
+        closeJournal();
+        File parentDir = directory;
+        File tempJournal = new File(parentDir, JOURNAL_FILE_TEMP);
+        try (FileOutputStream output = new FileOutputStream(tempJournal);
+             Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+            writer.write(MAGIC + "\n" + VERSION + "\n");
+            for (Entry entry : entries.values()) {
+                writer.write(PUT + " " + entry.key + " " + entry.recordValues() + "\n");
+            }
+            writer.flush();
+            output.getFD().sync();
+        } catch (IOException e) {
+            HMOSLogUtil.warn(L.TAG, "Unable to write network cache journal. " + e.getLocalizedMessage());
+            return;
+        }
+        File journal = new File(parentDir, JOURNAL_FILE);
+        if (!tempJournal.renameTo(journal)) {
+            HMOSLogUtil.warn(L.TAG, "Unable to replace network cache journal.");
+            return;
+        }
+        redundantRecordCount = 0;
+        try {
+            journalWriter = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(journal, true), StandardCharsets.UTF_8));
+        } catch (FileNotFoundException e) {
+            HMOSLogUtil.warn(L.TAG, "Unable to open network cache journal. " + e.getLocalizedMessage());
+        }
+    }
+
+    private void appendRecord(String type, String key, @Nullable String values) {
+        if (journalWriter == null) {
+            return;
+        }
+        try {
+            journalWriter.write(type + " " + key + (values == null ? "" : " " + values) + "\n");
+            journalWriter.flush();
+        } catch (IOException e) {
+            HMOSLogUtil.warn(L.TAG, "Unable to append to network cache journal. " + e.getLocalizedMessage());
+        }
+        redundantRecordCount++;
+        if (redundantRecordCount >= REDUNDANT_RECORD_THRESHOLD && redundantRecordCount >= entries.size()) {
+            rebuildJournal();
         }
-        return null;
     }
 
-    private File parentDir() {
+    private void closeJournal() {
+        if (journalWriter != null) {
+            Utils.closeQuietly(journalWriter);
+            journalWriter = null;
+        }
+    }
+
+    /**
+     * Creates the cache directory if needed. Only called by {@link #initialize()}, everything else uses
+     * {@link #directory}.
+     */
+    private File resolveDirectory() {
         File file = cacheProvider.getCacheDir();
         if (file.isFile()) {
             file.delete();
@@ -172,9 +545,39 @@ public class NetworkCache {
         return file;
     }
 
-    private static String filenameForUrl(String url, FileExtension extension, boolean isTemp) {
-        return "lottie_cache_" + url.replaceAll("\\W+", "") + (isTemp
-            ? extension.tempExtension()
-            : extension.extension);
+    private static String encode(@Nullable String value) {
+        if (value == null) {
+            return "-";
+        }
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            return "-";
+        }
+    }
+
+    @Nullable
+    private static String decode(String value) {
+        if ("-".equals(value)) {
+            return null;
+        }
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            return null;
+        }
+    }
+
+    static String keyForUrl(String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(url.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(url.hashCode()) + Integer.toHexString(url.length());
+        }
     }
 }
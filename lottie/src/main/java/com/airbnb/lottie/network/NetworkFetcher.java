@@ -4,8 +4,11 @@ import com.airbnb.lottie.L;
 import com.airbnb.lottie.LottieCompositionFactory;
 import com.airbnb.lottie.LottieResult;
 import com.airbnb.lottie.LottieComposition;
+import com.airbnb.lottie.LottieTask;
+import com.airbnb.lottie.model.LottieCompositionCache;
 import com.airbnb.lottie.utils.ContextUtil;
 import com.airbnb.lottie.utils.HMOSLogUtil;
+import com.airbnb.lottie.utils.Utils;
 import ohos.agp.utils.LayoutAlignment;
 import ohos.agp.window.dialog.ToastDialog;
 import ohos.app.Context;
@@ -18,27 +21,367 @@ import org.jetbrains.annotations.Nullable;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
 import java.util.zip.ZipInputStream;
 
 public class NetworkFetcher {
 
+    private static final int DEFAULT_MAX_REQUESTS_PER_HOST = 4;
+
+    /**
+     * Maximum number of batch requests running at once over all hosts.
+     */
+    private static final int MAX_BATCH_THREADS = 8;
+
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    /**
+     * Receives the results of {@link #fetchSync(List, BatchListener)} or {@link #fetch(List, BatchListener)} in the
+     * order the urls were requested.
+     */
+    public interface BatchListener {
+        void onResult(@NotNull String url, @NotNull LottieResult<LottieComposition> result);
+    }
+
+    /**
+     * A batch started by {@link #fetch(List, BatchListener)}. Results are delivered in order as soon as they and all
+     * the results before them are available. The batch is also the executor of its task, which it runs once the last
+     * result has been delivered.
+     */
+    private static final class PendingBatch implements Executor {
+        private final List<String> urls;
+
+        private final List<FutureTask<LottieResult<LottieComposition>>> tasks;
+
+        @Nullable private final BatchListener listener;
+
+        private int delivered;
+
+        @Nullable private Runnable completion;
+
+        PendingBatch(List<String> urls, List<FutureTask<LottieResult<LottieComposition>>> tasks,
+            @Nullable BatchListener listener) {
+            this.urls = urls;
+            this.tasks = tasks;
+            this.listener = listener;
+        }
+
+        @Override
+        public synchronized void execute(@NotNull Runnable runnable) {
+            completion = runnable;
+        }
+
+        /**
+         * Delivers the results that became available and completes the task once all of them are in.
+         * @return whether the batch is complete
+         */
+        boolean advance() {
+            Runnable run = null;
+            boolean complete;
+            synchronized (this) {
+                while (delivered < tasks.size() && tasks.get(delivered).isDone()) {
+                    if (listener != null) {
+                        listener.onResult(urls.get(delivered), await(tasks.get(delivered)));
+                    }
+                    delivered++;
+                }
+                complete = delivered == tasks.size();
+                if (complete) {
+                    run = completion;
+                    completion = null;
+                }
+            }
+            if (run != null) {
+                run.run();
+            }
+            return complete;
+        }
+
+        List<LottieResult<LottieComposition>> results() {
+            List<LottieResult<LottieComposition>> results = new ArrayList<>(tasks.size());
+            for (FutureTask<LottieResult<LottieComposition>> task : tasks) {
+                results.add(await(task));
+            }
+            return results;
+        }
+    }
+
+    /**
+     * Requests to one host. At most {@link #maxRequestsPerHost} of them run at a time, the rest wait in order.
+     */
+    private static final class HostQueue {
+        final ArrayDeque<Runnable> pending = new ArrayDeque<>();
+
+        int running;
+    }
+
     @NotNull
     private final NetworkCache networkCache;
     @NotNull
     private final LottieNetworkFetcher fetcher;
 
+    private volatile boolean revalidationEnabled;
+
+    /**
+     * Batch requests that haven't finished yet by url, so a url requested by several batches is only fetched once.
+     */
+    private final Map<String, FutureTask<LottieResult<LottieComposition>>> inFlight = new HashMap<>();
+
+    private final Map<String, HostQueue> hostQueues = new HashMap<>();
+
+    private final List<PendingBatch> pendingBatches = new ArrayList<>();
+
+    private int maxRequestsPerHost = DEFAULT_MAX_REQUESTS_PER_HOST;
+
+    /**
+     * Batch requests handed to {@link #batchExecutor} that haven't finished yet, never more than
+     * {@link #MAX_BATCH_THREADS}.
+     */
+    private int runningRequests;
+
+    /**
+     * Requests are only handed to the pool while fewer than {@link #MAX_BATCH_THREADS} are running, so its queue never
+     * holds more than that and nothing is rejected. Idle threads time out.
+     */
+    private final ThreadPoolExecutor batchExecutor = new ThreadPoolExecutor(MAX_BATCH_THREADS, MAX_BATCH_THREADS,
+        KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(MAX_BATCH_THREADS), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "LottieNetwork-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
     public NetworkFetcher(@NotNull NetworkCache networkCache, @NotNull LottieNetworkFetcher fetcher) {
         this.networkCache = networkCache;
         this.fetcher = fetcher;
+        batchExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * By default an animation in the disk cache is used forever. With revalidation enabled, a cached animation whose
+     * Cache-Control max-age has passed is revalidated with a conditional request. On a 304 the cached file, and the
+     * composition parsed from it if it is still in memory, are reused. If the server can't be reached the stale copy
+     * is used.
+     * @param enabled whether to revalidate stale cached animations
+     */
+    public void setRevalidationEnabled(boolean enabled) {
+        revalidationEnabled = enabled;
+    }
+
+    /**
+     * Set how many requests {@link #fetchSync(List, BatchListener)} sends to the same host at once. Together with
+     * {@link DefaultLottieFetchResult} releasing connections instead of disconnecting them this lets requests to the
+     * same host reuse a few kept alive connections instead of each opening its own.
+     * @param maxRequests limit, must be > 0
+     */
+    public synchronized void setMaxRequestsPerHost(int maxRequests) {
+        if (maxRequests <= 0) {
+            throw new IllegalArgumentException("maxRequests must be > 0");
+        }
+        maxRequestsPerHost = maxRequests;
+        drain();
+    }
+
+    /**
+     * Fetches several animations concurrently, using the disk cache like {@link #fetchSync(String, String)} with the
+     * same cache key as {@link LottieCompositionFactory#fromUrl(Context, String)}. Requests are limited per host, and a url that is requested more than once, in this batch or by
+     * another batch that is still running, is only fetched once.
+     * <p>
+     * Blocks until every animation has been fetched. Each result is passed to the listener on the calling thread as
+     * soon as it and all the results before it are available.
+     * @param urls animations to fetch
+     * @param listener notified of each result in request order, may be null
+     * @return results in the same order as urls
+     */
+    @NotNull
+    public List<LottieResult<LottieComposition>> fetchSync(@NotNull List<String> urls, @Nullable BatchListener listener) {
+        List<FutureTask<LottieResult<LottieComposition>>> tasks = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            tasks.add(enqueue(url));
+        }
+        List<LottieResult<LottieComposition>> results = new ArrayList<>(urls.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            LottieResult<LottieComposition> result = await(tasks.get(i));
+            results.add(result);
+            if (listener != null) {
+                listener.onResult(urls.get(i), result);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Like {@link #fetchSync(List, BatchListener)} without blocking the calling thread. Nothing waits for the batch,
+     * its task completes on the network thread that finishes the last request.
+     * @param urls animations to fetch
+     * @param listener notified of each result in request order on the main thread, may be null
+     * @return task whose result holds the results in the same order as urls
+     */
+    @NotNull
+    public LottieTask<List<LottieResult<LottieComposition>>> fetch(@NotNull final List<String> urls,
+        @Nullable final BatchListener listener) {
+        final EventHandler mainHandler = new EventHandler(EventRunner.getMainEventRunner());
+        final BatchListener mainThreadListener = listener == null ? null
+            : (url, result) -> mainHandler.postTask(() -> listener.onResult(url, result));
+        List<FutureTask<LottieResult<LottieComposition>>> tasks = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            tasks.add(enqueue(url));
+        }
+        final PendingBatch batch = new PendingBatch(new ArrayList<>(urls), tasks, mainThreadListener);
+        LottieTask<List<LottieResult<LottieComposition>>> task =
+            new LottieTask<>(() -> new LottieResult<>(batch.results()), batch);
+        synchronized (this) {
+            pendingBatches.add(batch);
+        }
+        // Requests may have finished before the batch was registered.
+        advanceBatches();
+        return task;
+    }
+
+    private synchronized FutureTask<LottieResult<LottieComposition>> enqueue(final String url) {
+        FutureTask<LottieResult<LottieComposition>> task = inFlight.get(url);
+        // A finished task stays in inFlight until onBatchRequestFinished runs, its result may already be stale.
+        if (task != null && !task.isDone()) {
+            return task;
+        }
+        final FutureTask<LottieResult<LottieComposition>> newTask = new FutureTask<>(() -> {
+            try {
+                return fetchSync(url, "url_" + url);
+            } catch (IOException e) {
+                return new LottieResult<>(e);
+            }
+        });
+        inFlight.put(url, newTask);
+        final String host = hostOf(url);
+        HostQueue queue = hostQueues.get(host);
+        if (queue == null) {
+            queue = new HostQueue();
+            hostQueues.put(host, queue);
+        }
+        queue.pending.add(() -> {
+            try {
+                newTask.run();
+            } finally {
+                onBatchRequestFinished(url, host, newTask);
+                advanceBatches();
+            }
+        });
+        drain();
+        return newTask;
+    }
+
+    private synchronized void onBatchRequestFinished(String url, String host, FutureTask<LottieResult<LottieComposition>> task) {
+        if (inFlight.get(url) == task) {
+            inFlight.remove(url);
+        }
+        HostQueue queue = hostQueues.get(host);
+        queue.running--;
+        runningRequests--;
+        if (queue.running == 0 && queue.pending.isEmpty()) {
+            hostQueues.remove(host);
+        }
+        drain();
+    }
+
+    /**
+     * Starts pending requests, taking turns between hosts, until every host is at its limit or
+     * {@link #MAX_BATCH_THREADS} requests are running.
+     */
+    private void drain() {
+        boolean started = true;
+        while (started && runningRequests < MAX_BATCH_THREADS) {
+            started = false;
+            for (HostQueue queue : hostQueues.values()) {
+                if (runningRequests >= MAX_BATCH_THREADS) {
+                    break;
+                }
+                if (queue.running < maxRequestsPerHost && !queue.pending.isEmpty()) {
+                    queue.running++;
+                    runningRequests++;
+                    batchExecutor.execute(queue.pending.poll());
+                    started = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Called without holding the lock since batches call their listeners and complete their tasks.
+     */
+    private void advanceBatches() {
+        List<PendingBatch> batches;
+        synchronized (this) {
+            if (pendingBatches.isEmpty()) {
+                return;
+            }
+            batches = new ArrayList<>(pendingBatches);
+        }
+        for (PendingBatch batch : batches) {
+            if (batch.advance()) {
+                synchronized (this) {
+                    pendingBatches.remove(batch);
+                }
+            }
+        }
+    }
+
+    private static LottieResult<LottieComposition> await(FutureTask<LottieResult<LottieComposition>> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            // The request may be shared with other batches so it keeps running.
+            Thread.currentThread().interrupt();
+            return new LottieResult<>(e);
+        } catch (ExecutionException e) {
+            return new LottieResult<>(e.getCause());
+        }
+    }
+
+    private static String hostOf(String url) {
+        try {
+            return new URL(url).getAuthority();
+        } catch (MalformedURLException e) {
+            // The request fails on its own.
+            return "";
+        }
     }
 
     @NotNull
     public LottieResult<LottieComposition> fetchSync(@NotNull String url, @Nullable String cacheKey) throws IOException {
+        if (revalidationEnabled && cacheKey != null) {
+            CacheValidators validators = networkCache.getValidators(url);
+            if (validators != null && !validators.isFresh(System.currentTimeMillis())) {
+                LottieResult<LottieComposition> revalidated = revalidate(url, cacheKey, validators);
+                if (revalidated != null) {
+                    return revalidated;
+                }
+            }
+        }
+
         LottieComposition result = fetchFromCache(url, cacheKey);
         if (result != null) {
             return new LottieResult<>(result);
@@ -54,18 +397,21 @@ public class NetworkFetcher {
         if (cacheKey == null) {
             return null;
         }
-        Pair<FileExtension, InputStream> cacheResult = networkCache.fetchPair(url);
+        Pair<FileExtension, File> cacheResult = networkCache.fetchFile(url);
         if (cacheResult == null) {
             return null;
         }
 
         FileExtension extension = cacheResult.f;
-        InputStream inputStream = cacheResult.s;
+        File file = cacheResult.s;
         LottieResult<LottieComposition> result;
         if (extension == FileExtension.ZIP) {
-            result = LottieCompositionFactory.fromZipStreamSync(new ZipInputStream(inputStream), url);
+            result = LottieCompositionFactory.fromZipFileSync(file, cacheKey);
+        } else if (extension == FileExtension.JSON_GZIP) {
+            result = LottieCompositionFactory.fromJsonInputStreamSync(
+                new GZIPInputStream(new FileInputStream(file), 8192), cacheKey);
         } else {
-            result = LottieCompositionFactory.fromJsonInputStreamSync(inputStream, url);
+            result = LottieCompositionFactory.fromJsonInputStreamSync(new FileInputStream(file), cacheKey);
         }
         if (result.getValue() != null) {
             return result.getValue();
@@ -73,6 +419,46 @@ public class NetworkFetcher {
         return null;
     }
 
+    /**
+     * Returns null if the cached copy should be used as is, either because the server couldn't be reached or because
+     * the new response couldn't be parsed.
+     */
+    @Nullable
+    private LottieResult<LottieComposition> revalidate(@NotNull String url, @NotNull String cacheKey,
+                                                      @NotNull CacheValidators validators) {
+        LottieFetchResult fetchResult = null;
+        try {
+            fetchResult = validators.canRevalidate() ? fetcher.fetchSync(url, validators) : fetcher.fetchSync(url);
+            long now = System.currentTimeMillis();
+            if (fetchResult.isNotModified()) {
+                HMOSLogUtil.debug(L.TAG, "Cached animation for " + url + " is still valid.");
+                networkCache.updateValidators(url, validators.revalidated(fetchResult, now));
+                LottieComposition composition = LottieCompositionCache.getInstance().peek(cacheKey);
+                if (composition == null) {
+                    composition = fetchFromCache(url, cacheKey);
+                }
+                return composition == null ? null : new LottieResult<>(composition);
+            }
+            if (!fetchResult.isSuccessful()) {
+                return null;
+            }
+            LottieResult<LottieComposition> result = fromInputStream(url, fetchResult.bodyByteStream(),
+                fetchResult.contentType(), cacheKey, CacheValidators.fromResult(fetchResult, now));
+            return result.getValue() == null ? null : result;
+        } catch (IOException e) {
+            HMOSLogUtil.warn(L.TAG, "Unable to revalidate " + url + ", using the cached copy. " + e.getLocalizedMessage());
+            return null;
+        } finally {
+            if (fetchResult != null) {
+                try {
+                    fetchResult.close();
+                } catch (IOException e) {
+                    HMOSLogUtil.warn(L.TAG,"LottieFetchResult close failed "+ e.getLocalizedMessage());
+                }
+            }
+        }
+    }
+
     @NotNull
     private LottieResult<LottieComposition> fetchFromNetwork(@NotNull String url, @Nullable String cacheKey) {
         HMOSLogUtil.debug(L.TAG,"Fetching " + url);
@@ -83,7 +469,8 @@ public class NetworkFetcher {
             if (fetchResult.isSuccessful()) {
                 InputStream inputStream = fetchResult.bodyByteStream();
                 String contentType = fetchResult.contentType();
-                LottieResult<LottieComposition> result = fromInputStream(url, inputStream, contentType, cacheKey);
+                LottieResult<LottieComposition> result = fromInputStream(url, inputStream, contentType, cacheKey,
+                    CacheValidators.fromResult(fetchResult, System.currentTimeMillis()));
                 HMOSLogUtil.debug(L.TAG,"Completed fetch from network. Success: " + (result.getValue() != null));
                 return result;
             } else {
@@ -117,7 +504,8 @@ public class NetworkFetcher {
 
     @NotNull
     private LottieResult<LottieComposition> fromInputStream(@NotNull String url, @NotNull InputStream inputStream, @Nullable String contentType,
-                                                            @Nullable String cacheKey) throws IOException {
+                                                            @Nullable String cacheKey, @Nullable CacheValidators validators)
+            throws IOException {
         FileExtension extension;
         LottieResult<LottieComposition> result;
         if (contentType == null) {
@@ -128,37 +516,49 @@ public class NetworkFetcher {
         if (contentType.contains("application/zip") || url.split("\\?")[0].endsWith(".lottie")) {
             HMOSLogUtil.debug(L.TAG,"Handling zip response.");
             extension = FileExtension.ZIP;
-            result = fromZipStream(url, inputStream, cacheKey);
         } else {
             HMOSLogUtil.debug(L.TAG,"Received json response.");
             extension = FileExtension.JSON;
-            result = fromJsonStream(url, inputStream, cacheKey);
         }
 
-        if (cacheKey != null && result.getValue() != null) {
-            networkCache.renameTempFile(url, extension);
+        if (cacheKey == null) {
+            return parse(inputStream, extension, null);
         }
 
-        return result;
-    }
-
-    @NotNull
-    private LottieResult<LottieComposition> fromZipStream(@NotNull String url, @NotNull InputStream inputStream, @Nullable String cacheKey)
-            throws IOException {
-        if (cacheKey == null) {
-            return LottieCompositionFactory.fromZipStreamSync(new ZipInputStream(inputStream), null);
+        // Parse while downloading and write the cache file at the same time. It is only committed if the response
+        // parsed.
+        FileExtension storageExtension = networkCache.storageExtension(extension);
+        FileOutputStream file = networkCache.openTempCacheFile(url, storageExtension);
+        TeeInputStream tee;
+        try {
+            tee = new TeeInputStream(inputStream, file, storageExtension == FileExtension.JSON_GZIP);
+        } catch (IOException e) {
+            Utils.closeQuietly(file);
+            networkCache.discardTempFile(url, storageExtension);
+            throw e;
         }
-        File file = networkCache.writeTempCacheFile(url, inputStream, FileExtension.ZIP);
-        return LottieCompositionFactory.fromZipStreamSync(new ZipInputStream(new FileInputStream(file)), url);
+        result = parse(tee, extension, cacheKey);
+        if (result.getValue() == null) {
+            tee.abort();
+            networkCache.discardTempFile(url, storageExtension);
+            return result;
+        }
+        try {
+            tee.commit();
+            networkCache.renameTempFile(url, storageExtension, validators);
+        } catch (IOException e) {
+            HMOSLogUtil.warn(L.TAG, "Unable to cache " + url + " - " + e.getLocalizedMessage());
+            networkCache.discardTempFile(url, storageExtension);
+        }
+        return result;
     }
 
     @NotNull
-    private LottieResult<LottieComposition> fromJsonStream(@NotNull String url, @NotNull InputStream inputStream, @Nullable String cacheKey)
-            throws IOException {
-        if (cacheKey == null) {
-            return LottieCompositionFactory.fromJsonInputStreamSync(inputStream, null);
+    private LottieResult<LottieComposition> parse(@NotNull InputStream inputStream, FileExtension extension,
+                                                  @Nullable String cacheKey) {
+        if (extension == FileExtension.ZIP) {
+            return LottieCompositionFactory.fromZipStreamSync(new ZipInputStream(inputStream), cacheKey);
         }
-        File file = networkCache.writeTempCacheFile(url, inputStream, FileExtension.JSON);
-        return LottieCompositionFactory.fromJsonInputStreamSync(new FileInputStream(new File(file.getCanonicalPath())), url);
+        return LottieCompositionFactory.fromJsonInputStreamSync(inputStream, cacheKey);
     }
 }
@@ -0,0 +1,127 @@
+package com.airbnb.lottie.network;
+
+import com.airbnb.lottie.L;
+import com.airbnb.lottie.utils.HMOSLogUtil;
+import com.airbnb.lottie.utils.Utils;
+
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Copies every byte read from a network response to a cache file so that the response can be parsed while it is
+ * downloading instead of after it has been written to disk.
+ * <p>
+ * Parsers close the stream they are given when they are done, so {@link #close()} is a no-op. Call {@link #commit()}
+ * once the response parsed to copy whatever the parser didn't read and sync the file, or {@link #abort()} otherwise.
+ * Json responses can be gzipped on the way to the file.
+ */
+final class TeeInputStream extends FilterInputStream {
+    private final FileOutputStream file;
+
+    private final OutputStream output;
+
+    private boolean writeFailed;
+
+    /**
+     * @param in response
+     * @param file cache file
+     * @param compress whether to gzip the response into the file
+     * @throws IOException if the gzip header couldn't be written
+     */
+    TeeInputStream(InputStream in, FileOutputStream file, boolean compress) throws IOException {
+        super(in);
+        this.file = file;
+        this.output = compress ? new GZIPOutputStream(file, 8192) : file;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b != -1 && !writeFailed) {
+            try {
+                output.write(b);
+            } catch (IOException e) {
+                onWriteFailed(e);
+            }
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = in.read(b, off, len);
+        if (read > 0 && !writeFailed) {
+            try {
+                output.write(b, off, read);
+            } catch (IOException e) {
+                onWriteFailed(e);
+            }
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // Skipped bytes still have to end up in the file.
+        byte[] buffer = new byte[(int) Math.min(n, 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (read == -1) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Reads the rest of the response into the file and syncs it.
+     * @throws IOException if the response or the file couldn't be read or written completely
+     */
+    void commit() throws IOException {
+        try {
+            byte[] buffer = new byte[8192];
+            while (read(buffer, 0, buffer.length) != -1) {
+                // Drain whatever the parser left unread, e.g. the central directory of a zip.
+            }
+            if (writeFailed) {
+                throw new IOException("Unable to write the cache file.");
+            }
+            if (output instanceof GZIPOutputStream) {
+                ((GZIPOutputStream) output).finish();
+            }
+            output.flush();
+            file.getFD().sync();
+        } finally {
+            Utils.closeQuietly(output);
+            Utils.closeQuietly(file);
+            Utils.closeQuietly(in);
+        }
+    }
+
+    void abort() {
+        Utils.closeQuietly(output);
+        Utils.closeQuietly(file);
+        Utils.closeQuietly(in);
+    }
+
+    private void onWriteFailed(IOException e) {
+        // Keep feeding the parser, the response just won't be cached.
+        writeFailed = true;
+        HMOSLogUtil.warn(L.TAG, "Unable to write network cache file. " + e.getLocalizedMessage());
+    }
+}
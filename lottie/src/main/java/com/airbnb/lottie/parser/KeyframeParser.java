@@ -65,13 +65,16 @@ class KeyframeParser {
 
     static <T> Keyframe<T> parse(JsonReader reader, LottieComposition composition,
                                  float scale, ValueParser<T> valueParser, boolean animated, boolean multiDimensional) throws IOException {
+        Keyframe<T> keyframe;
         if (animated && multiDimensional) {
-            return parseMultiDimensionalKeyframe(composition, reader, scale, valueParser);
+            keyframe = parseMultiDimensionalKeyframe(composition, reader, scale, valueParser);
         } else if (animated) {
-            return parseKeyframe(composition, reader, scale, valueParser);
+            keyframe = parseKeyframe(composition, reader, scale, valueParser);
         } else {
-            return parseStaticValue(reader, scale, valueParser);
+            keyframe = parseStaticValue(reader, scale, valueParser);
         }
+        composition.recordParsedKeyframe(keyframe);
+        return keyframe;
     }
 
     /**
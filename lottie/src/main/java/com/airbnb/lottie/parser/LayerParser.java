@@ -15,6 +15,7 @@ import ohos.agp.utils.Color;
 import ohos.agp.utils.Rect;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -151,6 +152,10 @@ public class LayerParser {
     }
 
     public static Layer parse(JsonReader reader, LottieComposition composition) throws IOException {
+        if (Thread.currentThread().isInterrupted()) {
+            // The load was cancelled, stop at the next layer instead of parsing the rest of the file.
+            throw new InterruptedIOException("Composition parsing was cancelled.");
+        }
         // This should always be set by After Effects. However, if somebody wants to minify
         // and optimize their json, the name isn't critical for most cases so it can be removed.
         String layerName = "UNSET";
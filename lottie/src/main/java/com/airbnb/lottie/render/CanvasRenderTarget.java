@@ -0,0 +1,121 @@
+package com.airbnb.lottie.render;
+
+import ohos.agp.render.BlendMode;
+import ohos.agp.render.Canvas;
+import ohos.agp.render.Paint;
+import ohos.agp.render.Path;
+import ohos.agp.render.PixelMapHolder;
+import ohos.agp.utils.Matrix;
+import ohos.agp.utils.RectFloat;
+import ohos.media.image.PixelMap;
+
+/**
+ * {@link RenderTarget} drawing into an ohos {@link Canvas}.
+ * <p>
+ * The canvas can be swapped with {@link #setCanvas(Canvas)} so that one instance can be reused for every frame.
+ */
+public class CanvasRenderTarget implements RenderTarget {
+    private Canvas canvas;
+
+    public CanvasRenderTarget(Canvas canvas) {
+        this.canvas = canvas;
+    }
+
+    public Canvas getCanvas() {
+        return canvas;
+    }
+
+    public void setCanvas(Canvas canvas) {
+        this.canvas = canvas;
+    }
+
+    @Override
+    public int save() {
+        return canvas.save();
+    }
+
+    @Override
+    public void saveLayer(RectFloat bounds, Paint paint) {
+        canvas.saveLayer(bounds, paint);
+    }
+
+    @Override
+    public void restore() {
+        canvas.restore();
+    }
+
+    @Override
+    public void restoreToCount(int saveCount) {
+        canvas.restoreToCount(saveCount);
+    }
+
+    @Override
+    public void translate(float dx, float dy) {
+        canvas.translate(dx, dy);
+    }
+
+    @Override
+    public void scale(float sx, float sy, float px, float py) {
+        canvas.scale(sx, sy, px, py);
+    }
+
+    @Override
+    public void concat(Matrix matrix) {
+        canvas.concat(matrix);
+    }
+
+    @Override
+    public void clipRect(RectFloat rect) {
+        canvas.clipRect(rect);
+    }
+
+    @Override
+    public void clipPath(Path path) {
+        canvas.clipPath(path, Canvas.ClipOp.INTERSECT);
+    }
+
+    @Override
+    public void drawPath(Path path, Paint paint) {
+        canvas.drawPath(path, paint);
+    }
+
+    @Override
+    public void drawRect(RectFloat rect, Paint paint) {
+        canvas.drawRect(rect, paint);
+    }
+
+    @Override
+    public void drawText(Paint paint, String text, float x, float y) {
+        canvas.drawText(paint, text, x, y);
+    }
+
+    @Override
+    public void drawPixelMap(PixelMap pixelMap, RectFloat src, RectFloat dst, Paint paint) {
+        canvas.drawPixelMapHolderRect(new PixelMapHolder(pixelMap), src, dst, paint);
+    }
+
+    @Override
+    public void drawPixelMap(PixelMap pixelMap, float left, float top, Paint paint) {
+        canvas.drawPixelMapHolder(new PixelMapHolder(pixelMap), left, top, paint);
+    }
+
+    @Override
+    public void drawColor(int color, BlendMode blendMode) {
+        canvas.drawColor(color, blendMode);
+    }
+
+    @Override
+    public boolean retainsPaints() {
+        return false;
+    }
+
+    @Override
+    public float getClipWidth() {
+        return canvas.getLocalClipBounds() == null ? -1 : canvas.getLocalClipBounds().getWidth();
+    }
+
+    @Override
+    public float getClipHeight() {
+        return canvas.getLocalClipBounds() == null ? -1 : canvas.getLocalClipBounds().getHeight();
+    }
+}
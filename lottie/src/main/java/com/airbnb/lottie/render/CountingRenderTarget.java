@@ -0,0 +1,260 @@
+package com.airbnb.lottie.render;
+
+import ohos.agp.render.BlendMode;
+import ohos.agp.render.Paint;
+import ohos.agp.render.Path;
+import ohos.agp.utils.Matrix;
+import ohos.agp.utils.RectFloat;
+import ohos.media.image.PixelMap;
+
+/**
+ * {@link RenderTarget} that draws nothing and only counts the operations it receives.
+ * <p>
+ * Drawing a frame into it measures the cost of walking the layer tree and issuing the draw calls without any
+ * rasterization, and the counts tell how many draw calls and offscreen layers a frame needs. Call {@link #reset()}
+ * between frames.
+ */
+public class CountingRenderTarget implements RenderTarget {
+    private final float clipWidth;
+
+    private final float clipHeight;
+
+    private int saveDepth = 1;
+
+    private int maxSaveDepth = 1;
+
+    private int saveCount;
+
+    private int saveLayerCount;
+
+    private long saveLayerPixelArea;
+
+    private int restoreCount;
+
+    private int transformCount;
+
+    private int clipCount;
+
+    private int drawPathCount;
+
+    private int drawRectCount;
+
+    private int drawTextCount;
+
+    private int drawPixelMapCount;
+
+    private int drawColorCount;
+
+    /**
+     * Creates an unbounded target, like drawing into a canvas whose clip bounds are unknown.
+     */
+    public CountingRenderTarget() {
+        this(-1, -1);
+    }
+
+    /**
+     * Creates a target reporting the given clip size, like a canvas of that size.
+     *
+     * @param clipWidth width of the pretend canvas
+     * @param clipHeight height of the pretend canvas
+     */
+    public CountingRenderTarget(float clipWidth, float clipHeight) {
+        this.clipWidth = clipWidth;
+        this.clipHeight = clipHeight;
+    }
+
+    public void reset() {
+        saveDepth = 1;
+        maxSaveDepth = 1;
+        saveCount = 0;
+        saveLayerCount = 0;
+        saveLayerPixelArea = 0;
+        restoreCount = 0;
+        transformCount = 0;
+        clipCount = 0;
+        drawPathCount = 0;
+        drawRectCount = 0;
+        drawTextCount = 0;
+        drawPixelMapCount = 0;
+        drawColorCount = 0;
+    }
+
+    @Override
+    public int save() {
+        saveCount++;
+        return push();
+    }
+
+    @Override
+    public void saveLayer(RectFloat bounds, Paint paint) {
+        saveLayerCount++;
+        saveLayerPixelArea += (long) Math.ceil(bounds.getWidth()) * (long) Math.ceil(bounds.getHeight());
+        push();
+    }
+
+    private int push() {
+        int depth = saveDepth++;
+        maxSaveDepth = Math.max(maxSaveDepth, saveDepth);
+        return depth;
+    }
+
+    @Override
+    public void restore() {
+        restoreCount++;
+        if (saveDepth > 1) {
+            saveDepth--;
+        }
+    }
+
+    @Override
+    public void restoreToCount(int saveCount) {
+        while (saveDepth > Math.max(1, saveCount)) {
+            restore();
+        }
+    }
+
+    @Override
+    public void translate(float dx, float dy) {
+        transformCount++;
+    }
+
+    @Override
+    public void scale(float sx, float sy, float px, float py) {
+        transformCount++;
+    }
+
+    @Override
+    public void concat(Matrix matrix) {
+        transformCount++;
+    }
+
+    @Override
+    public void clipRect(RectFloat rect) {
+        clipCount++;
+    }
+
+    @Override
+    public void clipPath(Path path) {
+        clipCount++;
+    }
+
+    @Override
+    public void drawPath(Path path, Paint paint) {
+        drawPathCount++;
+    }
+
+    @Override
+    public void drawRect(RectFloat rect, Paint paint) {
+        drawRectCount++;
+    }
+
+    @Override
+    public void drawText(Paint paint, String text, float x, float y) {
+        drawTextCount++;
+    }
+
+    @Override
+    public void drawPixelMap(PixelMap pixelMap, RectFloat src, RectFloat dst, Paint paint) {
+        drawPixelMapCount++;
+    }
+
+    @Override
+    public void drawPixelMap(PixelMap pixelMap, float left, float top, Paint paint) {
+        drawPixelMapCount++;
+    }
+
+    @Override
+    public void drawColor(int color, BlendMode blendMode) {
+        drawColorCount++;
+    }
+
+    @Override
+    public boolean retainsPaints() {
+        return false;
+    }
+
+    @Override
+    public float getClipWidth() {
+        return clipWidth;
+    }
+
+    @Override
+    public float getClipHeight() {
+        return clipHeight;
+    }
+
+    /**
+     * @return number of draw calls of any kind
+     */
+    public int getDrawCallCount() {
+        return drawPathCount + drawRectCount + drawTextCount + drawPixelMapCount + drawColorCount;
+    }
+
+    public int getSaveCount() {
+        return saveCount;
+    }
+
+    public int getSaveLayerCount() {
+        return saveLayerCount;
+    }
+
+    /**
+     * @return total number of pixels of all saveLayers, a measure of the fill rate they would cost
+     */
+    public long getSaveLayerPixelArea() {
+        return saveLayerPixelArea;
+    }
+
+    public int getRestoreCount() {
+        return restoreCount;
+    }
+
+    public int getMaxSaveDepth() {
+        return maxSaveDepth;
+    }
+
+    public int getTransformCount() {
+        return transformCount;
+    }
+
+    public int getClipCount() {
+        return clipCount;
+    }
+
+    public int getDrawPathCount() {
+        return drawPathCount;
+    }
+
+    public int getDrawRectCount() {
+        return drawRectCount;
+    }
+
+    public int getDrawTextCount() {
+        return drawTextCount;
+    }
+
+    public int getDrawPixelMapCount() {
+        return drawPixelMapCount;
+    }
+
+    public int getDrawColorCount() {
+        return drawColorCount;
+    }
+
+    @Override
+    public String toString() {
+        return "CountingRenderTarget{drawCalls=" + getDrawCallCount()
+            + ", paths=" + drawPathCount
+            + ", rects=" + drawRectCount
+            + ", texts=" + drawTextCount
+            + ", pixelMaps=" + drawPixelMapCount
+            + ", colors=" + drawColorCount
+            + ", saves=" + saveCount
+            + ", saveLayers=" + saveLayerCount
+            + ", saveLayerPixels=" + saveLayerPixelArea
+            + ", restores=" + restoreCount
+            + ", maxSaveDepth=" + maxSaveDepth
+            + ", transforms=" + transformCount
+            + ", clips=" + clipCount + '}';
+    }
+}
@@ -0,0 +1,213 @@
+package com.airbnb.lottie.render;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Frame indexed store of recorded frames, so that frames which were already drawn once, for example while scrubbing or
+ * looping over a min/max frame range, are replayed instead of walking the layer tree again.
+ * <p>
+ * The animator produces fractional, time based frames which almost never repeat, so frames are quantized to
+ * {@link #getStepsPerFrame()} steps per composition frame with {@link #frameIndexOf(float)}. The drawable evaluates the
+ * layer tree at {@link #frameAt(int)} of that index while the cache is in use, so a recording is exactly what drawing
+ * the layer tree would produce for every frame that maps to the same index.
+ * <p>
+ * Recordings are only valid for the surface they were recorded for, so the cache is cleared whenever
+ * {@link #setSurface(float, float, int, int, float, int)} is called with different values. It is bounded by the
+ * approximate size of the recordings and evicts the least recently drawn frames first.
+ */
+public class DisplayListCache {
+    /**
+     * Default budget for the recordings of one drawable.
+     */
+    public static final long DEFAULT_MAX_BYTES = 4 * 1024 * 1024;
+
+    /**
+     * Default quantization, one recording per composition frame.
+     */
+    public static final int DEFAULT_STEPS_PER_FRAME = 1;
+
+    private final LinkedHashMap<Integer, RecordingRenderTarget> recordings = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long maxBytes = DEFAULT_MAX_BYTES;
+
+    private int stepsPerFrame = DEFAULT_STEPS_PER_FRAME;
+
+    private long byteCount;
+
+    private long hitCount;
+
+    private long missCount;
+
+    private long evictionCount;
+
+    private float clipWidth = Float.NaN;
+
+    private float clipHeight = Float.NaN;
+
+    private int boundsWidth;
+
+    private int boundsHeight;
+
+    private float scale = Float.NaN;
+
+    private int alpha;
+
+    /**
+     * Sets the memory budget and evicts frames until the cache fits it.
+     *
+     * @param maxBytes approximate maximum size of all recordings
+     */
+    public void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        trimToSize(maxBytes);
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Sets how finely frames are quantized and clears the cache. More steps follow interpolated motion more closely
+     * between keyframes at the cost of more recordings.
+     *
+     * @param stepsPerFrame number of distinct recordings per composition frame, at least 1
+     */
+    public void setStepsPerFrame(int stepsPerFrame) {
+        if (stepsPerFrame < 1) {
+            throw new IllegalArgumentException("stepsPerFrame must be at least 1: " + stepsPerFrame);
+        }
+        if (this.stepsPerFrame != stepsPerFrame) {
+            this.stepsPerFrame = stepsPerFrame;
+            clear();
+        }
+    }
+
+    public int getStepsPerFrame() {
+        return stepsPerFrame;
+    }
+
+    /**
+     * @param frame composition frame, usually fractional
+     * @return index of the quantized frame
+     */
+    public int frameIndexOf(float frame) {
+        return Math.round(frame * stepsPerFrame);
+    }
+
+    /**
+     * @param frameIndex index from {@link #frameIndexOf(float)}
+     * @return composition frame the index stands for
+     */
+    public float frameAt(int frameIndex) {
+        return frameIndex / (float) stepsPerFrame;
+    }
+
+    /**
+     * Sets what the next frames are drawn into and clears the cache if it differs from what the cached frames were
+     * recorded for.
+     *
+     * @param clipWidth clip width of the target
+     * @param clipHeight clip height of the target
+     * @param boundsWidth width of the drawable bounds
+     * @param boundsHeight height of the drawable bounds
+     * @param scale scale of the drawable
+     * @param alpha alpha of the drawable
+     */
+    public void setSurface(float clipWidth, float clipHeight, int boundsWidth, int boundsHeight, float scale,
+        int alpha) {
+        if (Float.compare(this.clipWidth, clipWidth) == 0 && Float.compare(this.clipHeight, clipHeight) == 0
+            && this.boundsWidth == boundsWidth && this.boundsHeight == boundsHeight
+            && Float.compare(this.scale, scale) == 0 && this.alpha == alpha) {
+            return;
+        }
+        clear();
+        this.clipWidth = clipWidth;
+        this.clipHeight = clipHeight;
+        this.boundsWidth = boundsWidth;
+        this.boundsHeight = boundsHeight;
+        this.scale = scale;
+        this.alpha = alpha;
+    }
+
+    /**
+     * @param frameIndex index of the quantized frame
+     * @return recording of the frame or null if it hasn't been drawn or was evicted
+     */
+    @Nullable
+    public RecordingRenderTarget get(int frameIndex) {
+        RecordingRenderTarget recording = recordings.get(frameIndex);
+        if (recording == null) {
+            missCount++;
+        } else {
+            hitCount++;
+        }
+        return recording;
+    }
+
+    /**
+     * Stores the recording of a frame. Recordings larger than the whole budget are not stored. The cache owns stored
+     * recordings and releases their buffers when they are evicted.
+     *
+     * @param frameIndex index of the quantized frame
+     * @param recording recording of the frame, which must not be modified afterwards
+     * @return false if the recording wasn't stored and still belongs to the caller
+     */
+    public boolean put(int frameIndex, RecordingRenderTarget recording) {
+        recording.trimToSize();
+        long bytes = recording.getApproximateByteCount();
+        if (bytes > maxBytes) {
+            return false;
+        }
+        RecordingRenderTarget previous = recordings.put(frameIndex, recording);
+        if (previous != null) {
+            byteCount -= previous.getApproximateByteCount();
+            previous.releaseBuffers();
+        }
+        byteCount += bytes;
+        trimToSize(maxBytes);
+        return true;
+    }
+
+    public void clear() {
+        for (RecordingRenderTarget recording : recordings.values()) {
+            recording.releaseBuffers();
+        }
+        recordings.clear();
+        byteCount = 0;
+    }
+
+    private void trimToSize(long maxBytes) {
+        Iterator<Map.Entry<Integer, RecordingRenderTarget>> it = recordings.entrySet().iterator();
+        while (byteCount > maxBytes && it.hasNext()) {
+            RecordingRenderTarget recording = it.next().getValue();
+            byteCount -= recording.getApproximateByteCount();
+            recording.releaseBuffers();
+            it.remove();
+            evictionCount++;
+        }
+    }
+
+    public int size() {
+        return recordings.size();
+    }
+
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+}
@@ -0,0 +1,458 @@
+package com.airbnb.lottie.render;
+
+import com.airbnb.lottie.utils.OffscreenBuffer;
+import com.airbnb.lottie.utils.OffscreenBufferPool;
+
+import ohos.agp.render.BlendMode;
+import ohos.agp.render.Paint;
+import ohos.agp.render.Path;
+import ohos.agp.utils.Matrix;
+import ohos.agp.utils.RectFloat;
+import ohos.media.image.PixelMap;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@link RenderTarget} that records the operations it receives into a compact op list which can be inspected or
+ * replayed into another target with {@link #replay(RenderTarget)}.
+ * <p>
+ * Ops are stored as one opcode byte each, with their numeric arguments in a shared float array and their object
+ * arguments in a shared reference array, so a recorded frame costs a few arrays rather than an object per op. Paths,
+ * paints and matrices are copied because the engine reuses and mutates them while drawing. Pixel maps are not copied
+ * and have to stay alive for as long as the recording is replayed. Pooled {@link OffscreenBuffer}s drawn into a
+ * recording are handed to it with {@link #retainBuffers(List)} and given back to the pool by {@link #releaseBuffers()}.
+ */
+public class RecordingRenderTarget implements RenderTarget {
+    public static final byte OP_SAVE = 0;
+
+    public static final byte OP_SAVE_LAYER = 1;
+
+    public static final byte OP_RESTORE = 2;
+
+    public static final byte OP_RESTORE_TO_COUNT = 3;
+
+    public static final byte OP_TRANSLATE = 4;
+
+    public static final byte OP_SCALE = 5;
+
+    public static final byte OP_CONCAT = 6;
+
+    public static final byte OP_CLIP_RECT = 7;
+
+    public static final byte OP_CLIP_PATH = 8;
+
+    public static final byte OP_DRAW_PATH = 9;
+
+    public static final byte OP_DRAW_RECT = 10;
+
+    public static final byte OP_DRAW_TEXT = 11;
+
+    public static final byte OP_DRAW_PIXEL_MAP_RECT = 12;
+
+    public static final byte OP_DRAW_PIXEL_MAP = 13;
+
+    public static final byte OP_DRAW_COLOR = 14;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * Rough retained size of a copied path, paint or matrix. Paths are mostly native memory that can't be measured
+     * from here, so this errs on the large side.
+     */
+    private static final int COPY_BYTES = 128;
+
+    private static final int OBJECT_REFERENCE_BYTES = 4;
+
+    private final float clipWidth;
+
+    private final float clipHeight;
+
+    private byte[] ops = new byte[INITIAL_CAPACITY];
+
+    private int opCount;
+
+    private float[] args = new float[INITIAL_CAPACITY * 2];
+
+    private int argCount;
+
+    private Object[] refs = new Object[INITIAL_CAPACITY];
+
+    private int refCount;
+
+    private int saveDepth = 1;
+
+    private long copiedBytes;
+
+    private final List<OffscreenBuffer> retainedBuffers = new ArrayList<>();
+
+    private long retainedBufferBytes;
+
+    private final RectFloat replayRect = new RectFloat();
+
+    private final RectFloat replayDstRect = new RectFloat();
+
+    /**
+     * Creates an unbounded recording, like drawing into a canvas whose clip bounds are unknown.
+     */
+    public RecordingRenderTarget() {
+        this(-1, -1);
+    }
+
+    /**
+     * Creates a recording reporting the given clip size, like a canvas of that size.
+     *
+     * @param clipWidth width of the pretend canvas
+     * @param clipHeight height of the pretend canvas
+     */
+    public RecordingRenderTarget(float clipWidth, float clipHeight) {
+        this.clipWidth = clipWidth;
+        this.clipHeight = clipHeight;
+    }
+
+    /**
+     * Drops every recorded op but keeps the arrays so that recording the next frame doesn't allocate them again.
+     */
+    public void clear() {
+        opCount = 0;
+        argCount = 0;
+        Arrays.fill(refs, 0, refCount, null);
+        refCount = 0;
+        saveDepth = 1;
+        copiedBytes = 0;
+        releaseBuffers();
+    }
+
+    /**
+     * Keeps pooled buffers the recorded ops draw from out of the pool until {@link #releaseBuffers()}.
+     *
+     * @param buffers buffers acquired while recording, now owned by this recording
+     */
+    public void retainBuffers(List<OffscreenBuffer> buffers) {
+        for (int i = 0; i < buffers.size(); i++) {
+            OffscreenBuffer buffer = buffers.get(i);
+            retainedBuffers.add(buffer);
+            retainedBufferBytes += buffer.getByteCount();
+        }
+    }
+
+    /**
+     * Gives the retained buffers back to the pool. The recording must not be replayed afterwards unless it is cleared
+     * and recorded again.
+     */
+    public void releaseBuffers() {
+        OffscreenBufferPool pool = OffscreenBufferPool.getInstance();
+        for (int i = 0; i < retainedBuffers.size(); i++) {
+            pool.release(retainedBuffers.get(i));
+        }
+        retainedBuffers.clear();
+        retainedBufferBytes = 0;
+    }
+
+    /**
+     * Shrinks the arrays to the recorded ops, for recordings that are kept around after they were recorded.
+     */
+    public void trimToSize() {
+        ops = Arrays.copyOf(ops, opCount);
+        args = Arrays.copyOf(args, argCount);
+        refs = Arrays.copyOf(refs, refCount);
+    }
+
+    /**
+     * @return estimate of the memory retained by this recording, including the copies of paths, paints and matrices
+     *     and the retained buffers
+     */
+    public long getApproximateByteCount() {
+        return ops.length + args.length * 4L + refs.length * (long) OBJECT_REFERENCE_BYTES + copiedBytes
+            + retainedBufferBytes;
+    }
+
+    public int getOpCount() {
+        return opCount;
+    }
+
+    /**
+     * @param index index of the op
+     * @return one of the OP_ constants
+     */
+    public byte getOp(int index) {
+        if (index < 0 || index >= opCount) {
+            throw new IndexOutOfBoundsException("Op " + index + " of " + opCount);
+        }
+        return ops[index];
+    }
+
+    /**
+     * @param op one of the OP_ constants
+     * @return number of times op was recorded
+     */
+    public int countOf(byte op) {
+        int count = 0;
+        for (int i = 0; i < opCount; i++) {
+            if (ops[i] == op) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Draws the recorded ops into target. The target's matrix and clip are saved before and restored after, so a
+     * recording that isn't balanced doesn't leak state into the target.
+     *
+     * @param target target to draw into
+     */
+    public void replay(RenderTarget target) {
+        int baseCount = target.save();
+        int arg = 0;
+        int ref = 0;
+        for (int i = 0; i < opCount; i++) {
+            switch (ops[i]) {
+                case OP_SAVE:
+                    target.save();
+                    break;
+                case OP_SAVE_LAYER:
+                    replayRect.modify(args[arg], args[arg + 1], args[arg + 2], args[arg + 3]);
+                    arg += 4;
+                    target.saveLayer(replayRect, (Paint) refs[ref++]);
+                    break;
+                case OP_RESTORE:
+                    target.restore();
+                    break;
+                case OP_RESTORE_TO_COUNT:
+                    // Recorded counts start at 1 and replay starts one save above baseCount.
+                    target.restoreToCount(baseCount + (int) args[arg++]);
+                    break;
+                case OP_TRANSLATE:
+                    target.translate(args[arg], args[arg + 1]);
+                    arg += 2;
+                    break;
+                case OP_SCALE:
+                    target.scale(args[arg], args[arg + 1], args[arg + 2], args[arg + 3]);
+                    arg += 4;
+                    break;
+                case OP_CONCAT:
+                    target.concat((Matrix) refs[ref++]);
+                    break;
+                case OP_CLIP_RECT:
+                    replayRect.modify(args[arg], args[arg + 1], args[arg + 2], args[arg + 3]);
+                    arg += 4;
+                    target.clipRect(replayRect);
+                    break;
+                case OP_CLIP_PATH:
+                    target.clipPath((Path) refs[ref++]);
+                    break;
+                case OP_DRAW_PATH:
+                    target.drawPath((Path) refs[ref], (Paint) refs[ref + 1]);
+                    ref += 2;
+                    break;
+                case OP_DRAW_RECT:
+                    replayRect.modify(args[arg], args[arg + 1], args[arg + 2], args[arg + 3]);
+                    arg += 4;
+                    target.drawRect(replayRect, (Paint) refs[ref++]);
+                    break;
+                case OP_DRAW_TEXT:
+                    target.drawText((Paint) refs[ref], (String) refs[ref + 1], args[arg], args[arg + 1]);
+                    arg += 2;
+                    ref += 2;
+                    break;
+                case OP_DRAW_PIXEL_MAP_RECT:
+                    replayRect.modify(args[arg], args[arg + 1], args[arg + 2], args[arg + 3]);
+                    replayDstRect.modify(args[arg + 4], args[arg + 5], args[arg + 6], args[arg + 7]);
+                    arg += 8;
+                    target.drawPixelMap((PixelMap) refs[ref], replayRect, replayDstRect, (Paint) refs[ref + 1]);
+                    ref += 2;
+                    break;
+                case OP_DRAW_PIXEL_MAP:
+                    target.drawPixelMap((PixelMap) refs[ref], args[arg], args[arg + 1], (Paint) refs[ref + 1]);
+                    arg += 2;
+                    ref += 2;
+                    break;
+                case OP_DRAW_COLOR:
+                    target.drawColor((Integer) refs[ref], (BlendMode) refs[ref + 1]);
+                    ref += 2;
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown op " + ops[i]);
+            }
+        }
+        target.restoreToCount(baseCount);
+    }
+
+    @Override
+    public int save() {
+        addOp(OP_SAVE);
+        return saveDepth++;
+    }
+
+    @Override
+    public void saveLayer(RectFloat bounds, Paint paint) {
+        addOp(OP_SAVE_LAYER);
+        addRect(bounds);
+        addRef(copy(paint));
+        saveDepth++;
+    }
+
+    @Override
+    public void restore() {
+        addOp(OP_RESTORE);
+        if (saveDepth > 1) {
+            saveDepth--;
+        }
+    }
+
+    @Override
+    public void restoreToCount(int saveCount) {
+        addOp(OP_RESTORE_TO_COUNT);
+        addArg(saveCount);
+        saveDepth = Math.max(1, Math.min(saveDepth, saveCount));
+    }
+
+    @Override
+    public void translate(float dx, float dy) {
+        addOp(OP_TRANSLATE);
+        addArg(dx);
+        addArg(dy);
+    }
+
+    @Override
+    public void scale(float sx, float sy, float px, float py) {
+        addOp(OP_SCALE);
+        addArg(sx);
+        addArg(sy);
+        addArg(px);
+        addArg(py);
+    }
+
+    @Override
+    public void concat(Matrix matrix) {
+        addOp(OP_CONCAT);
+        Matrix copy = new Matrix();
+        copy.setMatrix(matrix);
+        copiedBytes += COPY_BYTES;
+        addRef(copy);
+    }
+
+    @Override
+    public void clipRect(RectFloat rect) {
+        addOp(OP_CLIP_RECT);
+        addRect(rect);
+    }
+
+    @Override
+    public void clipPath(Path path) {
+        addOp(OP_CLIP_PATH);
+        addRef(copy(path));
+    }
+
+    @Override
+    public void drawPath(Path path, Paint paint) {
+        addOp(OP_DRAW_PATH);
+        addRef(copy(path));
+        addRef(copy(paint));
+    }
+
+    @Override
+    public void drawRect(RectFloat rect, Paint paint) {
+        addOp(OP_DRAW_RECT);
+        addRect(rect);
+        addRef(copy(paint));
+    }
+
+    @Override
+    public void drawText(Paint paint, String text, float x, float y) {
+        addOp(OP_DRAW_TEXT);
+        addArg(x);
+        addArg(y);
+        addRef(copy(paint));
+        copiedBytes += text.length() * 2L;
+        addRef(text);
+    }
+
+    @Override
+    public void drawPixelMap(PixelMap pixelMap, RectFloat src, RectFloat dst, Paint paint) {
+        addOp(OP_DRAW_PIXEL_MAP_RECT);
+        addRect(src);
+        addRect(dst);
+        addRef(pixelMap);
+        addRef(copy(paint));
+    }
+
+    @Override
+    public void drawPixelMap(PixelMap pixelMap, float left, float top, Paint paint) {
+        addOp(OP_DRAW_PIXEL_MAP);
+        addArg(left);
+        addArg(top);
+        addRef(pixelMap);
+        addRef(copy(paint));
+    }
+
+    @Override
+    public void drawColor(int color, BlendMode blendMode) {
+        addOp(OP_DRAW_COLOR);
+        addRef(color);
+        addRef(blendMode);
+    }
+
+    @Override
+    public boolean retainsPaints() {
+        return true;
+    }
+
+    @Override
+    public float getClipWidth() {
+        return clipWidth;
+    }
+
+    @Override
+    public float getClipHeight() {
+        return clipHeight;
+    }
+
+    private void addOp(byte op) {
+        if (opCount == ops.length) {
+            ops = Arrays.copyOf(ops, Math.max(INITIAL_CAPACITY, opCount * 2));
+        }
+        ops[opCount++] = op;
+    }
+
+    private void addArg(float arg) {
+        if (argCount == args.length) {
+            args = Arrays.copyOf(args, Math.max(INITIAL_CAPACITY, argCount * 2));
+        }
+        args[argCount++] = arg;
+    }
+
+    private void addRect(RectFloat rect) {
+        addArg(rect.left);
+        addArg(rect.top);
+        addArg(rect.right);
+        addArg(rect.bottom);
+    }
+
+    private void addRef(@Nullable Object ref) {
+        if (refCount == refs.length) {
+            refs = Arrays.copyOf(refs, Math.max(INITIAL_CAPACITY, refCount * 2));
+        }
+        refs[refCount++] = ref;
+    }
+
+    @Nullable
+    private Paint copy(@Nullable Paint paint) {
+        if (paint == null) {
+            return null;
+        }
+        copiedBytes += COPY_BYTES;
+        return new Paint(paint);
+    }
+
+    private Path copy(Path path) {
+        Path copy = new Path();
+        copy.set(path);
+        copiedBytes += COPY_BYTES;
+        return copy;
+    }
+}
@@ -0,0 +1,98 @@
+package com.airbnb.lottie.render;
+
+import ohos.agp.render.BlendMode;
+import ohos.agp.render.Paint;
+import ohos.agp.render.Path;
+import ohos.agp.utils.Matrix;
+import ohos.agp.utils.RectFloat;
+import ohos.media.image.PixelMap;
+
+/**
+ * The drawing operations the engine renders a frame with.
+ * <p>
+ * Layers and contents only ever draw through this interface so that a frame can be drawn into an ohos canvas with
+ * {@link CanvasRenderTarget}, counted with {@link CountingRenderTarget} or captured with {@link RecordingRenderTarget}
+ * and replayed later. Paints, paths and matrices are still the ohos value types.
+ */
+public interface RenderTarget {
+    /**
+     * Saves the current matrix and clip.
+     *
+     * @return save count to pass to {@link #restoreToCount(int)}
+     */
+    int save();
+
+    /**
+     * Saves the current matrix and clip and redirects drawing into an offscreen layer that is composited with paint
+     * on the matching {@link #restore()}.
+     *
+     * @param bounds bounds of the layer
+     * @param paint paint to composite the layer with
+     */
+    void saveLayer(RectFloat bounds, Paint paint);
+
+    void restore();
+
+    void restoreToCount(int saveCount);
+
+    void translate(float dx, float dy);
+
+    void scale(float sx, float sy, float px, float py);
+
+    void concat(Matrix matrix);
+
+    void clipRect(RectFloat rect);
+
+    /**
+     * Intersects the current clip with path.
+     *
+     * @param path path to clip to
+     */
+    void clipPath(Path path);
+
+    void drawPath(Path path, Paint paint);
+
+    void drawRect(RectFloat rect, Paint paint);
+
+    void drawText(Paint paint, String text, float x, float y);
+
+    /**
+     * Draws the src part of pixelMap scaled into dst.
+     *
+     * @param pixelMap pixel map to draw
+     * @param src part of the pixel map to draw
+     * @param dst where to draw it
+     * @param paint paint
+     */
+    void drawPixelMap(PixelMap pixelMap, RectFloat src, RectFloat dst, Paint paint);
+
+    /**
+     * Draws the whole pixelMap unscaled with its top left corner at left, top.
+     *
+     * @param pixelMap pixel map to draw
+     * @param left left
+     * @param top top
+     * @param paint paint
+     */
+    void drawPixelMap(PixelMap pixelMap, float left, float top, Paint paint);
+
+    void drawColor(int color, BlendMode blendMode);
+
+    /**
+     * Whether paints passed to draw calls are kept after the call returns, like a recording does. Drawing code must
+     * then not mutate anything a paint references, such as its shader, for a later draw.
+     *
+     * @return true if paints are kept, false if they are only used during the draw call
+     */
+    boolean retainsPaints();
+
+    /**
+     * @return width of the current clip in local coordinates or -1 if the target is unbounded
+     */
+    float getClipWidth();
+
+    /**
+     * @return height of the current clip in local coordinates or -1 if the target is unbounded
+     */
+    float getClipHeight();
+}
@@ -0,0 +1,142 @@
+package com.airbnb.lottie.utils;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed size histogram of render times that can be recorded into from the render thread while snapshots are taken on
+ * another thread.
+ * <p>
+ * Times are counted in microsecond buckets whose width grows with the value: every power of two is split into 16
+ * buckets, so percentiles are accurate to about 6% and recording a value is a few shifts and an atomic increment
+ * regardless of how many values have been recorded. Values above about 67s are counted in the last bucket.
+ */
+public class FrameTimeHistogram {
+
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final long MAX_MICROS = (1L << 26) - 1;
+  private static final int BUCKET_COUNT = indexOf(MAX_MICROS) + 1;
+
+  private final AtomicIntegerArray buckets = new AtomicIntegerArray(BUCKET_COUNT);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong sumMicros = new AtomicLong();
+  private final AtomicLong maxMicros = new AtomicLong();
+
+  public void add(float millis) {
+    long micros = Math.min(MAX_MICROS, Math.max(0, (long) (millis * 1000f)));
+    buckets.incrementAndGet(indexOf(micros));
+    count.incrementAndGet();
+    sumMicros.addAndGet(micros);
+    long max;
+    do {
+      max = maxMicros.get();
+    } while (micros > max && !maxMicros.compareAndSet(max, micros));
+  }
+
+  public void clear() {
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      buckets.set(i, 0);
+    }
+    count.set(0);
+    sumMicros.set(0);
+    maxMicros.set(0);
+  }
+
+  /**
+   * Copies the current counts. Values recorded while the snapshot is taken may or may not be included.
+   * @return snapshot
+   */
+  public Snapshot snapshot() {
+    int[] counts = new int[BUCKET_COUNT];
+    long total = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      counts[i] = buckets.get(i);
+      total += counts[i];
+    }
+    return new Snapshot(counts, total, sumMicros.get(), maxMicros.get());
+  }
+
+  private static int indexOf(long micros) {
+    if (micros < SUB_BUCKETS) {
+      return (int) micros;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) ((micros >> shift) - SUB_BUCKETS);
+  }
+
+  private static long upperBoundOf(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+    return ((subBucket + 1) << shift) - 1;
+  }
+
+  /**
+   * Immutable copy of a histogram.
+   */
+  public static class Snapshot {
+
+    private final int[] counts;
+    private final long count;
+    private final long sumMicros;
+    private final long maxMicros;
+
+    Snapshot(int[] counts, long count, long sumMicros, long maxMicros) {
+      this.counts = counts;
+      this.count = count;
+      this.sumMicros = sumMicros;
+      this.maxMicros = maxMicros;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public float getMean() {
+      if (count == 0) {
+        return 0;
+      }
+      return sumMicros / (float) count / 1000f;
+    }
+
+    public float getMax() {
+      return maxMicros / 1000f;
+    }
+
+    /**
+     * Returns the value in ms below which the given fraction of the recorded values fall. This is the upper bound of
+     * the bucket the percentile falls into so it errs on the slow side.
+     * @param percentile from 0 to 100
+     * @return time in ms, 0 if nothing was recorded
+     */
+    public float getPercentile(float percentile) {
+      if (count == 0) {
+        return 0;
+      }
+      long rank = Math.max(1, (long) Math.ceil(percentile / 100f * count));
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank) {
+          return Math.min(upperBoundOf(i), maxMicros) / 1000f;
+        }
+      }
+      return getMax();
+    }
+
+    public float getP50() {
+      return getPercentile(50);
+    }
+
+    public float getP90() {
+      return getPercentile(90);
+    }
+
+    public float getP99() {
+      return getPercentile(99);
+    }
+  }
+}
@@ -0,0 +1,37 @@
+package com.airbnb.lottie.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class to count hits and misses of a cache on a continuous basis. Caches may be hit from several threads.
+ */
+public class HitCounter {
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  public void hit() {
+    hits.incrementAndGet();
+  }
+
+  public void miss() {
+    misses.incrementAndGet();
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public float getHitRate() {
+    long hits = this.hits.get();
+    long total = hits + misses.get();
+    if (total == 0) {
+      return 0;
+    }
+    return hits / (float) total;
+  }
+}
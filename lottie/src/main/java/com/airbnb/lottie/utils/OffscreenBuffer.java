@@ -0,0 +1,91 @@
+package com.airbnb.lottie.utils;
+
+import com.airbnb.lottie.render.CanvasRenderTarget;
+import com.airbnb.lottie.render.RenderTarget;
+
+import ohos.agp.render.BlendMode;
+import ohos.agp.render.Canvas;
+import ohos.agp.render.Paint;
+import ohos.agp.render.Texture;
+import ohos.agp.utils.Color;
+import ohos.agp.utils.RectFloat;
+import ohos.media.image.PixelMap;
+import ohos.media.image.common.PixelFormat;
+import ohos.media.image.common.Size;
+
+/**
+ * A reusable ARGB_8888 {@link PixelMap} surface with a canvas drawing into it.
+ * Obtain one from {@link OffscreenBufferPool#acquire(int, int)} and give it back with
+ * {@link OffscreenBufferPool#release(OffscreenBuffer)}.
+ */
+public final class OffscreenBuffer {
+    private final PixelMap pixelMap;
+    private final Canvas canvas;
+    private final CanvasRenderTarget renderTarget;
+    private final int width;
+    private final int height;
+    private final RectFloat srcRect = new RectFloat();
+    private final RectFloat dstRect = new RectFloat();
+
+    OffscreenBuffer(int width, int height) {
+        PixelMap.InitializationOptions options = new PixelMap.InitializationOptions();
+        options.size = new Size(width, height);
+        options.pixelFormat = PixelFormat.ARGB_8888;
+        options.editable = true;
+        this.pixelMap = PixelMap.create(options);
+        this.canvas = new Canvas(new Texture(pixelMap));
+        this.renderTarget = new CanvasRenderTarget(canvas);
+        this.width = width;
+        this.height = height;
+    }
+
+    public Canvas getCanvas() {
+        return canvas;
+    }
+
+    /**
+     * @return the canvas of this buffer wrapped for the engine to draw into
+     */
+    public RenderTarget getRenderTarget() {
+        return renderTarget;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public long getByteCount() {
+        return width * (long) height * 4;
+    }
+
+    /**
+     * Clears the whole buffer to transparent. Buffers are recycled so this has to be done before drawing into one.
+     */
+    public void clear() {
+        canvas.drawColor(Color.TRANSPARENT.getValue(), BlendMode.CLEAR);
+    }
+
+    /**
+     * Draws the top left width x height pixels of this buffer onto another canvas at left, top. Buffers can be larger
+     * than what was asked for, the rest of them is not drawn.
+     * @param target target to draw onto
+     * @param left left of the buffer in the target canvas coordinates
+     * @param top top of the buffer in the target canvas coordinates
+     * @param width width of the area to draw
+     * @param height height of the area to draw
+     * @param paint paint, usually carrying the blend mode to composite with
+     */
+    public void drawTo(RenderTarget target, float left, float top, int width, int height, Paint paint) {
+        srcRect.modify(0, 0, width, height);
+        dstRect.modify(left, top, left + width, top + height);
+        target.drawPixelMap(pixelMap, srcRect, dstRect, paint);
+    }
+
+    void release() {
+        pixelMap.release();
+    }
+}
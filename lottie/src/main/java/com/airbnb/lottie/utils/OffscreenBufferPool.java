@@ -0,0 +1,118 @@
+package com.airbnb.lottie.utils;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pool of {@link OffscreenBuffer}s shared by every layer and drawable so that masks and mattes can be rendered into
+ * recycled surfaces instead of a fresh saveLayer every frame.
+ * <p>
+ * Buffers are allocated in {@link #SIZE_STEP} increments so that bounds which change slightly from frame to frame
+ * still reuse the same surface. The total size of all buffers, in use or free, never exceeds the memory cap. When a
+ * buffer can't be allocated within the cap, {@link #acquire(int, int)} returns null and callers should fall back to
+ * saveLayer.
+ */
+public final class OffscreenBufferPool {
+    private static final int SIZE_STEP = 64;
+
+    private static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+
+    private static final OffscreenBufferPool INSTANCE = new OffscreenBufferPool();
+
+    public static OffscreenBufferPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Free buffers, least recently released first.
+     */
+    private final List<OffscreenBuffer> freeBuffers = new ArrayList<>();
+
+    private long maxBytes = DEFAULT_MAX_BYTES;
+
+    private long allocatedBytes;
+
+    private OffscreenBufferPool() {
+    }
+
+    /**
+     * Returns a cleared buffer at least width x height pixels large, or null if it wouldn't fit in the memory cap.
+     * @param width minimum width in pixels
+     * @param height minimum height in pixels
+     * @return buffer that must be given back with {@link #release(OffscreenBuffer)}
+     */
+    @Nullable
+    public synchronized OffscreenBuffer acquire(int width, int height) {
+        OffscreenBuffer best = null;
+        for (int i = 0; i < freeBuffers.size(); i++) {
+            OffscreenBuffer buffer = freeBuffers.get(i);
+            if (buffer.getWidth() >= width && buffer.getHeight() >= height
+                && (best == null || buffer.getByteCount() < best.getByteCount())) {
+                best = buffer;
+            }
+        }
+        if (best != null) {
+            freeBuffers.remove(best);
+            best.clear();
+            return best;
+        }
+
+        int roundedWidth = roundUp(width);
+        int roundedHeight = roundUp(height);
+        long bytes = roundedWidth * (long) roundedHeight * 4;
+        while (allocatedBytes + bytes > maxBytes && !freeBuffers.isEmpty()) {
+            discard(freeBuffers.remove(0));
+        }
+        if (allocatedBytes + bytes > maxBytes) {
+            return null;
+        }
+        OffscreenBuffer buffer = new OffscreenBuffer(roundedWidth, roundedHeight);
+        allocatedBytes += bytes;
+        return buffer;
+    }
+
+    public synchronized void release(OffscreenBuffer buffer) {
+        if (allocatedBytes > maxBytes) {
+            discard(buffer);
+            return;
+        }
+        freeBuffers.add(buffer);
+    }
+
+    /**
+     * Sets the maximum number of bytes that pooled buffers may use. Free buffers above the cap are released right
+     * away; buffers in use are released when they are given back.
+     * @param maxBytes memory cap in bytes
+     */
+    public synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        while (allocatedBytes > maxBytes && !freeBuffers.isEmpty()) {
+            discard(freeBuffers.remove(0));
+        }
+    }
+
+    public synchronized long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Releases all free buffers.
+     */
+    public synchronized void clear() {
+        for (int i = 0; i < freeBuffers.size(); i++) {
+            discard(freeBuffers.get(i));
+        }
+        freeBuffers.clear();
+    }
+
+    private void discard(OffscreenBuffer buffer) {
+        allocatedBytes -= buffer.getByteCount();
+        buffer.release();
+    }
+
+    private static int roundUp(int size) {
+        return Math.max(SIZE_STEP, (size + SIZE_STEP - 1) / SIZE_STEP * SIZE_STEP);
+    }
+}
@@ -3,8 +3,8 @@ package com.airbnb.lottie.utils;
 import com.airbnb.lottie.L;
 import com.airbnb.lottie.animation.content.TrimPathContent;
 import com.airbnb.lottie.animation.keyframe.FloatKeyframeAnimation;
+import com.airbnb.lottie.render.RenderTarget;
 
-import ohos.agp.render.Canvas;
 import ohos.agp.render.Paint;
 import ohos.agp.render.Path;
 import ohos.agp.render.PathMeasure;
@@ -108,6 +108,34 @@ public final class Utils {
         return (float) Math.hypot(dx, dy);
     }
 
+    /**
+     * @param matrix matrix to check
+     * @return true if the matrix maps axis aligned rectangles to axis aligned rectangles, i.e. it only scales,
+     *     translates, mirrors or rotates by a multiple of 90 degrees
+     */
+    public static boolean preservesAxes(Matrix matrix) {
+        final float[] points = threadLocalPoints.get();
+        points[0] = 0;
+        points[1] = 0;
+        points[2] = 1;
+        points[3] = 0;
+        matrix.mapPoints(points);
+        float xAxisX = points[2] - points[0];
+        float xAxisY = points[3] - points[1];
+        points[0] = 0;
+        points[1] = 0;
+        points[2] = 0;
+        points[3] = 1;
+        matrix.mapPoints(points);
+        float yAxisX = points[2] - points[0];
+        float yAxisY = points[3] - points[1];
+        return isZero(xAxisY) && isZero(yAxisX) || isZero(xAxisX) && isZero(yAxisY);
+    }
+
+    private static boolean isZero(float value) {
+        return Math.abs(value) < 1e-4f;
+    }
+
     public static boolean hasZeroScaleAxis(Matrix matrix) {
         final float[] points = threadLocalPoints.get();
         points[0] = 0;
@@ -287,11 +315,11 @@ public final class Utils {
             || e instanceof UnknownHostException || e instanceof UnknownServiceException;
     }
 
-    public static void saveLayerCompat(Canvas canvas, RectFloat rect, Paint paint) {
+    public static void saveLayerCompat(RenderTarget canvas, RectFloat rect, Paint paint) {
         saveLayerCompat(canvas, rect, paint, 31);
     }
 
-    public static void saveLayerCompat(Canvas canvas, RectFloat rect, Paint paint, int flag) {
+    public static void saveLayerCompat(RenderTarget canvas, RectFloat rect, Paint paint, int flag) {
         HiTraceId id = L.beginSection("Utils#saveLayer");
         canvas.saveLayer(rect, paint);
         L.endSection(id);
@@ -4,9 +4,20 @@ import com.airbnb.lottie.animation.keyframe.BaseKeyframeAnimation;
 import com.airbnb.lottie.model.KeyPath;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+
 /**
  * Allows you to set a callback on a resolved {@link KeyPath} to modify
  * its animation values at runtime.
+ * <p>
+ * When the display list cache of the drawable is enabled, recorded frames keep the values returned
+ * when they were recorded. {@link #setValue(Object)} drops them, but if {@link #getValue(LottieFrameInfo)}
+ * returns values that change for other reasons than the frame, call
+ * {@link com.airbnb.lottie.LottieDrawable#clearDisplayListCache()} whenever they change.
  */
 public class LottieValueCallback<T> {
     private final LottieFrameInfo<T> frameInfo = new LottieFrameInfo<>();
@@ -19,6 +30,12 @@ public class LottieValueCallback<T> {
      **/
     @Nullable protected T value = null;
 
+    /**
+     * Weak so that a callback shared by several drawables doesn't keep them alive, each drawable holds on to its
+     * listener itself.
+     */
+    private final Set<Runnable> valueSetListeners = Collections.newSetFromMap(new WeakHashMap<Runnable, Boolean>());
+
     public LottieValueCallback() {
     }
 
@@ -38,11 +55,29 @@ public class LottieValueCallback<T> {
 
     public final void setValue(@Nullable T value) {
         this.value = value;
+        List<Runnable> listeners;
+        synchronized (valueSetListeners) {
+            listeners = new ArrayList<>(valueSetListeners);
+        }
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
         if (animation != null) {
             animation.notifyListeners();
         }
     }
 
+    /**
+     * Added by every drawable the callback is added to, so that a new value drops frames recorded with the old one.
+     * Listeners are only weakly referenced.
+     * @param listener run whenever {@link #setValue(Object)} is called
+     */
+    public final void addValueSetListener(Runnable listener) {
+        synchronized (valueSetListeners) {
+            valueSetListeners.add(listener);
+        }
+    }
+
     @Nullable
     public final T getValueInternal(float startFrame, float endFrame, T startValue, T endValue,
         float linearKeyframeProgress, float interpolatedKeyframeProgress, float overallProgress) {
@@ -0,0 +1,85 @@
+package com.airbnb.lottie.value;
+
+import com.airbnb.lottie.model.KeyPath;
+import com.airbnb.lottie.model.KeyPathElement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A set of value callbacks, e.g. a theme, that is applied with a single call to
+ * LottieDrawable#addValueCallbacks so that all of its {@link KeyPath KeyPaths} are resolved in one pass over the
+ * animation instead of one walk per callback.
+ */
+public class LottieValueCallbackBatch {
+    private final List<Entry<?>> entries = new ArrayList<>();
+
+    /**
+     * Adds a callback, see LottieDrawable#addValueCallback(KeyPath, Object, LottieValueCallback).
+     * @param keyPath keypath
+     * @param property to set
+     * @param callback of LottieValueCallback<T>
+     * @return this batch
+     */
+    public <T> LottieValueCallbackBatch add(KeyPath keyPath, T property, LottieValueCallback<T> callback) {
+        entries.add(new Entry<>(keyPath, property, callback));
+        return this;
+    }
+
+    /**
+     * Overload of {@link #add(KeyPath, Object, LottieValueCallback)} that takes an interface.
+     * @param keyPath keypath
+     * @param property to set
+     * @param callback of SimpleLottieValueCallback<T>
+     * @return this batch
+     */
+    public <T> LottieValueCallbackBatch add(KeyPath keyPath, T property, final SimpleLottieValueCallback<T> callback) {
+        return add(keyPath, property, new LottieValueCallback<T>() {
+            @Override
+            public T getValue(LottieFrameInfo<T> frameInfo) {
+                return callback.getValue(frameInfo);
+            }
+        });
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public KeyPath getKeyPath(int index) {
+        return entries.get(index).keyPath;
+    }
+
+    public Object getProperty(int index) {
+        return entries.get(index).property;
+    }
+
+    public LottieValueCallback<?> getCallback(int index) {
+        return entries.get(index).callback;
+    }
+
+    /**
+     * Sets the callback at index on a resolved element.
+     * @param index index of the callback
+     * @param element element its KeyPath resolved to
+     */
+    public void applyTo(int index, KeyPathElement element) {
+        entries.get(index).applyTo(element);
+    }
+
+    private static final class Entry<T> {
+        private final KeyPath keyPath;
+        private final T property;
+        private final LottieValueCallback<T> callback;
+
+        Entry(KeyPath keyPath, T property, LottieValueCallback<T> callback) {
+            this.keyPath = keyPath;
+            this.property = property;
+            this.callback = callback;
+        }
+
+        void applyTo(KeyPathElement element) {
+            element.addValueCallback(property, callback);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.airbnb.lottie;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Loads of the same cache key share one task. The streams block until the test opens the gate and never hold valid
+ * json, so nothing is parsed or cached.
+ */
+public class LottieCompositionFactoryTest {
+    private static final long TIMEOUT_MS = 5000;
+
+    private static final int THREADS = 16;
+
+    private static final int ROUNDS = 20;
+
+    private final CountDownLatch gate = new CountDownLatch(1);
+
+    private final AtomicInteger streamsRead = new AtomicInteger();
+
+    @After
+    public void tearDown() {
+        gate.countDown();
+    }
+
+    @Test
+    public void concurrentLoadsOfOneKeyShareOneTask() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            final String cacheKey = "single_flight_" + round;
+            final CyclicBarrier barrier = new CyclicBarrier(THREADS);
+            final AtomicReferenceArray<LottieTask<LottieComposition>> tasks = new AtomicReferenceArray<>(THREADS);
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                final int index = i;
+                Thread thread = new Thread(() -> {
+                    try {
+                        barrier.await(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                    } catch (Exception e) {
+                        return;
+                    }
+                    tasks.set(index, LottieCompositionFactory.fromJsonInputStream(new GatedStream(), cacheKey));
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join(TIMEOUT_MS);
+            }
+
+            LottieTask<LottieComposition> shared = tasks.get(0);
+            assertNotNull(shared);
+            for (int i = 1; i < THREADS; i++) {
+                assertSame(shared, tasks.get(i));
+            }
+            waitForStreamsRead(round + 1);
+            for (int i = 0; i < THREADS; i++) {
+                LottieCompositionFactory.releaseTask(tasks.get(i));
+            }
+            assertTrue(shared.isCancelled());
+        }
+        assertEquals(ROUNDS, streamsRead.get());
+    }
+
+    @Test
+    public void taskIsOnlyCancelledOnceEveryHolderReleasedIt() throws Exception {
+        LottieTask<LottieComposition> first = LottieCompositionFactory.fromJsonInputStream(new GatedStream(), "shared");
+        LottieTask<LottieComposition> second = LottieCompositionFactory.fromJsonInputStream(new GatedStream(), "shared");
+        assertSame(first, second);
+
+        LottieCompositionFactory.releaseTask(first);
+        assertFalse(first.isCancelled());
+        LottieCompositionFactory.releaseTask(second);
+        assertTrue(first.isCancelled());
+
+        LottieTask<LottieComposition> third = LottieCompositionFactory.fromJsonInputStream(new GatedStream(), "shared");
+        assertNotSame(first, third);
+        assertFalse(third.isCancelled());
+        LottieCompositionFactory.releaseTask(third);
+        assertTrue(third.isCancelled());
+    }
+
+    @Test
+    public void differentKeysDoNotShareATask() {
+        LottieTask<LottieComposition> a = LottieCompositionFactory.fromJsonInputStream(new GatedStream(), "a");
+        LottieTask<LottieComposition> b = LottieCompositionFactory.fromJsonInputStream(new GatedStream(), "b");
+        LottieTask<LottieComposition> first = LottieCompositionFactory.fromJsonInputStream(new GatedStream(), null);
+        LottieTask<LottieComposition> second = LottieCompositionFactory.fromJsonInputStream(new GatedStream(), null);
+
+        assertNotSame(a, b);
+        assertNotSame(first, second);
+        LottieCompositionFactory.releaseTask(a);
+        LottieCompositionFactory.releaseTask(b);
+        LottieCompositionFactory.releaseTask(first);
+        LottieCompositionFactory.releaseTask(second);
+    }
+
+    @Test
+    public void loadFinishedBySynchronousExecutorIsNotShared() {
+        Executor executor = LottieTask.EXECUTOR;
+        LottieTask.EXECUTOR = Runnable::run;
+        gate.countDown();
+        try {
+            LottieTask<LottieComposition> first =
+                LottieCompositionFactory.fromJsonInputStream(new GatedStream(), "synchronous");
+            LottieTask<LottieComposition> second =
+                LottieCompositionFactory.fromJsonInputStream(new GatedStream(), "synchronous");
+
+            assertNotSame(first, second);
+            assertEquals(2, streamsRead.get());
+        } finally {
+            LottieTask.EXECUTOR = executor;
+        }
+    }
+
+    private void waitForStreamsRead(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (streamsRead.get() < count) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Timed out waiting for the load to start.");
+            }
+            Thread.sleep(10);
+        }
+        // Give a second load of the same key the chance to show up.
+        Thread.sleep(50);
+        assertEquals(count, streamsRead.get());
+    }
+
+    /**
+     * Blocks on the first read until the gate opens or the load is cancelled, then fails.
+     */
+    private final class GatedStream extends InputStream {
+        private boolean read;
+
+        @Override
+        public int read() throws IOException {
+            if (!read) {
+                read = true;
+                streamsRead.incrementAndGet();
+                try {
+                    gate.await(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+            }
+            throw new IOException("Not an animation.");
+        }
+    }
+}
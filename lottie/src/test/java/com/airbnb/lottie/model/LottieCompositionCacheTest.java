@@ -0,0 +1,51 @@
+package com.airbnb.lottie.model;
+
+import com.airbnb.lottie.LottieComposition;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Pinning of prefetched compositions. The cache holds a single composition so that every put evicts the previous one
+ * unless it is pinned.
+ */
+public class LottieCompositionCacheTest {
+    private LottieCompositionCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new LottieCompositionCache();
+        cache.setWeigher(composition -> 1);
+        cache.resize(1);
+    }
+
+    @Test
+    public void peekKeepsThePin() {
+        LottieComposition prefetched = new LottieComposition();
+        cache.pin("prefetched");
+        cache.put("prefetched", prefetched);
+
+        assertSame(prefetched, cache.peek("prefetched"));
+        cache.put("other", new LottieComposition());
+
+        assertSame(prefetched, cache.peek("prefetched"));
+        assertEquals(0, cache.getHitCount());
+        assertEquals(0, cache.getMissCount());
+    }
+
+    @Test
+    public void getReleasesThePin() {
+        LottieComposition prefetched = new LottieComposition();
+        cache.pin("prefetched");
+        cache.put("prefetched", prefetched);
+
+        assertSame(prefetched, cache.get("prefetched"));
+        cache.put("other", new LottieComposition());
+
+        assertNull(cache.peek("prefetched"));
+        assertEquals(1, cache.getHitCount());
+    }
+}
@@ -0,0 +1,182 @@
+package com.airbnb.lottie.network;
+
+import com.airbnb.lottie.LottieComposition;
+import com.airbnb.lottie.LottieResult;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares one batch against the same urls loaded one by one on a pool the size of the loader pool, the way
+ * {@link com.airbnb.lottie.LottieCompositionFactory#fromUrl} loads them. Three loopback servers stand in for three
+ * hosts and answer every request after {@link #LATENCY_MS}. Wall time, connections opened and the most requests a
+ * host saw at once are printed.
+ */
+public class BatchFetchBenchmarkTest {
+    private static final long LATENCY_MS = 50;
+
+    private static final int LOADER_THREADS = 4;
+
+    /**
+     * Requests per host, the first host gets most of them so that it is in the way of the others.
+     */
+    private static final int[] URLS_PER_HOST = {16, 8, 8};
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final List<HttpServer> servers = new ArrayList<>();
+
+    private final List<Host> hosts = new ArrayList<>();
+
+    private ExecutorService serverExecutor;
+
+    @Before
+    public void setUp() throws IOException {
+        serverExecutor = Executors.newCachedThreadPool();
+        for (int i = 0; i < URLS_PER_HOST.length; i++) {
+            final Host host = new Host();
+            HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            server.setExecutor(serverExecutor);
+            server.createContext("/", exchange -> {
+                host.connections.add(exchange.getRemoteAddress().getPort());
+                host.maxRunning.accumulateAndGet(host.running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(LATENCY_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                host.running.decrementAndGet();
+                // An error so that no composition has to be parsed.
+                byte[] body = "missing".getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(404, body.length);
+                try (OutputStream output = exchange.getResponseBody()) {
+                    output.write(body);
+                }
+            });
+            server.start();
+            servers.add(server);
+            host.baseUrl = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+            hosts.add(host);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        for (HttpServer server : servers) {
+            server.stop(0);
+        }
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void reportBatchAgainstSingleLoads() throws Exception {
+        // Warms up the JIT and HttpURLConnection, then starts from fresh counters and idle connections.
+        fetchOneByOne(urls("warmup"));
+        fetchBatch(urls("warmup-batch"));
+        System.out.println("mode, requests, wall ms, connections, max concurrent per host");
+
+        long start = System.nanoTime();
+        List<LottieResult<LottieComposition>> single = fetchOneByOne(urls("single"));
+        report("one by one", single, start);
+
+        start = System.nanoTime();
+        List<LottieResult<LottieComposition>> batch = fetchBatch(urls("batch"));
+        report("batch", batch, start);
+        for (Host host : hosts) {
+            assertTrue(host.maxRunning.get() <= 4);
+        }
+    }
+
+    private List<String> urls(String prefix) {
+        for (Host host : hosts) {
+            host.connections.clear();
+            host.maxRunning.set(0);
+        }
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < hosts.size(); i++) {
+            for (int j = 0; j < URLS_PER_HOST[i]; j++) {
+                urls.add(hosts.get(i).baseUrl + "/" + prefix + j + ".json");
+            }
+        }
+        return urls;
+    }
+
+    private List<LottieResult<LottieComposition>> fetchOneByOne(List<String> urls) throws Exception {
+        NetworkFetcher networkFetcher = newNetworkFetcher();
+        ExecutorService loader = Executors.newFixedThreadPool(LOADER_THREADS);
+        try {
+            List<Future<LottieResult<LottieComposition>>> futures = new ArrayList<>();
+            for (String url : urls) {
+                futures.add(loader.submit(() -> networkFetcher.fetchSync(url, "url_" + url)));
+            }
+            List<LottieResult<LottieComposition>> results = new ArrayList<>();
+            for (Future<LottieResult<LottieComposition>> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            loader.shutdown();
+        }
+    }
+
+    private List<LottieResult<LottieComposition>> fetchBatch(List<String> urls) {
+        return newNetworkFetcher().fetchSync(urls, null);
+    }
+
+    private NetworkFetcher newNetworkFetcher() {
+        return new NetworkFetcher(new NetworkCache(temporaryFolder::getRoot), new DefaultLottieNetworkFetcher());
+    }
+
+    private void report(String mode, List<LottieResult<LottieComposition>> results, long start) {
+        long wallMs = (System.nanoTime() - start) / 1_000_000;
+        int connections = 0;
+        StringBuilder maxRunning = new StringBuilder();
+        for (Host host : hosts) {
+            connections += host.connections.size();
+            maxRunning.append(maxRunning.length() == 0 ? "" : "/").append(host.maxRunning.get());
+        }
+        int requests = 0;
+        for (int count : URLS_PER_HOST) {
+            requests += count;
+        }
+        assertEquals(requests, results.size());
+        for (LottieResult<LottieComposition> result : results) {
+            assertNotNull(result.getException());
+        }
+        System.out.println(String.format(Locale.US, "%s, %d, %d, %d, %s", mode, requests, wallMs, connections,
+            maxRunning));
+    }
+
+    private static final class Host {
+        private final Set<Integer> connections = ConcurrentHashMap.newKeySet();
+
+        private final AtomicInteger running = new AtomicInteger();
+
+        private final AtomicInteger maxRunning = new AtomicInteger();
+
+        private String baseUrl;
+    }
+}
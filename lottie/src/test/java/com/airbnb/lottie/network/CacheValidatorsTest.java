@@ -0,0 +1,78 @@
+package com.airbnb.lottie.network;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CacheValidatorsTest {
+    private static final long NOW = 1_600_000_000_000L;
+
+    @Test
+    public void readsValidatorsAndMaxAge() {
+        CacheValidators validators = CacheValidators.fromResult(new FakeFetchResult()
+            .header("ETag", "\"abc\"")
+            .header("Last-Modified", "Wed, 21 Oct 2015 07:28:00 GMT")
+            .header("Cache-Control", "public, max-age=60"), NOW);
+
+        assertEquals("\"abc\"", validators.getEtag());
+        assertEquals("Wed, 21 Oct 2015 07:28:00 GMT", validators.getLastModified());
+        assertEquals(NOW + 60_000, validators.getExpiresAt());
+        assertTrue(validators.canRevalidate());
+        assertTrue(validators.isFresh(NOW + 59_999));
+        assertFalse(validators.isFresh(NOW + 60_000));
+    }
+
+    @Test
+    public void noCacheIsNeverFresh() {
+        assertFalse(CacheValidators.fromResult(new FakeFetchResult()
+            .header("Cache-Control", "max-age=60, no-cache"), NOW).isFresh(NOW));
+        assertFalse(CacheValidators.fromResult(new FakeFetchResult()
+            .header("Cache-Control", "No-Store"), NOW).isFresh(NOW));
+    }
+
+    @Test
+    public void malformedMaxAgeIsNeverFresh() {
+        assertEquals(NOW, CacheValidators.fromResult(new FakeFetchResult()
+            .header("Cache-Control", "max-age=soon"), NOW).getExpiresAt());
+        assertEquals(NOW, CacheValidators.fromResult(new FakeFetchResult()
+            .header("Cache-Control", "max-age=-5"), NOW).getExpiresAt());
+        assertEquals(NOW, CacheValidators.fromResult(new FakeFetchResult(), NOW).getExpiresAt());
+    }
+
+    @Test
+    public void withoutValidatorsCannotRevalidate() {
+        CacheValidators validators = CacheValidators.fromResult(new FakeFetchResult(), NOW);
+
+        assertNull(validators.getEtag());
+        assertNull(validators.getLastModified());
+        assertFalse(validators.canRevalidate());
+    }
+
+    @Test
+    public void revalidationKeepsValidatorsTheServerDidNotResend() {
+        CacheValidators validators = new CacheValidators("\"abc\"", "Wed, 21 Oct 2015 07:28:00 GMT", NOW);
+
+        CacheValidators revalidated = validators.revalidated(new FakeFetchResult()
+            .notModified()
+            .header("Cache-Control", "max-age=120"), NOW + 1000);
+
+        assertEquals("\"abc\"", revalidated.getEtag());
+        assertEquals("Wed, 21 Oct 2015 07:28:00 GMT", revalidated.getLastModified());
+        assertEquals(NOW + 121_000, revalidated.getExpiresAt());
+    }
+
+    @Test
+    public void revalidationTakesNewValidators() {
+        CacheValidators validators = new CacheValidators("\"abc\"", null, NOW);
+
+        CacheValidators revalidated = validators.revalidated(new FakeFetchResult()
+            .notModified()
+            .header("ETag", "\"def\""), NOW);
+
+        assertEquals("\"def\"", revalidated.getEtag());
+        assertNull(revalidated.getLastModified());
+    }
+}
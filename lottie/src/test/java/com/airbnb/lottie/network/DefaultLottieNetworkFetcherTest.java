@@ -0,0 +1,166 @@
+package com.airbnb.lottie.network;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the default fetcher against a loopback server that serves one animation with an ETag.
+ */
+public class DefaultLottieNetworkFetcherTest {
+    private static final String JSON = "{\"v\":\"5.7.1\",\"fr\":60,\"ip\":0,\"op\":120,\"w\":512,\"h\":512,\"layers\":[]}";
+
+    private static final String ETAG = "\"v1\"";
+
+    private static final String LAST_MODIFIED = "Wed, 21 Oct 2015 07:28:00 GMT";
+
+    private HttpServer server;
+
+    private String baseUrl;
+
+    private volatile String lastIfNoneMatch;
+
+    private volatile String lastIfModifiedSince;
+
+    private volatile String lastAcceptEncoding;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/animation.json", this::serveAnimation);
+        server.createContext("/missing.json", exchange -> send(exchange, 404, "missing", true));
+        server.start();
+        baseUrl = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void fetchesTheAnimationWithItsValidators() throws IOException {
+        try (LottieFetchResult result = new DefaultLottieNetworkFetcher().fetchSync(baseUrl + "/animation.json")) {
+            assertTrue(result.isSuccessful());
+            assertFalse(result.isNotModified());
+            assertNull(result.error());
+            assertEquals("application/json", result.contentType());
+            assertEquals(ETAG, result.header("ETag"));
+            assertEquals(JSON, read(result.bodyByteStream()));
+        }
+        assertNull(lastIfNoneMatch);
+    }
+
+    @Test
+    public void conditionalRequestIsAnsweredWithNotModified() throws IOException {
+        CacheValidators validators = new CacheValidators(ETAG, LAST_MODIFIED, 0);
+
+        try (LottieFetchResult result = new DefaultLottieNetworkFetcher()
+            .fetchSync(baseUrl + "/animation.json", validators)) {
+            assertTrue(result.isNotModified());
+            assertFalse(result.isSuccessful());
+
+            CacheValidators revalidated = validators.revalidated(result, 1000);
+            assertEquals(ETAG, revalidated.getEtag());
+            assertEquals(LAST_MODIFIED, revalidated.getLastModified());
+            assertEquals(61_000, revalidated.getExpiresAt());
+        }
+        assertEquals(ETAG, lastIfNoneMatch);
+        assertEquals(LAST_MODIFIED, lastIfModifiedSince);
+    }
+
+    @Test
+    public void changedAnimationIsDownloadedAgain() throws IOException {
+        CacheValidators validators = new CacheValidators("\"v0\"", null, 0);
+
+        try (LottieFetchResult result = new DefaultLottieNetworkFetcher()
+            .fetchSync(baseUrl + "/animation.json", validators)) {
+            assertTrue(result.isSuccessful());
+            assertEquals(JSON, read(result.bodyByteStream()));
+            CacheValidators fresh = CacheValidators.fromResult(result, 1000);
+            assertEquals(ETAG, fresh.getEtag());
+            assertTrue(fresh.isFresh(60_999));
+        }
+        assertEquals("\"v0\"", lastIfNoneMatch);
+        assertNull(lastIfModifiedSince);
+    }
+
+    @Test
+    public void gzipResponseIsInflated() throws IOException {
+        try (LottieFetchResult result = new DefaultLottieNetworkFetcher().fetchSync(baseUrl + "/animation.json")) {
+            assertEquals("gzip", result.header("Content-Encoding"));
+            assertEquals(JSON, read(result.bodyByteStream()));
+        }
+        assertEquals("gzip", lastAcceptEncoding);
+    }
+
+    @Test
+    public void errorIncludesTheResponseBody() throws IOException {
+        try (LottieFetchResult result = new DefaultLottieNetworkFetcher().fetchSync(baseUrl + "/missing.json")) {
+            assertFalse(result.isSuccessful());
+            assertFalse(result.isNotModified());
+            // The error body can only be read once.
+            String error = result.error();
+            assertTrue(error, error.contains("404"));
+            assertTrue(error, error.contains("missing"));
+        }
+    }
+
+    private void serveAnimation(HttpExchange exchange) throws IOException {
+        lastIfNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        lastIfModifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+        exchange.getResponseHeaders().set("Cache-Control", "max-age=60");
+        if (ETAG.equals(lastIfNoneMatch)) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        exchange.getResponseHeaders().set("ETag", ETAG);
+        exchange.getResponseHeaders().set("Last-Modified", LAST_MODIFIED);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        lastAcceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        send(exchange, 200, JSON, lastAcceptEncoding != null && lastAcceptEncoding.contains("gzip"));
+    }
+
+    private static void send(HttpExchange exchange, int code, String body, boolean gzip) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        if (gzip) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream output = new GZIPOutputStream(compressed)) {
+                output.write(bytes);
+            }
+            bytes = compressed.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    private static String read(InputStream stream) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = stream.read(buffer)) != -1) {
+            output.write(buffer, 0, read);
+        }
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
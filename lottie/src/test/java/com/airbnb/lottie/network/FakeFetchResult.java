@@ -0,0 +1,77 @@
+package com.airbnb.lottie.network;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-memory response for tests that don't need a server.
+ */
+final class FakeFetchResult implements LottieFetchResult {
+    private final Map<String, String> headers = new HashMap<>();
+
+    private int code = 200;
+
+    private byte[] body = new byte[0];
+
+    FakeFetchResult header(String name, String value) {
+        headers.put(name, value);
+        return this;
+    }
+
+    FakeFetchResult code(int code) {
+        this.code = code;
+        return this;
+    }
+
+    FakeFetchResult notModified() {
+        return code(304);
+    }
+
+    FakeFetchResult body(byte[] body) {
+        this.body = body;
+        return this;
+    }
+
+    @Override
+    public boolean isSuccessful() {
+        return code / 100 == 2;
+    }
+
+    @NotNull
+    @Override
+    public InputStream bodyByteStream() {
+        return new ByteArrayInputStream(body);
+    }
+
+    @Nullable
+    @Override
+    public String contentType() {
+        return headers.get("Content-Type");
+    }
+
+    @Nullable
+    @Override
+    public String error() {
+        return isSuccessful() ? null : "Failed with " + code;
+    }
+
+    @Nullable
+    @Override
+    public String header(@NotNull String name) {
+        return headers.get(name);
+    }
+
+    @Override
+    public boolean isNotModified() {
+        return code == 304;
+    }
+
+    @Override
+    public void close() {
+    }
+}
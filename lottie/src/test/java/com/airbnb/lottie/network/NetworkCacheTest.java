@@ -0,0 +1,328 @@
+package com.airbnb.lottie.network;
+
+import ohos.utils.Pair;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class NetworkCacheTest {
+    private static final String URL_A = "https://example.com/a.json";
+
+    private static final String URL_B = "https://example.com/b.json";
+
+    private static final String URL_C = "https://example.com/c.json";
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File cacheDir;
+
+    private LottieNetworkCacheProvider cacheProvider;
+
+    @Before
+    public void setUp() throws IOException {
+        cacheDir = new File(temporaryFolder.getRoot(), "lottie_network_cache");
+        cacheProvider = () -> cacheDir;
+    }
+
+    @Test
+    public void committedFileIsAHit() throws IOException {
+        NetworkCache cache = new NetworkCache(cacheProvider);
+
+        assertNull(cache.fetchFile(URL_A));
+        put(cache, URL_A, "aaaa");
+
+        Pair<FileExtension, File> cached = cache.fetchFile(URL_A);
+        assertNotNull(cached);
+        assertEquals(FileExtension.JSON, cached.f);
+        assertArrayEquals(bytes("aaaa"), Files.readAllBytes(cached.s.toPath()));
+        assertEquals(4, cache.getSize());
+    }
+
+    @Test
+    public void uncommittedFileIsAMiss() throws IOException {
+        NetworkCache cache = new NetworkCache(cacheProvider);
+
+        cache.writeTempCacheFile(URL_A, new ByteArrayInputStream(bytes("aaaa")), FileExtension.JSON);
+
+        assertNull(cache.fetchFile(URL_A));
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void journalIsReplayedOnRestart() throws IOException {
+        NetworkCache cache = new NetworkCache(cacheProvider);
+        put(cache, URL_A, "aaaa");
+        put(cache, URL_B, "bbbbbb");
+
+        NetworkCache restarted = new NetworkCache(cacheProvider);
+
+        assertNotNull(restarted.fetchFile(URL_A));
+        assertNotNull(restarted.fetchFile(URL_B));
+        assertEquals(10, restarted.getSize());
+    }
+
+    @Test
+    public void accessOrderIsReplayedOnRestart() throws IOException {
+        NetworkCache cache = new NetworkCache(cacheProvider);
+        put(cache, URL_A, "aaaa");
+        put(cache, URL_B, "bbbb");
+        cache.fetchFile(URL_A);
+
+        NetworkCache restarted = new NetworkCache(cacheProvider);
+        restarted.setMaxBytes(4);
+
+        assertNotNull(restarted.fetchFile(URL_A));
+        assertNull(restarted.fetchFile(URL_B));
+        assertEquals(4, restarted.getSize());
+    }
+
+    @Test
+    public void deletedEntryStaysDeletedOnRestart() throws IOException {
+        NetworkCache cache = new NetworkCache(cacheProvider);
+        cache.setMaxBytes(8);
+        put(cache, URL_A, "aaaa");
+        put(cache, URL_B, "bbbb");
+        put(cache, URL_C, "cccc");
+
+        NetworkCache restarted = new NetworkCache(cacheProvider);
+
+        assertNull(restarted.fetchFile(URL_A));
+        assertNotNull(restarted.fetchFile(URL_B));
+        assertNotNull(restarted.fetchFile(URL_C));
+    }
+
+    @Test
+    public void temporaryFilesLeftByACrashAreDeleted() throws IOException {
+        NetworkCache cache = new NetworkCache(cacheProvider);
+        put(cache, URL_A, "aaaa");
+        try (FileOutputStream output = cache.openTempCacheFile(URL_B, FileExtension.JSON)) {
+            output.write(bytes("partial"));
+        }
+        File[] beforeRestart = cacheDir.listFiles();
+
+        NetworkCache restarted = new NetworkCache(cacheProvider);
+
+        assertNotNull(restarted.fetchFile(URL_A));
+        assertNull(restarted.fetchFile(URL_B));
+        assertEquals(beforeRestart.length - 1, cacheDir.listFiles().length);
+        for (File file : cacheDir.listFiles()) {
+            assertFalse(file.getName(), file.getName().endsWith(".tmp"));
+        }
+    }
+
+    @Test
+    public void recordCutShortByACrashIsIgnored() throws IOException {
+        NetworkCache cache = new NetworkCache(cacheProvider);
+        put(cache, URL_A, "aaaa");
+        appendToJournal("PUT " + NetworkCache.keyForUrl(URL_B) + " JS");
+
+        NetworkCache restarted = new NetworkCache(cacheProvider);
+
+        assertNotNull(restarted.fetchFile(URL_A));
+        assertNull(restarted.fetchFile(URL_B));
+        assertEquals(4, restarted.getSize());
+    }
+
+    @Test
+    public void recordWithUnknownValuesDropsTheEntry() throws IOException {
+        NetworkCache cache = new NetworkCache(cacheProvider);
+        put(cache, URL_A, "aaaa");
+        appendToJournal("PUT " + NetworkCache.keyForUrl(URL_A) + " GIF 4");
+
+        NetworkCache restarted = new NetworkCache(cacheProvider);
+
+        assertNull(restarted.fetchFile(URL_A));
+        assertEquals(0, restarted.getSize());
+    }
+
+    @Test
+    public void fileThatDoesNotMatchItsRecordIsDropped() throws IOException {
+        NetworkCache cache = new NetworkCache(cacheProvider);
+        put(cache, URL_A, "aaaa");
+        put(cache, URL_B, "bbbb");
+        File fileA = cache.fetchFile(URL_A).s;
+        Files.write(fileA.toPath(), bytes("a"), StandardOpenOption.APPEND);
+
+        NetworkCache restarted = new NetworkCache(cacheProvider);
+
+        assertNull(restarted.fetchFile(URL_A));
+        assertFalse(fileA.exists());
+        assertNotNull(restarted.fetchFile(URL_B));
+        assertEquals(4, restarted.getSize());
+    }
+
+    @Test
+    public void corruptJournalClearsTheCache() throws IOException {
+        NetworkCache cache = new NetworkCache(cacheProvider);
+        put(cache, URL_A, "aaaa");
+        File fileA = cache.fetchFile(URL_A).s;
+        Files.write(new File(cacheDir, "journal").toPath(), bytes("not a journal\n"));
+
+        NetworkCache restarted = new NetworkCache(cacheProvider);
+
+        assertNull(restarted.fetchFile(URL_A));
+        assertFalse(fileA.exists());
+        assertEquals(0, restarted.getSize());
+    }
+
+    @Test
+    public void filesWithoutAJournalAreDeleted() throws IOException {
+        assertTrue(cacheDir.mkdirs());
+        File stray = new File(cacheDir, NetworkCache.keyForUrl(URL_A) + ".json");
+        Files.write(stray.toPath(), bytes("aaaa"));
+
+        NetworkCache cache = new NetworkCache(cacheProvider);
+
+        assertNull(cache.fetchFile(URL_A));
+        assertFalse(stray.exists());
+    }
+
+    @Test
+    public void leastRecentlyUsedFileIsEvicted() throws IOException {
+        NetworkCache cache = new NetworkCache(cacheProvider);
+        cache.setMaxBytes(8);
+        put(cache, URL_A, "aaaa");
+        put(cache, URL_B, "bbbb");
+        File fileB = cache.fetchFile(URL_B).s;
+        cache.fetchFile(URL_A);
+
+        put(cache, URL_C, "cccc");
+
+        assertNotNull(cache.fetchFile(URL_A));
+        assertNull(cache.fetchFile(URL_B));
+        assertFalse(fileB.exists());
+        assertNotNull(cache.fetchFile(URL_C));
+        assertEquals(8, cache.getSize());
+    }
+
+    @Test
+    public void replacingAnEntryUpdatesTheSize() throws IOException {
+        NetworkCache cache = new NetworkCache(cacheProvider);
+        put(cache, URL_A, "aaaa");
+
+        put(cache, URL_A, "aa");
+
+        assertArrayEquals(bytes("aa"), Files.readAllBytes(cache.fetchFile(URL_A).s.toPath()));
+        assertEquals(2, cache.getSize());
+    }
+
+    @Test
+    public void entryLargerThanTheCacheIsRejected() throws IOException {
+        NetworkCache cache = new NetworkCache(cacheProvider);
+        cache.setMaxBytes(8);
+        put(cache, URL_A, "aaaa");
+
+        try {
+            put(cache, URL_A, "aaaaaaaaaaaa");
+            fail("Expected the entry to be rejected.");
+        } catch (IOException expected) {
+            // The previous entry is kept.
+        }
+
+        assertArrayEquals(bytes("aaaa"), Files.readAllBytes(cache.fetchFile(URL_A).s.toPath()));
+        assertEquals(4, cache.getSize());
+        for (File file : cacheDir.listFiles()) {
+            assertFalse(file.getName(), file.getName().endsWith(".tmp"));
+        }
+    }
+
+    @Test
+    public void validatorsSurviveRestart() throws IOException {
+        NetworkCache cache = new NetworkCache(cacheProvider);
+        cache.writeTempCacheFile(URL_A, new ByteArrayInputStream(bytes("aaaa")), FileExtension.JSON);
+        cache.renameTempFile(URL_A, FileExtension.JSON,
+            new CacheValidators("W/\"a b\"", "Wed, 21 Oct 2015 07:28:00 GMT", 1234));
+        put(cache, URL_B, "bbbb");
+
+        NetworkCache restarted = new NetworkCache(cacheProvider);
+
+        CacheValidators validators = restarted.getValidators(URL_A);
+        assertNotNull(validators);
+        assertEquals("W/\"a b\"", validators.getEtag());
+        assertEquals("Wed, 21 Oct 2015 07:28:00 GMT", validators.getLastModified());
+        assertEquals(1234, validators.getExpiresAt());
+        assertNull(restarted.getValidators(URL_B));
+    }
+
+    @Test
+    public void updatedValidatorsSurviveRestart() throws IOException {
+        NetworkCache cache = new NetworkCache(cacheProvider);
+        cache.writeTempCacheFile(URL_A, new ByteArrayInputStream(bytes("aaaa")), FileExtension.JSON);
+        cache.renameTempFile(URL_A, FileExtension.JSON, new CacheValidators("\"1\"", null, 1000));
+
+        cache.updateValidators(URL_A, new CacheValidators("\"2\"", null, 2000));
+        NetworkCache restarted = new NetworkCache(cacheProvider);
+
+        CacheValidators validators = restarted.getValidators(URL_A);
+        assertEquals("\"2\"", validators.getEtag());
+        assertNull(validators.getLastModified());
+        assertEquals(2000, validators.getExpiresAt());
+        assertNotNull(restarted.fetchFile(URL_A));
+    }
+
+    @Test
+    public void compressedJsonIsInflatedWhenRead() throws IOException {
+        NetworkCache cache = new NetworkCache(cacheProvider);
+        cache.setCompressJson(true);
+        FileExtension extension = cache.storageExtension(FileExtension.JSON);
+        assertEquals(FileExtension.JSON_GZIP, extension);
+        assertEquals(FileExtension.ZIP, cache.storageExtension(FileExtension.ZIP));
+        new TeeInputStream(new ByteArrayInputStream(bytes("aaaa")), cache.openTempCacheFile(URL_A, extension), true)
+            .commit();
+        cache.renameTempFile(URL_A, extension);
+
+        Pair<FileExtension, InputStream> cached = new NetworkCache(cacheProvider).fetchPair(URL_A);
+
+        assertEquals(FileExtension.JSON, cached.f);
+        try (InputStream stream = cached.s) {
+            byte[] read = new byte[5];
+            assertEquals(4, stream.read(read));
+            assertEquals("aaaa", new String(read, 0, 4, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void clearDeletesEverything() throws IOException {
+        NetworkCache cache = new NetworkCache(cacheProvider);
+        put(cache, URL_A, "aaaa");
+
+        cache.clear();
+
+        assertFalse(cacheDir.exists());
+        assertNull(cache.fetchFile(URL_A));
+        assertEquals(0, cache.getSize());
+        assertNull(new NetworkCache(cacheProvider).fetchFile(URL_A));
+    }
+
+    private static void put(NetworkCache cache, String url, String content) throws IOException {
+        cache.writeTempCacheFile(url, new ByteArrayInputStream(bytes(content)), FileExtension.JSON);
+        cache.renameTempFile(url, FileExtension.JSON);
+    }
+
+    private void appendToJournal(String record) throws IOException {
+        Files.write(new File(cacheDir, "journal").toPath(), bytes(record), StandardOpenOption.APPEND);
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+}
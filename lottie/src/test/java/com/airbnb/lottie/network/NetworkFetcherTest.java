@@ -0,0 +1,369 @@
+package com.airbnb.lottie.network;
+
+import com.airbnb.lottie.LottieComposition;
+import com.airbnb.lottie.LottieResult;
+import com.airbnb.lottie.LottieTask;
+import com.sun.net.httpserver.HttpServer;
+import org.jetbrains.annotations.NotNull;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Batch fetching against a stand-in fetcher whose requests only finish once the test opens the gate, and against a
+ * loopback server. Every response is an error so that no composition has to be parsed.
+ */
+public class NetworkFetcherTest {
+    private static final long TIMEOUT_MS = 5000;
+
+    /**
+     * How long a limit has to hold before the test trusts that no further request is going to start.
+     */
+    private static final long SETTLE_MS = 200;
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final CountDownLatch gate = new CountDownLatch(1);
+
+    private GatedFetcher fetcher;
+
+    private NetworkFetcher networkFetcher;
+
+    @Before
+    public void setUp() {
+        fetcher = new GatedFetcher(gate);
+        networkFetcher = new NetworkFetcher(new NetworkCache(temporaryFolder::getRoot), fetcher);
+    }
+
+    @After
+    public void tearDown() {
+        gate.countDown();
+    }
+
+    @Test
+    public void requestsToOneHostAreLimited() throws Exception {
+        networkFetcher.setMaxRequestsPerHost(2);
+        List<String> urls = Arrays.asList("https://a.com/1.json", "https://a.com/2.json", "https://a.com/3.json",
+            "https://a.com/4.json", "https://a.com/5.json", "https://b.com/1.json");
+        BatchThread batch = new BatchThread(networkFetcher, urls).begin();
+
+        waitFor(() -> fetcher.started.get() == 3);
+        Thread.sleep(SETTLE_MS);
+        assertEquals(3, fetcher.started.get());
+        gate.countDown();
+        batch.finish();
+
+        assertEquals(6, fetcher.started.get());
+        assertEquals(2, fetcher.maxRunning("a.com"));
+        assertEquals(1, fetcher.maxRunning("b.com"));
+        assertFailed(batch.results, urls.size());
+    }
+
+    @Test
+    public void requestsToAllHostsAreLimited() throws Exception {
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            urls.add("https://host" + i + ".com/a.json");
+        }
+        BatchThread batch = new BatchThread(networkFetcher, urls).begin();
+
+        waitFor(() -> fetcher.started.get() == 8);
+        Thread.sleep(SETTLE_MS);
+        assertEquals(8, fetcher.started.get());
+        assertEquals(8, fetcher.maxRunning());
+        gate.countDown();
+        batch.finish();
+
+        assertEquals(12, fetcher.started.get());
+        assertEquals(8, fetcher.maxRunning());
+        assertFailed(batch.results, urls.size());
+    }
+
+    @Test
+    public void limitChangeStartsWaitingRequests() throws Exception {
+        networkFetcher.setMaxRequestsPerHost(1);
+        List<String> urls = Arrays.asList("https://a.com/1.json", "https://a.com/2.json", "https://a.com/3.json");
+        BatchThread batch = new BatchThread(networkFetcher, urls).begin();
+        waitFor(() -> fetcher.started.get() == 1);
+
+        networkFetcher.setMaxRequestsPerHost(3);
+
+        waitFor(() -> fetcher.started.get() == 3);
+        gate.countDown();
+        batch.finish();
+        assertFailed(batch.results, urls.size());
+    }
+
+    @Test
+    public void urlRequestedTwiceInABatchIsFetchedOnce() throws Exception {
+        String url = "https://a.com/1.json";
+        List<String> urls = Arrays.asList(url, "https://a.com/2.json", url);
+        List<String> notified = Collections.synchronizedList(new ArrayList<>());
+        BatchThread batch = new BatchThread(networkFetcher, urls, (u, result) -> notified.add(u)).begin();
+
+        waitFor(() -> fetcher.started.get() == 2);
+        Thread.sleep(SETTLE_MS);
+        gate.countDown();
+        batch.finish();
+
+        assertEquals(1, fetcher.requestCount(url));
+        assertEquals(2, fetcher.started.get());
+        assertSame(batch.results.get(0), batch.results.get(2));
+        assertEquals(urls, notified);
+        assertFailed(batch.results, urls.size());
+    }
+
+    @Test
+    public void urlRequestedByTwoBatchesIsFetchedOnce() throws Exception {
+        String url = "https://a.com/1.json";
+        BatchThread first = new BatchThread(networkFetcher, Collections.singletonList(url)).begin();
+        waitFor(() -> fetcher.started.get() == 1);
+        // The second url only starts once the batch has enqueued the shared one.
+        BatchThread second = new BatchThread(networkFetcher, Arrays.asList(url, "https://b.com/1.json")).begin();
+        waitFor(() -> fetcher.started.get() == 2);
+
+        gate.countDown();
+        first.finish();
+        second.finish();
+
+        assertEquals(1, fetcher.requestCount(url));
+        assertSame(first.results.get(0), second.results.get(0));
+        assertFailed(second.results, 2);
+    }
+
+    @Test
+    public void finishedUrlIsFetchedAgain() throws Exception {
+        gate.countDown();
+        String url = "https://a.com/1.json";
+
+        networkFetcher.fetchSync(Collections.singletonList(url), null);
+        networkFetcher.fetchSync(Collections.singletonList(url), null);
+
+        assertEquals(2, fetcher.requestCount(url));
+    }
+
+    @Test
+    public void asyncBatchesDoNotHoldLoaderThreads() throws Exception {
+        Executor loaderExecutor = LottieTask.EXECUTOR;
+        ExecutorService singleLoader = Executors.newSingleThreadExecutor();
+        LottieTask.EXECUTOR = singleLoader;
+        try {
+            networkFetcher.fetch(Arrays.asList("https://a.com/1.json", "https://b.com/1.json"), null);
+            networkFetcher.fetch(Collections.singletonList("https://c.com/1.json"), null);
+            waitFor(() -> fetcher.started.get() == 3);
+
+            final CountDownLatch loaded = new CountDownLatch(1);
+            new LottieTask<>(() -> {
+                loaded.countDown();
+                return new LottieResult<>(new IllegalStateException());
+            });
+
+            assertTrue("A loader thread is waiting for a batch.", loaded.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        } finally {
+            LottieTask.EXECUTOR = loaderExecutor;
+            singleLoader.shutdownNow();
+        }
+    }
+
+    @Test
+    public void loopbackRequestsToOneHostAreLimited() throws Exception {
+        final AtomicInteger started = new AtomicInteger();
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        ExecutorService serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/", exchange -> {
+            started.incrementAndGet();
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                gate.await(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            byte[] body = "missing".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(404, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        });
+        server.start();
+        try {
+            NetworkFetcher loopbackFetcher = new NetworkFetcher(new NetworkCache(temporaryFolder::getRoot),
+                new DefaultLottieNetworkFetcher());
+            loopbackFetcher.setMaxRequestsPerHost(2);
+            String base = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+            List<String> urls = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                urls.add(base + "/" + i + ".json");
+            }
+            BatchThread batch = new BatchThread(loopbackFetcher, urls).begin();
+
+            waitFor(() -> started.get() == 2);
+            Thread.sleep(SETTLE_MS);
+            assertEquals(2, started.get());
+            gate.countDown();
+            batch.finish();
+
+            assertEquals(5, started.get());
+            assertEquals(2, maxRunning.get());
+            assertFailed(batch.results, urls.size());
+            assertTrue(batch.results.get(0).getException().getMessage().contains("404"));
+        } finally {
+            server.stop(0);
+            serverExecutor.shutdownNow();
+        }
+    }
+
+    private static void assertFailed(List<LottieResult<LottieComposition>> results, int count) {
+        assertEquals(count, results.size());
+        for (LottieResult<LottieComposition> result : results) {
+            assertNull(result.getValue());
+            assertNotNull(result.getException());
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Timed out waiting for requests to start.");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Runs a blocking batch fetch so the test can watch the requests while it is waiting for them.
+     */
+    private static final class BatchThread extends Thread {
+        private final NetworkFetcher networkFetcher;
+
+        private final List<String> urls;
+
+        private final NetworkFetcher.BatchListener listener;
+
+        private volatile List<LottieResult<LottieComposition>> results;
+
+        BatchThread(NetworkFetcher networkFetcher, List<String> urls) {
+            this(networkFetcher, urls, null);
+        }
+
+        BatchThread(NetworkFetcher networkFetcher, List<String> urls, NetworkFetcher.BatchListener listener) {
+            this.networkFetcher = networkFetcher;
+            this.urls = urls;
+            this.listener = listener;
+        }
+
+        BatchThread begin() {
+            start();
+            return this;
+        }
+
+        void finish() throws InterruptedException {
+            join(TIMEOUT_MS);
+            assertNotNull("Batch didn't finish.", results);
+        }
+
+        @Override
+        public void run() {
+            results = networkFetcher.fetchSync(urls, listener);
+        }
+    }
+
+    /**
+     * Stand-in fetcher that records how many requests run at once and holds them until the gate opens.
+     */
+    private static final class GatedFetcher implements LottieNetworkFetcher {
+        final AtomicInteger started = new AtomicInteger();
+
+        private final CountDownLatch gate;
+
+        private final AtomicInteger running = new AtomicInteger();
+
+        private final AtomicInteger maxRunning = new AtomicInteger();
+
+        private final ConcurrentHashMap<String, AtomicInteger> runningPerHost = new ConcurrentHashMap<>();
+
+        private final ConcurrentHashMap<String, AtomicInteger> maxRunningPerHost = new ConcurrentHashMap<>();
+
+        private final ConcurrentHashMap<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+
+        GatedFetcher(CountDownLatch gate) {
+            this.gate = gate;
+        }
+
+        @NotNull
+        @Override
+        public LottieFetchResult fetchSync(@NotNull String url) throws IOException {
+            String host = URI.create(url).getAuthority();
+            counter(requestCounts, url).incrementAndGet();
+            counter(maxRunningPerHost, host).accumulateAndGet(counter(runningPerHost, host).incrementAndGet(), Math::max);
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            started.incrementAndGet();
+            try {
+                if (!gate.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    throw new InterruptedIOException("Gate didn't open.");
+                }
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException();
+            } finally {
+                running.decrementAndGet();
+                counter(runningPerHost, host).decrementAndGet();
+            }
+            return new FakeFetchResult().code(404);
+        }
+
+        int maxRunning() {
+            return maxRunning.get();
+        }
+
+        int maxRunning(String host) {
+            return counter(maxRunningPerHost, host).get();
+        }
+
+        int requestCount(String url) {
+            return counter(requestCounts, url).get();
+        }
+
+        private static AtomicInteger counter(ConcurrentHashMap<String, AtomicInteger> counters, String key) {
+            AtomicInteger counter = counters.get(key);
+            if (counter == null) {
+                counters.putIfAbsent(key, new AtomicInteger());
+                counter = counters.get(key);
+            }
+            return counter;
+        }
+    }
+}
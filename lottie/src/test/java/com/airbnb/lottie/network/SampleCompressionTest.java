@@ -0,0 +1,155 @@
+package com.airbnb.lottie.network;
+
+import com.airbnb.lottie.parser.moshi.JsonReader;
+import com.sun.net.httpserver.HttpServer;
+import okio.Okio;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Reports bytes over the wire, bytes on disk and the time to read the json back for the sample animations of the
+ * entry module, with and without gzip.
+ * <p>
+ * Decode time is the time {@link JsonReader} takes to tokenize the whole file from the cache file. Building the
+ * composition from the tokens is the same work either way and needs the platform, so it isn't part of the number.
+ */
+public class SampleCompressionTest {
+    private static final File SAMPLES = new File("../entry/src/main/resources/rawfile");
+
+    private static final int WARMUP_RUNS = 20;
+
+    private static final int MEASURED_RUNS = 41;
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void reportSampleSizesAndDecodeTimes() throws IOException {
+        File[] samples = SAMPLES.listFiles((dir, name) -> name.endsWith(".json"));
+        Assume.assumeTrue("Sample animations not found", samples != null && samples.length > 0);
+        Arrays.sort(samples);
+
+        AtomicLong wireBytes = new AtomicLong();
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] body = Files.readAllBytes(new File(SAMPLES, exchange.getRequestURI().getPath().substring(1)).toPath());
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                body = gzip(body);
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+            wireBytes.set(body.length);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        });
+        server.start();
+        try {
+            String baseUrl = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+            NetworkCache plainCache = new NetworkCache(() -> new File(temporaryFolder.getRoot(), "plain"));
+            NetworkCache compressedCache = new NetworkCache(() -> new File(temporaryFolder.getRoot(), "gzip"));
+            compressedCache.setCompressJson(true);
+            System.out.println("sample, raw bytes, wire bytes, disk bytes (gzip), decode ms (plain), decode ms (gzip)");
+            for (File sample : samples) {
+                byte[] raw = Files.readAllBytes(sample.toPath());
+                String url = baseUrl + "/" + sample.getName();
+                byte[] received;
+                try (LottieFetchResult result = new DefaultLottieNetworkFetcher().fetchSync(url)) {
+                    received = read(result.bodyByteStream());
+                }
+                assertArrayEquals(raw, received);
+
+                File plainFile = store(plainCache, url, raw);
+                File compressedFile = store(compressedCache, url, raw);
+                assertTrue(wireBytes.get() < raw.length);
+                assertTrue(compressedFile.length() < plainFile.length());
+
+                System.out.println(String.format(Locale.US, "%s, %d, %d, %d, %.3f, %.3f", sample.getName(),
+                    raw.length, wireBytes.get(), compressedFile.length(), decodeMillis(plainFile, false),
+                    decodeMillis(compressedFile, true)));
+            }
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    /**
+     * Stores the response the way NetworkFetcher does and returns the committed file.
+     */
+    private static File store(NetworkCache cache, String url, byte[] response) throws IOException {
+        FileExtension extension = cache.storageExtension(FileExtension.JSON);
+        TeeInputStream tee = new TeeInputStream(new ByteArrayInputStream(response),
+            cache.openTempCacheFile(url, extension), extension == FileExtension.JSON_GZIP);
+        tee.commit();
+        cache.renameTempFile(url, extension);
+        return cache.fetchFile(url).s;
+    }
+
+    /**
+     * Median time to tokenize the cached file.
+     */
+    private static double decodeMillis(File file, boolean gzip) throws IOException {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            tokenize(file, gzip);
+        }
+        long[] times = new long[MEASURED_RUNS];
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            tokenize(file, gzip);
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return times[MEASURED_RUNS / 2] / 1_000_000.0;
+    }
+
+    private static void tokenize(File file, boolean gzip) throws IOException {
+        InputStream stream = new FileInputStream(file);
+        if (gzip) {
+            stream = new GZIPInputStream(stream, 8192);
+        }
+        try (JsonReader reader = JsonReader.of(Okio.buffer(Okio.source(stream)))) {
+            reader.skipValue();
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream output = new GZIPOutputStream(compressed)) {
+            output.write(bytes);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static byte[] read(InputStream stream) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = stream.read(buffer)) != -1) {
+            output.write(buffer, 0, read);
+        }
+        return output.toByteArray();
+    }
+}
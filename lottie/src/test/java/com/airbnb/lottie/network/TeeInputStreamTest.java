@@ -0,0 +1,124 @@
+package com.airbnb.lottie.network;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TeeInputStreamTest {
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void copiesEverythingThatIsRead() throws IOException {
+        byte[] response = bytes(20000);
+        File file = temporaryFolder.newFile();
+        TeeInputStream tee = new TeeInputStream(new ByteArrayInputStream(response), new FileOutputStream(file), false);
+
+        byte[] read = readFully(tee);
+        tee.commit();
+
+        assertArrayEquals(response, read);
+        assertArrayEquals(response, Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    public void commitCopiesWhatTheParserDidNotRead() throws IOException {
+        byte[] response = bytes(20000);
+        File file = temporaryFolder.newFile();
+        TeeInputStream tee = new TeeInputStream(new ByteArrayInputStream(response), new FileOutputStream(file), false);
+
+        tee.read();
+        tee.read(new byte[100], 0, 100);
+        tee.close();
+        tee.commit();
+
+        assertArrayEquals(response, Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    public void skippedBytesAreCopied() throws IOException {
+        byte[] response = bytes(20000);
+        File file = temporaryFolder.newFile();
+        TeeInputStream tee = new TeeInputStream(new ByteArrayInputStream(response), new FileOutputStream(file), false);
+
+        assertEquals(10000, tee.skip(10000));
+        assertEquals(response[10000] & 0xFF, tee.read());
+        assertEquals(9999, tee.skip(20000));
+        assertEquals(-1, tee.read());
+        tee.commit();
+
+        assertArrayEquals(response, Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    public void compressedCopyInflatesToTheResponse() throws IOException {
+        byte[] response = bytes(20000);
+        File file = temporaryFolder.newFile();
+        TeeInputStream tee = new TeeInputStream(new ByteArrayInputStream(response), new FileOutputStream(file), true);
+
+        readFully(tee);
+        tee.commit();
+
+        assertTrue(file.length() < response.length);
+        try (InputStream inflated = new GZIPInputStream(new FileInputStream(file))) {
+            assertArrayEquals(response, readFully(inflated));
+        }
+    }
+
+    @Test
+    public void abortClosesTheResponse() throws IOException {
+        final boolean[] closed = new boolean[1];
+        InputStream response = new ByteArrayInputStream(bytes(100)) {
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+        File file = temporaryFolder.newFile();
+        TeeInputStream tee = new TeeInputStream(response, new FileOutputStream(file), false);
+
+        tee.read(new byte[10], 0, 10);
+        tee.close();
+        assertTrue(!closed[0]);
+        tee.abort();
+
+        assertTrue(closed[0]);
+        assertEquals(10, file.length());
+    }
+
+    /**
+     * Json like bytes that compress well.
+     */
+    private static byte[] bytes(int size) {
+        byte[] pattern = "{\"v\":\"5.7.1\",\"fr\":60,\"ip\":0,\"op\":120,\"w\":512,\"h\":512,\"layers\":[]}".getBytes();
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = pattern[i % pattern.length];
+        }
+        return bytes;
+    }
+
+    private static byte[] readFully(InputStream stream) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1000];
+        int read;
+        while ((read = stream.read(buffer, 0, buffer.length)) != -1) {
+            output.write(buffer, 0, read);
+        }
+        return output.toByteArray();
+    }
+}